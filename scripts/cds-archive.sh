@@ -0,0 +1,20 @@
+#!/usr/bin/env bash
+# Builds a class-data-sharing archive of the classes loaded during startup (JDK 13+ dynamic AppCDS).
+# Run it on the same JDK and jar that production uses, then start with:
+#   java -XX:SharedArchiveFile=target/app-cds.jsa -jar target/book-store-1.0-SNAPSHOT.jar --spring.profiles.active=fast-start
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JAR=target/book-store-1.0-SNAPSHOT.jar
+ARCHIVE=target/app-cds.jsa
+
+[ -f "$JAR" ] || mvn -B -q -Pfast-start -DskipTests package
+
+# training run: start the context once and exit when ready
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$JAR" \
+     --spring.profiles.active=fast-start \
+     --spring.jpa.hibernate.ddl-auto=none \
+     --application.fast-start.exit-after-startup=true \
+     "$@"
+
+echo "CDS archive written to $ARCHIVE"
@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+# Compares cold-start time of the default configuration, the fast-start profile and fast-start + CDS.
+# Usage: scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+JAR=target/book-store-1.0-SNAPSHOT.jar
+DB_URL="jdbc:h2:file:./target/startup-bench/db"
+COMMON=(--spring.datasource.url="$DB_URL" --application.fast-start.exit-after-startup=true --logging.file=)
+
+mvn -B -q -Pfast-start -DskipTests package
+
+# fast-start validates the schema instead of generating it, so provision it once
+java -jar "$JAR" "${COMMON[@]}" --spring.jpa.hibernate.ddl-auto=update > /dev/null
+
+[ -f target/app-cds.jsa ] || scripts/cds-archive.sh "${COMMON[@]}" > /dev/null 2>&1 || true
+
+measure() {
+    local label=$1; shift
+    local total=0
+    for _ in $(seq "$RUNS"); do
+        local started
+        started=$(java "$@" -jar "$JAR" "${COMMON[@]}" ${PROFILE:+--spring.profiles.active=$PROFILE} \
+                  | sed -n 's/.*Started Application in \([0-9.]*\) seconds.*/\1/p')
+        total=$(echo "$total + $started" | bc -l)
+    done
+    printf '%-22s %6.2f s (mean of %d)\n' "$label" "$(echo "$total / $RUNS" | bc -l)" "$RUNS"
+}
+
+PROFILE=        measure "default"
+PROFILE=fast-start measure "fast-start"
+if [ -f target/app-cds.jsa ]; then
+    PROFILE=fast-start measure "fast-start + CDS" -XX:SharedArchiveFile=target/app-cds.jsa
+fi
+
+# per-bean breakdown of the fast-start profile
+java -jar "$JAR" "${COMMON[@]}" --spring.profiles.active=fast-start \
+     --application.startup-report.enabled=true | sed -n '/Slowest beans at startup/,/^[^ ]/p'
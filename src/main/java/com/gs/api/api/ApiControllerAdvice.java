@@ -2,8 +2,11 @@ package com.gs.api.api;
 
 import com.gs.api.api.exceptions.ApiErrors;
 import com.gs.api.exception.BusinessException;
+import com.gs.api.exception.NotFoundException;
+import com.gs.api.exception.VersionConflictException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -27,6 +30,24 @@ public class ApiControllerAdvice {
         return new ApiErrors(ex.getMessage());
     }
 
+    @ExceptionHandler(NotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiErrors handleNotFoundException(NotFoundException ex) {
+        return new ApiErrors(ex.getMessage());
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleVersionConflictException(VersionConflictException ex) {
+        return new ApiErrors(ex.getMessage());
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        return new ApiErrors("Resource was modified concurrently");
+    }
+
     @ExceptionHandler(value = ResponseStatusException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<ApiErrors> handleResponseStatusException(ResponseStatusException e) {
@@ -0,0 +1,30 @@
+package com.gs.api.api;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Identifies the calling client: by its {@value #API_KEY} when that key is one of the configured ones,
+ * otherwise by its remote address. Unknown keys are ignored, so a client cannot become someone else, or
+ * a new client on every request, by making one up.
+ */
+public class ClientIdentity {
+
+    public static final String API_KEY = "X-API-Key";
+
+    private final Set<String> apiKeys;
+
+    public ClientIdentity(String... apiKeys) {
+        Set<String> keys = new HashSet<>();
+        Arrays.stream(apiKeys).map(String::trim).filter(key -> !key.isEmpty()).forEach(keys::add);
+        this.apiKeys = Collections.unmodifiableSet(keys);
+    }
+
+    public String of(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
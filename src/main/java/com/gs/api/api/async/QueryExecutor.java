@@ -0,0 +1,91 @@
+package com.gs.api.api.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Runs slow list queries off the servlet container thread on a bounded pool. Each query gets a
+ * deadline: the read-only transaction around it carries the same timeout, which Spring applies as
+ * JDBC statement timeout, and the worker is interrupted when the deadline passes.
+ * <p>
+ * The pool is deliberately not a bean, so it never becomes the default executor of {@code @Async}.
+ */
+public class QueryExecutor {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final long timeoutMillis;
+    private final boolean enabled;
+    private final Timer queryTimer;
+    private final Counter timeouts;
+    private final Counter rejections;
+
+    public QueryExecutor(ThreadPoolTaskExecutor executor,
+                         TransactionTemplate transactionTemplate,
+                         Duration timeout,
+                         boolean enabled,
+                         MeterRegistry registry) {
+        this.executor = executor;
+        this.transactionTemplate = transactionTemplate;
+        this.timeoutMillis = timeout.toMillis();
+        this.enabled = enabled;
+        if ( transactionTemplate != null ) {
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.setTimeout((int) Math.max(1, timeout.getSeconds()));
+        }
+        this.queryTimer = registry.timer("api.query.duration");
+        this.timeouts = registry.counter("api.query.rejected", "reason", "timeout");
+        this.rejections = registry.counter("api.query.rejected", "reason", "saturated");
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "query", Collections.emptyList()).bindTo(registry);
+    }
+
+    public <T> DeferredResult<T> submit(Supplier<T> query) {
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        if ( !enabled ) {
+            complete(result, query);
+            return result;
+        }
+        try {
+            Future<?> future = executor.submit(() -> complete(result, query));
+            result.onTimeout(() -> {
+                future.cancel(true);
+                timeouts.increment();
+                result.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Query timed out"));
+            });
+        } catch ( TaskRejectedException e ) {
+            rejections.increment();
+            result.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server is overloaded"));
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> void complete(DeferredResult<T> result, Supplier<T> query) {
+        if ( result.isSetOrExpired() ) {
+            return;
+        }
+        try {
+            result.setResult(queryTimer.record(() -> transactionTemplate != null
+                    ? transactionTemplate.execute(status -> query.get())
+                    : query.get()));
+        } catch ( RuntimeException e ) {
+            result.setErrorResult(e);
+        }
+    }
+}
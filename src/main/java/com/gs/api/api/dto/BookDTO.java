@@ -23,4 +23,6 @@ public class BookDTO {
 
     @NotEmpty
     private String isbn;
+
+    private Long version;
 }
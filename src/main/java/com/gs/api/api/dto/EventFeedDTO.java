@@ -0,0 +1,29 @@
+package com.gs.api.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of events plus the offset to pass as {@code after} on the next poll.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventFeedDTO {
+
+    private List<LoanEventDTO> events;
+    private long next;
+
+    public static EventFeedDTO of(List<LoanEventDTO> events, long after) {
+        long next = events.isEmpty() ? after : events.get(events.size() - 1).getId();
+        return new EventFeedDTO(events, next);
+    }
+
+    public static EventFeedDTO empty(long after) {
+        return new EventFeedDTO(Collections.emptyList(), after);
+    }
+}
@@ -16,6 +16,7 @@ public class LoanDTO {
     private Long id;
     @NotEmpty
     private String bookIsbn;
+    private Long customerId;
     @NotEmpty
     private String customer;
     @NotEmpty
@@ -0,0 +1,26 @@
+package com.gs.api.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LoanEventDTO {
+
+    private Long id;
+    private String type;
+    private Long loanId;
+    private Long bookId;
+    private String bookIsbn;
+    private Long customerId;
+    private Boolean returned;
+    private Instant createdAt;
+}
@@ -1,16 +1,27 @@
 package com.gs.api.api.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter
+@Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class LoanFilterDTO {
 
+    public enum Match { ANY, ALL }
+
     private String isbn;
-    private String customer;
+    private Long customerId;
+
+    private Match match;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate loanDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate loanDateTo;
+    private Boolean returned;
 }
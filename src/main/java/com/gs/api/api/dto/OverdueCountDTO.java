@@ -0,0 +1,17 @@
+package com.gs.api.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueCountDTO {
+
+    private Long id;
+    private String label;
+    private long overdue;
+}
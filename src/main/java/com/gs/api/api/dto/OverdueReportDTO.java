@@ -0,0 +1,25 @@
+package com.gs.api.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueReportDTO {
+
+    private LocalDate asOf;
+    private Instant generatedAt;
+    private long total;
+    private Map<String, Long> byDaysLate;
+    private List<OverdueCountDTO> byBook;
+    private List<OverdueCountDTO> byCustomer;
+}
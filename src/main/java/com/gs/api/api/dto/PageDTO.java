@@ -0,0 +1,44 @@
+package com.gs.api.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageDTO<T> {
+
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long totalElements;
+    private Integer totalPages;
+
+    public static <T> PageDTO<T> of(Page<T> page) {
+        return new PageDTO<>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.hasNext(),
+                page.getTotalElements(),
+                page.getTotalPages());
+    }
+
+    public static <T> PageDTO<T> of(Slice<T> slice) {
+        return new PageDTO<>(
+                slice.getContent(),
+                slice.getNumber(),
+                slice.getSize(),
+                slice.hasNext(),
+                null,
+                null);
+    }
+}
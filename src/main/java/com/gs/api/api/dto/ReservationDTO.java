@@ -0,0 +1,31 @@
+package com.gs.api.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDTO {
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+    @NotEmpty
+    private String bookIsbn;
+    @NotEmpty
+    private String customer;
+    @NotEmpty
+    private String customerEmail;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String status;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long loanId;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long position;
+}
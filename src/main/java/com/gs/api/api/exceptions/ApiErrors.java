@@ -2,6 +2,7 @@ package com.gs.api.api.exceptions;
 
 import lombok.Getter;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
@@ -14,13 +15,15 @@ public class ApiErrors {
     private final List<String> errors;
 
     public ApiErrors(BindingResult bindingResult) {
-        this.errors = new ArrayList<>();
-        bindingResult.getAllErrors().forEach(error -> this.errors.add(error.getDefaultMessage()));
+        List<ObjectError> allErrors = bindingResult.getAllErrors();
+        this.errors = new ArrayList<>(allErrors.size());
+        for ( ObjectError error : allErrors ) {
+            this.errors.add(error.getDefaultMessage());
+        }
     }
 
     public ApiErrors(String message) {
-        this.errors = new ArrayList<>();
-        this.errors.add(message);
+        this.errors = Collections.singletonList(message);
     }
 
     public ApiErrors(ResponseStatusException e) {
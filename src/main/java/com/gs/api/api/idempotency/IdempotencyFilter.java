@@ -0,0 +1,169 @@
+package com.gs.api.api.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.api.api.ClientIdentity;
+import com.gs.api.api.exceptions.ApiErrors;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Replays the stored response of a repeated {@code POST} with the same {@value #IDEMPOTENCY_KEY}.
+ * Keys are scoped by {@link ClientIdentity}, so clients never see each other's responses, and bound to
+ * the request body: reusing a key for a different body is rejected with 422.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private final IdempotencyStore store;
+    private final ClientIdentity clientIdentity;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyStore store, ClientIdentity clientIdentity, ObjectMapper objectMapper) {
+        this.store = store;
+        this.clientIdentity = clientIdentity;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        CachedBodyRequest cached = new CachedBodyRequest(request);
+        String key = clientIdentity.of(request) + ":" + request.getRequestURI() + ":" + request.getHeader(IDEMPOTENCY_KEY);
+        String requestHash = cached.hash();
+
+        Optional<StoredResponse> stored = store.find(key);
+        if ( stored.isPresent() ) {
+            if ( !requestHash.equals(stored.get().getRequestHash()) ) {
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY, "This Idempotency-Key was used for a different request");
+                return;
+            }
+            replay(stored.get(), response);
+            return;
+        }
+        if ( !store.reserve(key) ) {
+            reject(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed");
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(cached, wrapper);
+            if ( wrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value() ) {
+                store.complete(key, new StoredResponse(
+                        wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray(), requestHash));
+                completed = true;
+            }
+        } finally {
+            if ( !completed ) {
+                store.release(key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrors(message));
+    }
+
+    private void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        if ( stored.getContentType() != null ) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    /**
+     * Reads the body up front so it can be hashed and still be read by the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        private String hash() {
+            try {
+                return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+            } catch ( NoSuchAlgorithmException e ) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
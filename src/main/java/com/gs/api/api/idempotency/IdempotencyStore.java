@@ -0,0 +1,17 @@
+package com.gs.api.api.idempotency;
+
+import java.util.Optional;
+
+public interface IdempotencyStore {
+
+    Optional<StoredResponse> find(String key);
+
+    /**
+     * Marks the key as in flight. Returns false when another request already holds it.
+     */
+    boolean reserve(String key);
+
+    void complete(String key, StoredResponse response);
+
+    void release(String key);
+}
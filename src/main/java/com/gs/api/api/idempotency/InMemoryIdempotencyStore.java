@@ -0,0 +1,110 @@
+package com.gs.api.api.idempotency;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private static final StoredResponse IN_FLIGHT = new StoredResponse(0, null, new byte[0], null);
+
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public InMemoryIdempotencyStore(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, Clock.systemUTC());
+    }
+
+    public InMemoryIdempotencyStore(Duration ttl, int maxEntries, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            /**
+             * Evicts the least recently used completed response; in-flight keys guard running requests
+             * and are only dropped by release or expiry.
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if ( size() <= maxEntries ) {
+                    return false;
+                }
+                Iterator<Entry> iterator = values().iterator();
+                while ( iterator.hasNext() ) {
+                    if ( iterator.next().response != IN_FLIGHT ) {
+                        iterator.remove();
+                        break;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<StoredResponse> find(String key) {
+        Entry entry = live(key);
+        if ( entry == null || entry.response == IN_FLIGHT ) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.response);
+    }
+
+    @Override
+    public synchronized boolean reserve(String key) {
+        if ( live(key) != null ) {
+            return false;
+        }
+        entries.put(key, new Entry(IN_FLIGHT, clock.millis() + ttlMillis));
+        return true;
+    }
+
+    @Override
+    public synchronized void complete(String key, StoredResponse response) {
+        entries.put(key, new Entry(response, clock.millis() + ttlMillis));
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized int evictExpired() {
+        long now = clock.millis();
+        int evicted = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ( iterator.hasNext() ) {
+            if ( iterator.next().expiresAt <= now ) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private Entry live(String key) {
+        Entry entry = entries.get(key);
+        if ( entry != null && entry.expiresAt <= clock.millis() ) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        private final StoredResponse response;
+        private final long expiresAt;
+
+        private Entry(StoredResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.gs.api.api.idempotency;
+
+import com.gs.api.model.entity.IdempotentResponse;
+import com.gs.api.repository.IdempotentResponseRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Keeps completed responses in the database so replays survive restarts and reach other nodes.
+ * The in-memory store stays in front of it as a cache and as the in-flight guard.
+ */
+public class PersistentIdempotencyStore implements IdempotencyStore {
+
+    private final InMemoryIdempotencyStore cache;
+    private final IdempotentResponseRepository repository;
+    private final Duration ttl;
+
+    public PersistentIdempotencyStore(InMemoryIdempotencyStore cache,
+                                      IdempotentResponseRepository repository,
+                                      Duration ttl) {
+        this.cache = cache;
+        this.repository = repository;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Optional<StoredResponse> find(String key) {
+        Optional<StoredResponse> cached = cache.find(key);
+        if ( cached.isPresent() ) {
+            return cached;
+        }
+        Instant oldest = Instant.now().minus(ttl);
+        return repository.findById(key)
+                .filter(r -> r.getCreatedAt().isAfter(oldest))
+                .map(r -> new StoredResponse(r.getStatus(), r.getContentType(), r.getBody(), r.getRequestHash()));
+    }
+
+    @Override
+    public boolean reserve(String key) {
+        return cache.reserve(key);
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        repository.save(IdempotentResponse.builder()
+                .key(key)
+                .status(response.getStatus())
+                .contentType(response.getContentType())
+                .body(response.getBody())
+                .requestHash(response.getRequestHash())
+                .createdAt(Instant.now())
+                .build());
+        cache.complete(key, response);
+    }
+
+    @Override
+    public void release(String key) {
+        cache.release(key);
+    }
+
+    public int purgeExpired() {
+        return repository.deleteCreatedBefore(Instant.now().minus(ttl));
+    }
+}
@@ -0,0 +1,18 @@
+package com.gs.api.api.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StoredResponse {
+
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+
+    /**
+     * Digest of the request body the response was produced for.
+     */
+    private final String requestHash;
+}
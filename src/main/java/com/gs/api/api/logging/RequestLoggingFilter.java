@@ -0,0 +1,81 @@
+package com.gs.api.api.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tags every log line of a request with its id and writes one access line with status and latency once
+ * the response is complete. For async requests that is the final async dispatch, not the first one that
+ * merely hands the work off.
+ */
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID = "X-Request-Id";
+    public static final String REQUEST_ID_MDC = "requestId";
+    public static final String LATENCY_MDC = "latencyMs";
+    public static final String STATUS_MDC = "status";
+
+    private static final Logger ACCESS = LoggerFactory.getLogger("com.gs.api.access");
+    private static final String START = RequestLoggingFilter.class.getName() + ".start";
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requestId = (String) request.getAttribute(REQUEST_ID_MDC);
+        if ( requestId == null ) {
+            requestId = requestIdOf(request);
+            request.setAttribute(REQUEST_ID_MDC, requestId);
+            request.setAttribute(START, System.nanoTime());
+            response.setHeader(REQUEST_ID, requestId);
+        }
+        MDC.put(REQUEST_ID_MDC, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if ( !isAsyncStarted(request) ) {
+                logAccess(request, response);
+            }
+            MDC.remove(REQUEST_ID_MDC);
+        }
+    }
+
+    private void logAccess(HttpServletRequest request, HttpServletResponse response) {
+        if ( !ACCESS.isInfoEnabled() ) {
+            return;
+        }
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (Long) request.getAttribute(START));
+        MDC.put(LATENCY_MDC, Long.toString(latencyMillis));
+        MDC.put(STATUS_MDC, Integer.toString(response.getStatus()));
+        try {
+            ACCESS.info("{} {} {} {}ms", request.getMethod(), request.getRequestURI(), response.getStatus(), latencyMillis);
+        } finally {
+            MDC.remove(LATENCY_MDC);
+            MDC.remove(STATUS_MDC);
+        }
+    }
+
+    private String requestIdOf(HttpServletRequest request) {
+        String requestId = request.getHeader(REQUEST_ID);
+        if ( requestId == null || requestId.isEmpty() || requestId.length() > MAX_REQUEST_ID_LENGTH ) {
+            return UUID.randomUUID().toString();
+        }
+        return requestId;
+    }
+}
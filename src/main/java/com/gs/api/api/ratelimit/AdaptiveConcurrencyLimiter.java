@@ -0,0 +1,69 @@
+package com.gs.api.api.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Additive-increase/multiplicative-decrease limit on in-flight requests: every request faster than
+ * the target latency grows the limit by 1/limit (about +1 per full window), every slower one
+ * shrinks it by the backoff ratio.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limitBits;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long targetLatencyNanos, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    public boolean tryAcquire() {
+        while ( true ) {
+            int current = inFlight.get();
+            if ( current >= getLimit() ) {
+                return false;
+            }
+            if ( inFlight.compareAndSet(current, current + 1) ) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees a permit without a latency sample, for requests whose duration says nothing about load.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        while ( true ) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            double next = latencyNanos > targetLatencyNanos
+                    ? Math.max(minLimit, limit * backoffRatio)
+                    : Math.min(maxLimit, limit + 1.0 / limit);
+            if ( next == limit || limitBits.compareAndSet(bits, Double.doubleToLongBits(next)) ) {
+                return;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,163 @@
+package com.gs.api.api.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.api.api.ClientIdentity;
+import com.gs.api.api.exceptions.ApiErrors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies the per-client rate limit and the adaptive concurrency limit. An async request keeps its
+ * concurrency permit until the response completes, times out or fails, so the limiter sees the real
+ * latency of deferred endpoints instead of the hand-off. Requests marked with {@link #park} wait for
+ * data rather than for the server, such as the event long-poll: they give the permit back unsampled as
+ * soon as they go async.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PERMIT = RateLimitFilter.class.getName() + ".permit";
+    private static final String PARKED = RateLimitFilter.class.getName() + ".parked";
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ClientIdentity clientIdentity;
+    private final ObjectMapper objectMapper;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    public RateLimitFilter(TokenBucketRateLimiter rateLimiter,
+                           AdaptiveConcurrencyLimiter concurrencyLimiter,
+                           ClientIdentity clientIdentity,
+                           ObjectMapper objectMapper,
+                           MeterRegistry registry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clientIdentity = clientIdentity;
+        this.objectMapper = objectMapper;
+        this.rateLimited = registry.counter("api.requests.rejected", "reason", "rate-limit");
+        this.shed = registry.counter("api.requests.rejected", "reason", "concurrency-limit");
+        registry.gauge("api.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit);
+        registry.gauge("api.concurrency.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight);
+        registry.gauge("api.ratelimit.clients", rateLimiter, TokenBucketRateLimiter::trackedClients);
+    }
+
+    /**
+     * Keeps the async part of the request out of the concurrency limit.
+     */
+    public static void park(HttpServletRequest request) {
+        request.setAttribute(PARKED, Boolean.TRUE);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Permit permit = (Permit) request.getAttribute(PERMIT);
+        if ( permit == null ) {
+            long waitNanos = rateLimiter.tryAcquire(clientIdentity.of(request));
+            if ( waitNanos > 0 ) {
+                rateLimited.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Too many requests");
+                return;
+            }
+            if ( !concurrencyLimiter.tryAcquire() ) {
+                shed.increment();
+                reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), "Server is overloaded");
+                return;
+            }
+            permit = new Permit(System.nanoTime());
+            request.setAttribute(PERMIT, permit);
+        }
+
+        boolean released = true;
+        try {
+            filterChain.doFilter(request, response);
+            if ( request.isAsyncStarted() ) {
+                if ( request.getAttribute(PARKED) != null ) {
+                    permit.releaseUnsampled();
+                } else {
+                    // released by the final async dispatch, or by the listener if that dispatch never comes
+                    request.getAsyncContext().addListener(permit);
+                }
+                released = false;
+            }
+        } finally {
+            if ( released ) {
+                permit.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+            throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrors(message));
+    }
+
+    /**
+     * The concurrency permit of one request; released once, by whichever of the final dispatch and the
+     * async listener comes first.
+     */
+    private final class Permit implements AsyncListener {
+
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long start) {
+            this.start = start;
+        }
+
+        private void release() {
+            if ( released.compareAndSet(false, true) ) {
+                concurrencyLimiter.release(System.nanoTime() - start);
+            }
+        }
+
+        private void releaseUnsampled() {
+            if ( released.compareAndSet(false, true) ) {
+                concurrencyLimiter.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
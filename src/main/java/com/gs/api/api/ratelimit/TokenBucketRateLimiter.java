@@ -0,0 +1,62 @@
+package com.gs.api.api.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token bucket kept as a single "theoretical arrival time" per client (GCRA),
+ * so acquiring a token is one CAS on an {@link AtomicLong} and never takes a lock.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns 0 when a token was taken, otherwise how many nanoseconds the client should wait.
+     */
+    public long tryAcquire(String client) {
+        AtomicLong bucket = buckets.computeIfAbsent(client, k -> new AtomicLong(Long.MIN_VALUE));
+        while ( true ) {
+            long now = nanoClock.getAsLong();
+            long tat = bucket.get();
+            long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long wait = base - burstToleranceNanos - now;
+            if ( wait > 0 ) {
+                return wait;
+            }
+            if ( bucket.compareAndSet(tat, base + emissionIntervalNanos) ) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops buckets that are full again, so idle clients do not keep memory forever.
+     */
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.entrySet().removeIf(e -> e.getValue().get() - now < 0);
+        return before - buckets.size();
+    }
+
+    public int trackedClients() {
+        return buckets.size();
+    }
+}
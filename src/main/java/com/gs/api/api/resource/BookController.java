@@ -1,7 +1,10 @@
 package com.gs.api.api.resource;
 
+import com.gs.api.api.async.QueryExecutor;
 import com.gs.api.api.dto.BookDTO;
 import com.gs.api.api.dto.LoanDTO;
+import com.gs.api.api.dto.PageDTO;
+import com.gs.api.exception.NotFoundException;
 import com.gs.api.model.entity.Book;
 import com.gs.api.model.entity.Loan;
 import com.gs.api.service.BookService;
@@ -12,15 +15,13 @@ import io.swagger.annotations.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.validation.Valid;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
@@ -30,10 +31,12 @@ public class BookController {
 
     private final BookService service;
     private final ModelMapper modelMapper;
+    private final QueryExecutor queryExecutor;
 
-    public BookController(BookService service, ModelMapper modelMapper) {
+    public BookController(BookService service, ModelMapper modelMapper, QueryExecutor queryExecutor) {
         this.service = service;
         this.modelMapper = modelMapper;
+        this.queryExecutor = queryExecutor;
     }
 
     @PostMapping
@@ -52,7 +55,7 @@ public class BookController {
     public BookDTO get(@PathVariable Long id) {
         return service.getById(id)
                 .map(book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found"));
+                .orElseThrow(() -> new NotFoundException("Book not found"));
     }
 
     @DeleteMapping(value = "{id}")
@@ -62,44 +65,60 @@ public class BookController {
             @ApiResponse(code = 204, message = "Book successfully deleted!")
     })
     public void delete(@PathVariable Long id) {
-        service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        service.getById(id).orElseThrow(() -> new NotFoundException("Book not found"));
         service.deleteById(id);
     }
 
     @PutMapping(value = "{id}")
     @ResponseStatus(HttpStatus.OK)
     @ApiOperation("Update a Book by Id")
+    @ApiResponses({
+            @ApiResponse(code = 409, message = "The given version is stale, the Book was modified meanwhile")
+    })
     public BookDTO update(@PathVariable Long id, @RequestBody BookDTO dto) {
+        Book changes = Book.builder()
+                .id(id)
+                .title(dto.getTitle())
+                .author(dto.getAuthor())
+                .version(dto.getVersion())
+                .build();
         return service
-                .getById(id)
-                .map(book -> {
-                    book.setAuthor(dto.getAuthor());
-                    book.setTitle(dto.getTitle());
-                    book = service.save(book);
-                    return modelMapper.map(book, BookDTO.class);
-                })
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+                .update(changes)
+                .map(book -> modelMapper.map(book, BookDTO.class))
+                .orElseThrow(() -> new NotFoundException("Book not found"));
     }
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     @ApiOperation("List all Books")
-    public Page<BookDTO> list(BookDTO filter, Pageable pageable) {
+    public DeferredResult<PageDTO<BookDTO>> list(BookDTO filter,
+                                                 Pageable pageable,
+                                                 @RequestParam(defaultValue = "true") boolean withTotal) {
         Book book = modelMapper.map(filter, Book.class);
-        Page<Book> books = service.find(book, pageable);
-        List<BookDTO> dtos = books
-                .stream()
-                .map(b -> modelMapper.map(b, BookDTO.class))
-                .collect(Collectors.toList());
-        return new PageImpl<>(dtos, pageable, books.getTotalElements());
+        return queryExecutor.submit(() -> {
+            if ( !withTotal ) {
+                Slice<Book> books = service.findSlice(book, pageable);
+                return PageDTO.of(books.map(b -> modelMapper.map(b, BookDTO.class)));
+            }
+            Page<Book> books = service.find(book, pageable);
+            return PageDTO.of(books.map(b -> modelMapper.map(b, BookDTO.class)));
+        });
     }
 
     @GetMapping(value = "{id}/loans")
     @ApiOperation("List all Book's Loans")
-    public Page<LoanDTO> listLoans(@PathVariable Long id, Pageable pageable) {
-        Book book = service.getById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found"));
-        Page<Loan> pagedLoans = service.getLoansByBook(book, pageable);
-        return pagedLoans.map(l -> modelMapper.map(l, LoanDTO.class));
+    public DeferredResult<PageDTO<LoanDTO>> listLoans(@PathVariable Long id,
+                                                      Pageable pageable,
+                                                      @RequestParam(defaultValue = "true") boolean withTotal) {
+        return queryExecutor.submit(() -> {
+            Book book = service.getById(id)
+                    .orElseThrow(() -> new NotFoundException("Book not found"));
+            if ( !withTotal ) {
+                Slice<Loan> loans = service.getLoanSliceByBook(book, pageable);
+                return PageDTO.of(loans.map(l -> modelMapper.map(l, LoanDTO.class)));
+            }
+            Page<Loan> pagedLoans = service.getLoansByBook(book, pageable);
+            return PageDTO.of(pagedLoans.map(l -> modelMapper.map(l, LoanDTO.class)));
+        });
     }
 }
@@ -0,0 +1,38 @@
+package com.gs.api.api.resource;
+
+import com.gs.api.api.dto.LoanDTO;
+import com.gs.api.api.dto.PageDTO;
+import com.gs.api.exception.NotFoundException;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.service.CustomerService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/customers")
+@Api("Customer API")
+@RequiredArgsConstructor
+public class CustomerController {
+
+    private final CustomerService service;
+    private final ModelMapper modelMapper;
+
+    @GetMapping(value = "{id}/loans")
+    @ApiOperation("List all Customer's Loans")
+    public PageDTO<LoanDTO> listLoans(@PathVariable Long id, Pageable pageable) {
+        Customer customer = service.getById(id)
+                .orElseThrow(() -> new NotFoundException("Customer not found"));
+        Page<Loan> pagedLoans = service.getLoansByCustomer(customer, pageable);
+        return PageDTO.of(pagedLoans.map(l -> modelMapper.map(l, LoanDTO.class)));
+    }
+}
@@ -0,0 +1,56 @@
+package com.gs.api.api.resource;
+
+import com.gs.api.api.dto.EventFeedDTO;
+import com.gs.api.api.dto.LoanEventDTO;
+import com.gs.api.api.ratelimit.RateLimitFilter;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.service.support.LoanEventLog;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/events")
+@Api("Event API")
+@RequiredArgsConstructor
+public class EventController {
+
+    static final int MAX_LIMIT = 500;
+    static final long MAX_WAIT_MILLIS = 60_000;
+
+    private final LoanEventLog eventLog;
+    private final ModelMapper modelMapper;
+
+    @GetMapping
+    @ApiOperation("Long-poll loan and book changes after an offset")
+    public DeferredResult<EventFeedDTO> poll(@RequestParam(defaultValue = "0") long after,
+                                             @RequestParam(defaultValue = "100") int limit,
+                                             @RequestParam(defaultValue = "25000") long waitMillis,
+                                             HttpServletRequest request) {
+        // an idle poll is not load
+        RateLimitFilter.park(request);
+        DeferredResult<EventFeedDTO> result = new DeferredResult<>(
+                Math.max(1, Math.min(waitMillis, MAX_WAIT_MILLIS)), EventFeedDTO.empty(after));
+        CompletableFuture<List<LoanEvent>> events = eventLog.poll(after, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        events.thenAccept(list -> result.setResult(EventFeedDTO.of(toDTO(list), after)));
+        result.onCompletion(() -> events.cancel(false));
+        return result;
+    }
+
+    private List<LoanEventDTO> toDTO(List<LoanEvent> events) {
+        return events.stream()
+                .map(e -> modelMapper.map(e, LoanEventDTO.class))
+                .collect(Collectors.toList());
+    }
+}
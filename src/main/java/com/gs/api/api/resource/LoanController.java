@@ -1,25 +1,28 @@
 package com.gs.api.api.resource;
 
+import com.gs.api.api.async.QueryExecutor;
 import com.gs.api.api.dto.LoanDTO;
 import com.gs.api.api.dto.LoanFilterDTO;
+import com.gs.api.api.dto.PageDTO;
 import com.gs.api.api.dto.ReturnedLoanDTO;
+import com.gs.api.exception.BusinessException;
+import com.gs.api.exception.NotFoundException;
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
 import com.gs.api.service.BookService;
 import com.gs.api.service.LoanService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.validation.Valid;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/loans")
@@ -29,18 +32,18 @@ public class LoanController {
     private final LoanService loanService;
     private final BookService bookService;
     private final ModelMapper modelMapper;
+    private final QueryExecutor queryExecutor;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public LoanDTO post(@RequestBody @Valid LoanDTO dto) {
         Book book = bookService
                 .getBookByIsbn(dto.getBookIsbn())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found"));
+                .orElseThrow(() -> new BusinessException("Book not found"));
         Loan loan = Loan
                 .builder()
                 .loanDate(LocalDate.now())
-                .customer(dto.getCustomer())
-                .customerEmail(dto.getCustomerEmail())
+                .customer(Customer.builder().name(dto.getCustomer()).email(dto.getCustomerEmail()).build())
                 .book(book)
                 .build();
         loan = loanService.save(loan);
@@ -50,22 +53,29 @@ public class LoanController {
     @PatchMapping("{id}")
     @ResponseStatus(HttpStatus.OK)
     public void patch(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto) {
+        if ( loanService.queueReturn(id, dto.isReturned()) ) {
+            return;
+        }
         loanService
                 .getById(id)
                 .map(l -> dto.isReturned() ? l.returnBook() : l.undoReturn())
                 .map(loanService::update)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Loan not found"));
+                .orElseThrow(() -> new NotFoundException("Loan not found"));
     }
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public Page<LoanDTO> get(LoanFilterDTO filter, Pageable pageable) {
-        Page<Loan> loans = loanService
-                .find(filter, pageable);
-        List<LoanDTO> dtos = loans
-                .stream()
-                .map(l -> modelMapper.map(l, LoanDTO.class))
-                .collect(Collectors.toList());
-        return new PageImpl<>(dtos, pageable, loans.getTotalElements());
+    public DeferredResult<PageDTO<LoanDTO>> get(LoanFilterDTO filter,
+                                                Pageable pageable,
+                                                @RequestParam(defaultValue = "true") boolean withTotal) {
+        return queryExecutor.submit(() -> {
+            if ( !withTotal ) {
+                Slice<Loan> loans = loanService.findSlice(filter, pageable);
+                return PageDTO.of(loans.map(l -> modelMapper.map(l, LoanDTO.class)));
+            }
+            Page<Loan> loans = loanService
+                    .find(filter, pageable);
+            return PageDTO.of(loans.map(l -> modelMapper.map(l, LoanDTO.class)));
+        });
     }
 }
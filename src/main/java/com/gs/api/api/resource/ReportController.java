@@ -0,0 +1,57 @@
+package com.gs.api.api.resource;
+
+import com.gs.api.api.dto.OverdueCountDTO;
+import com.gs.api.api.dto.OverdueReportDTO;
+import com.gs.api.model.report.OverdueBuckets;
+import com.gs.api.model.report.OverdueCount;
+import com.gs.api.model.report.OverdueReport;
+import com.gs.api.service.ReportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/reports")
+@Api("Report API")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final ReportService reportService;
+    private final ModelMapper modelMapper;
+
+    @GetMapping("overdue")
+    @ApiOperation("Overdue loans by book, by customer and by days late")
+    public OverdueReportDTO overdue() {
+        OverdueReport report = reportService.getOverdueReport();
+        OverdueBuckets buckets = report.getByDaysLate();
+
+        Map<String, Long> byDaysLate = new LinkedHashMap<>();
+        byDaysLate.put("1-7", buckets.getUpToWeek());
+        byDaysLate.put("8-30", buckets.getUpToMonth());
+        byDaysLate.put("31+", buckets.getOverMonth());
+
+        return OverdueReportDTO.builder()
+                .asOf(report.getAsOf())
+                .generatedAt(report.getGeneratedAt())
+                .total(buckets.getTotal())
+                .byDaysLate(byDaysLate)
+                .byBook(toDTO(report.getByBook()))
+                .byCustomer(toDTO(report.getByCustomer()))
+                .build();
+    }
+
+    private List<OverdueCountDTO> toDTO(List<OverdueCount> counts) {
+        return counts.stream()
+                .map(c -> modelMapper.map(c, OverdueCountDTO.class))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,71 @@
+package com.gs.api.api.resource;
+
+import com.gs.api.api.dto.ReservationDTO;
+import com.gs.api.exception.BusinessException;
+import com.gs.api.exception.NotFoundException;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Reservation;
+import com.gs.api.service.BookService;
+import com.gs.api.service.ReservationService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/reservations")
+@Api("Reservation API")
+@RequiredArgsConstructor
+public class ReservationController {
+
+    private final ReservationService reservationService;
+    private final BookService bookService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @ApiOperation("Reserve a Book: lends it right away when free, otherwise joins its queue")
+    public ReservationDTO post(@RequestBody @Valid ReservationDTO dto) {
+        Book book = bookService
+                .getBookByIsbn(dto.getBookIsbn())
+                .orElseThrow(() -> new BusinessException("Book not found"));
+        Reservation reservation = reservationService.reserve(Reservation.builder()
+                .book(book)
+                .customer(Customer.builder().name(dto.getCustomer()).email(dto.getCustomerEmail()).build())
+                .build());
+        return toDTO(reservation);
+    }
+
+    @GetMapping("{id}")
+    @ApiOperation("Get a Reservation and its position in the queue")
+    public ReservationDTO get(@PathVariable Long id) {
+        return reservationService
+                .getById(id)
+                .map(this::toDTO)
+                .orElseThrow(() -> new NotFoundException("Reservation not found"));
+    }
+
+    @DeleteMapping("{id}")
+    @ApiOperation("Leave the queue")
+    public ReservationDTO delete(@PathVariable Long id) {
+        return reservationService
+                .cancel(id)
+                .map(this::toDTO)
+                .orElseThrow(() -> new NotFoundException("Reservation not found"));
+    }
+
+    private ReservationDTO toDTO(Reservation reservation) {
+        return ReservationDTO.builder()
+                .id(reservation.getId())
+                .bookIsbn(reservation.getBook().getIsbn())
+                .customer(reservation.getCustomer().getName())
+                .customerEmail(reservation.getCustomer().getEmail())
+                .status(reservation.getStatus().name())
+                .loanId(reservation.getLoan() != null ? reservation.getLoan().getId() : null)
+                .position(reservationService.getPosition(reservation))
+                .build();
+    }
+}
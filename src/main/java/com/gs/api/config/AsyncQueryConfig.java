@@ -0,0 +1,80 @@
+package com.gs.api.config;
+
+import com.gs.api.api.async.QueryExecutor;
+import com.gs.api.api.logging.MdcTaskDecorator;
+import com.gs.api.config.datasource.ReplicaLagGuard;
+import com.gs.api.config.jdbc.StatementStats;
+import com.gs.api.config.tracing.Tracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class AsyncQueryConfig {
+
+    @Value("${application.async-query.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.async-query.core-size:8}")
+    private int coreSize;
+
+    @Value("${application.async-query.max-size:16}")
+    private int maxSize;
+
+    @Value("${application.async-query.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${application.async-query.timeout:10s}")
+    private Duration timeout;
+
+    @Bean(destroyMethod = "shutdown")
+    public QueryExecutor queryExecutor(ObjectProvider<PlatformTransactionManager> transactionManager,
+                                       ObjectProvider<MeterRegistry> registry,
+                                       ObjectProvider<Tracer> tracer,
+                                       ObjectProvider<StatementStats> statementStats,
+                                       ObjectProvider<ReplicaLagGuard> lagGuard) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("query-");
+        // the query runs on behalf of the request: keep its MDC, trace, statement count and replica routing
+        TaskDecorator decorator = new MdcTaskDecorator();
+        for ( TaskDecorator context : contextDecorators(tracer, statementStats, lagGuard) ) {
+            TaskDecorator outer = decorator;
+            decorator = task -> outer.decorate(context.decorate(task));
+        }
+        executor.setTaskDecorator(decorator);
+        executor.initialize();
+
+        PlatformTransactionManager txManager = transactionManager.getIfAvailable();
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        return new QueryExecutor(
+                executor,
+                txManager != null ? new TransactionTemplate(txManager) : null,
+                timeout,
+                enabled,
+                meterRegistry != null ? meterRegistry : new SimpleMeterRegistry());
+    }
+
+    private List<TaskDecorator> contextDecorators(ObjectProvider<Tracer> tracer,
+                                                  ObjectProvider<StatementStats> statementStats,
+                                                  ObjectProvider<ReplicaLagGuard> lagGuard) {
+        List<TaskDecorator> decorators = new ArrayList<>();
+        tracer.ifAvailable(t -> decorators.add(t::wrap));
+        statementStats.ifAvailable(s -> decorators.add(s::wrap));
+        lagGuard.ifAvailable(g -> decorators.add(g::wrap));
+        return decorators;
+    }
+}
@@ -0,0 +1,63 @@
+package com.gs.api.config;
+
+import com.gs.api.config.datasource.ReadWriteRoutingDataSource;
+import com.gs.api.config.datasource.ReplicaLagFilter;
+import com.gs.api.config.datasource.ReplicaLagGuard;
+import com.gs.api.config.datasource.RoutingDataSourceProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("application.datasource")
+    public RoutingDataSourceProperties routingDataSourceProperties() {
+        return new RoutingDataSourceProperties();
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(RoutingDataSourceProperties properties) {
+        return new ReplicaLagGuard(properties.getReplicaLagTolerance());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReplicaLagFilter> replicaLagFilter(ReplicaLagGuard replicaLagGuard) {
+        FilterRegistrationBean<ReplicaLagFilter> registration = new FilterRegistrationBean<>(new ReplicaLagFilter(replicaLagGuard));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingDataSourceProperties properties, ReplicaLagGuard replicaLagGuard) {
+        List<DataSource> replicas = properties.getReplicas()
+                .stream()
+                .map(this::build)
+                .collect(Collectors.toList());
+        ReadWriteRoutingDataSource routing =
+                new ReadWriteRoutingDataSource(build(properties.getPrimary()), replicas, replicaLagGuard);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private DataSource build(RoutingDataSourceProperties.Node node) {
+        return DataSourceBuilder
+                .create()
+                .url(node.getUrl())
+                .username(node.getUsername())
+                .password(node.getPassword())
+                .build();
+    }
+}
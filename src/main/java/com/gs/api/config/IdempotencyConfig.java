@@ -0,0 +1,67 @@
+package com.gs.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.api.api.ClientIdentity;
+import com.gs.api.api.idempotency.IdempotencyFilter;
+import com.gs.api.api.idempotency.IdempotencyStore;
+import com.gs.api.api.idempotency.InMemoryIdempotencyStore;
+import com.gs.api.api.idempotency.PersistentIdempotencyStore;
+import com.gs.api.repository.IdempotentResponseRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Value("${application.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${application.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${application.api-keys:}")
+    private String[] apiKeys;
+
+    private final ObjectProvider<PersistentIdempotencyStore> persistentStore;
+
+    public IdempotencyConfig(ObjectProvider<PersistentIdempotencyStore> persistentStore) {
+        this.persistentStore = persistentStore;
+    }
+
+    @Bean
+    public InMemoryIdempotencyStore inMemoryIdempotencyStore() {
+        return new InMemoryIdempotencyStore(ttl, maxEntries);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.idempotency.persistent", havingValue = "true")
+    public PersistentIdempotencyStore persistentIdempotencyStore(InMemoryIdempotencyStore cache,
+                                                                 IdempotentResponseRepository repository) {
+        return new PersistentIdempotencyStore(cache, repository, ttl);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(ObjectMapper objectMapper) {
+        IdempotencyStore store = persistentStore.getIfAvailable();
+        if ( store == null ) {
+            store = inMemoryIdempotencyStore();
+        }
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(store, new ClientIdentity(apiKeys), objectMapper));
+        registration.addUrlPatterns("/api/loans", "/api/books", "/api/reservations");
+        return registration;
+    }
+
+    @Scheduled(fixedDelayString = "${application.idempotency.eviction-interval:60000}")
+    public void evictExpiredResponses() {
+        inMemoryIdempotencyStore().evictExpired();
+        persistentStore.ifAvailable(PersistentIdempotencyStore::purgeExpired);
+    }
+}
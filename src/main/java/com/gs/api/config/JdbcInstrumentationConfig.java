@@ -0,0 +1,63 @@
+package com.gs.api.config;
+
+import com.gs.api.config.jdbc.InstrumentedDataSource;
+import com.gs.api.config.jdbc.JdbcInstrumentationProperties;
+import com.gs.api.config.jdbc.QueryListener;
+import com.gs.api.config.jdbc.SlowQueryLog;
+import com.gs.api.config.jdbc.StatementBudgetFilter;
+import com.gs.api.config.jdbc.StatementStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.stream.Collectors;
+
+@Configuration
+public class JdbcInstrumentationConfig {
+
+    @Bean
+    @ConfigurationProperties("application.jdbc")
+    public JdbcInstrumentationProperties jdbcInstrumentationProperties() {
+        return new JdbcInstrumentationProperties();
+    }
+
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<QueryListener> listeners) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ( bean instanceof DataSource && !(bean instanceof InstrumentedDataSource) ) {
+                    return new InstrumentedDataSource((DataSource) bean,
+                            () -> listeners.orderedStream().collect(Collectors.toList()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog(JdbcInstrumentationProperties properties) {
+        return new SlowQueryLog(properties.getSlowQueryThreshold());
+    }
+
+    @Bean
+    public StatementStats statementStats() {
+        return new StatementStats();
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementBudgetFilter> statementBudgetFilter(JdbcInstrumentationProperties properties,
+                                                                              MeterRegistry registry) {
+        FilterRegistrationBean<StatementBudgetFilter> registration = new FilterRegistrationBean<>(
+                new StatementBudgetFilter(statementStats(), properties, registry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,41 @@
+package com.gs.api.config;
+
+import com.gs.api.config.datasource.LoanShardingProperties;
+import com.gs.api.repository.sharding.ShardedLoanStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Configuration
+@ConditionalOnProperty(name = "application.loans.sharding.enabled", havingValue = "true")
+public class LoanShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("application.loans.sharding")
+    public LoanShardingProperties loanShardingProperties() {
+        return new LoanShardingProperties();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ShardedLoanStore shardedLoanStore(LoanShardingProperties properties) {
+        if ( properties.getShards().isEmpty() ) {
+            throw new IllegalStateException("application.loans.sharding.shards must list at least one database");
+        }
+        List<DataSource> shards = properties.getShards()
+                .stream()
+                .map(node -> DataSourceBuilder
+                        .create()
+                        .url(node.getUrl())
+                        .username(node.getUsername())
+                        .password(node.getPassword())
+                        .build())
+                .collect(Collectors.toList());
+        return new ShardedLoanStore(shards);
+    }
+}
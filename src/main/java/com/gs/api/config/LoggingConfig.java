@@ -0,0 +1,29 @@
+package com.gs.api.config;
+
+import com.gs.api.api.logging.MdcTaskDecorator;
+import com.gs.api.api.logging.RequestLoggingFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class LoggingConfig {
+
+    /**
+     * Also picked up by Spring Boot for the {@code @Async} executor.
+     */
+    @Bean
+    public MdcTaskDecorator mdcTaskDecorator() {
+        return new MdcTaskDecorator();
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestLoggingFilter> requestLoggingFilter() {
+        FilterRegistrationBean<RequestLoggingFilter> registration = new FilterRegistrationBean<>(new RequestLoggingFilter());
+        registration.addUrlPatterns("/api/*");
+        // outermost, so the request id is on every line and the latency covers rate limiting too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
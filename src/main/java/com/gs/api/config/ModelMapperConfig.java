@@ -1,5 +1,7 @@
 package com.gs.api.config;
 
+import com.gs.api.api.dto.LoanDTO;
+import com.gs.api.model.entity.Loan;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +15,14 @@ public class ModelMapperConfig {
         modelMapper.getConfiguration()
                 .setFieldAccessLevel(org.modelmapper.config.Configuration.AccessLevel.PRIVATE)
                 .setFieldMatchingEnabled(true);
+        modelMapper.typeMap(Loan.class, LoanDTO.class)
+                .addMappings(mapper -> mapper.map(loan -> loan.getCustomer().getName(), LoanDTO::setCustomer));
+        modelMapper.typeMap(LoanDTO.class, Loan.class)
+                .addMappings(mapper -> {
+                    mapper.<String>map(LoanDTO::getCustomer, (loan, name) -> loan.getCustomer().setName(name));
+                    mapper.<String>map(LoanDTO::getCustomerEmail, (loan, email) -> loan.getCustomer().setEmail(email));
+                    mapper.<Long>map(LoanDTO::getCustomerId, (loan, id) -> loan.getCustomer().setId(id));
+                });
         return modelMapper;
     }
 }
@@ -0,0 +1,71 @@
+package com.gs.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.api.api.ClientIdentity;
+import com.gs.api.api.ratelimit.AdaptiveConcurrencyLimiter;
+import com.gs.api.api.ratelimit.RateLimitFilter;
+import com.gs.api.api.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "application.ratelimit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Value("${application.ratelimit.permits-per-second:50}")
+    private double permitsPerSecond;
+
+    @Value("${application.ratelimit.burst:100}")
+    private int burst;
+
+    @Value("${application.ratelimit.concurrency.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${application.ratelimit.concurrency.min-limit:10}")
+    private int minLimit;
+
+    @Value("${application.ratelimit.concurrency.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${application.ratelimit.concurrency.target-latency:250ms}")
+    private Duration targetLatency;
+
+    @Value("${application.ratelimit.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${application.api-keys:}")
+    private String[] apiKeys;
+
+    @Bean
+    public TokenBucketRateLimiter tokenBucketRateLimiter() {
+        return new TokenBucketRateLimiter(permitsPerSecond, burst);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatency.toNanos(), backoffRatio);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(ObjectMapper objectMapper, MeterRegistry registry) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(tokenBucketRateLimiter(), adaptiveConcurrencyLimiter(),
+                        new ClientIdentity(apiKeys), objectMapper, registry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 100);
+        return registration;
+    }
+
+    @Scheduled(fixedDelayString = "${application.ratelimit.eviction-interval:60000}")
+    public void evictIdleClients() {
+        tokenBucketRateLimiter().evictIdle();
+    }
+}
@@ -0,0 +1,41 @@
+package com.gs.api.config;
+
+import com.gs.api.config.startup.EagerBeansPostProcessor;
+import com.gs.api.config.startup.StartupTimingPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Collections;
+
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static EagerBeansPostProcessor eagerBeansPostProcessor(Environment environment) {
+        return new EagerBeansPostProcessor(Binder.get(environment)
+                .bind("application.fast-start.eager-beans", Bindable.listOf(String.class))
+                .orElse(Collections.emptyList()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.startup-report.enabled", havingValue = "true")
+    public static StartupTimingPostProcessor startupTimingPostProcessor(Environment environment) {
+        return new StartupTimingPostProcessor(environment.getProperty("application.startup-report.top", Integer.class, 20));
+    }
+
+    /**
+     * Used by the CDS training run and the startup benchmark (see {@code scripts/}).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "application.fast-start.exit-after-startup", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> exitAfterStartup() {
+        return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
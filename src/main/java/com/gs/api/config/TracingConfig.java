@@ -0,0 +1,49 @@
+package com.gs.api.config;
+
+import com.gs.api.config.tracing.SlowTracesEndpoint;
+import com.gs.api.config.tracing.Tracer;
+import com.gs.api.config.tracing.TracingAspect;
+import com.gs.api.config.tracing.TracingFilter;
+import com.gs.api.config.tracing.TracingQueryListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+@ConditionalOnProperty(name = "application.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    @Bean
+    public static Tracer tracer(@Value("${application.tracing.capacity:200}") int capacity) {
+        return new Tracer(capacity);
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public TracingQueryListener tracingQueryListener(Tracer tracer) {
+        return new TracingQueryListener(tracer);
+    }
+
+    @Bean
+    public TracingAspect tracingAspect(Tracer tracer) {
+        return new TracingAspect(tracer);
+    }
+
+    @Bean
+    public SlowTracesEndpoint slowTracesEndpoint(Tracer tracer) {
+        return new SlowTracesEndpoint(tracer);
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+        registration.addUrlPatterns("/api/*");
+        // inside the request logging filter, so the trace covers rate limiting and idempotency too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,38 @@
+package com.gs.api.config;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.validation.Valid;
+import javax.validation.Validator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@Configuration
+public class ValidationConfig {
+
+    /**
+     * Builds the constraint metadata of every {@code @Valid} request body before the server accepts
+     * traffic, instead of on the first (invalid) request of each type.
+     */
+    @Bean
+    public SmartInitializingSingleton validationWarmUp(ListableBeanFactory beanFactory, Validator validator) {
+        return () -> {
+            Set<Class<?>> validated = new LinkedHashSet<>();
+            for ( RequestMappingHandlerMapping mapping : beanFactory.getBeansOfType(RequestMappingHandlerMapping.class).values() ) {
+                mapping.getHandlerMethods().values().forEach(method -> {
+                    for ( MethodParameter parameter : method.getMethodParameters() ) {
+                        if ( parameter.hasParameterAnnotation(Valid.class) ) {
+                            validated.add(parameter.getParameterType());
+                        }
+                    }
+                });
+            }
+            validated.forEach(validator::getConstraintsForClass);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.gs.api.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class LoanShardingProperties {
+
+    /**
+     * Shard databases in routing order; adding or removing one re-maps books and needs a data migration.
+     */
+    private List<RoutingDataSourceProperties.Node> shards = new ArrayList<>();
+}
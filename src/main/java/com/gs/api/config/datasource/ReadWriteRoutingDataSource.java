@@ -0,0 +1,58 @@
+package com.gs.api.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to the replicas (round robin) and everything else to the primary.
+ * Must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the connection is only fetched once the transaction read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica-";
+
+    private final int replicaCount;
+    private final ReplicaLagGuard lagGuard;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaLagGuard lagGuard) {
+        this.replicaCount = replicas.size();
+        this.lagGuard = lagGuard;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for ( int i = 0; i < replicas.size(); i++ ) {
+            targets.put(REPLICA + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if ( TransactionSynchronizationManager.isCurrentTransactionReadOnly() ) {
+            if ( replicaCount > 0 && lagGuard.isReplicaSafe() ) {
+                return REPLICA + Math.floorMod(nextReplica.getAndIncrement(), replicaCount);
+            }
+            return PRIMARY;
+        }
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lagGuard.markWrite();
+                }
+            });
+        }
+        return PRIMARY;
+    }
+}
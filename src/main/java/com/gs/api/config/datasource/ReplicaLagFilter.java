@@ -0,0 +1,64 @@
+package com.gs.api.config.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Binds the calling client to the {@link ReplicaLagGuard} for the request. The time of the client's
+ * last write travels in the {@value #LAST_WRITE} cookie, which expires once replicas are safe again.
+ */
+public class ReplicaLagFilter extends OncePerRequestFilter {
+
+    public static final String LAST_WRITE = "last-write";
+
+    private final ReplicaLagGuard lagGuard;
+
+    public ReplicaLagFilter(ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        lagGuard.bind(lastWriteOf(request), writtenAt -> remember(response, writtenAt));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            lagGuard.unbind();
+        }
+    }
+
+    private void remember(HttpServletResponse response, long writtenAt) {
+        if ( response.isCommitted() ) {
+            return;
+        }
+        Cookie cookie = new Cookie(LAST_WRITE, Long.toString(writtenAt));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, lagGuard.getTolerance().getSeconds() + 1));
+        response.addCookie(cookie);
+    }
+
+    private static long lastWriteOf(HttpServletRequest request) {
+        if ( request.getCookies() == null ) {
+            return Long.MIN_VALUE;
+        }
+        for ( Cookie cookie : request.getCookies() ) {
+            if ( LAST_WRITE.equals(cookie.getName()) ) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch ( NumberFormatException e ) {
+                    return Long.MIN_VALUE;
+                }
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,97 @@
+package com.gs.api.config.datasource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+/**
+ * Keeps a client's reads on the primary for a short window after one of its own writes commits, so it
+ * does not observe a replica that has not caught up with that write. Other clients keep reading from
+ * the replicas.
+ * <p>
+ * The client is bound per request by {@link ReplicaLagFilter}, which carries the last write time in a
+ * cookie so every node honours it. Work outside a request (scheduled jobs) is tracked per thread.
+ */
+public class ReplicaLagGuard {
+
+    private final long toleranceMillis;
+    private final Clock clock;
+    private final ThreadLocal<Client> current = new ThreadLocal<>();
+
+    public ReplicaLagGuard(Duration tolerance) {
+        this(tolerance, Clock.systemUTC());
+    }
+
+    public ReplicaLagGuard(Duration tolerance, Clock clock) {
+        this.toleranceMillis = tolerance.toMillis();
+        this.clock = clock;
+    }
+
+    public Duration getTolerance() {
+        return Duration.ofMillis(toleranceMillis);
+    }
+
+    /**
+     * Binds a client to the current thread until {@link #unbind()}; {@code onWrite} is told the time of
+     * each of its writes.
+     */
+    public void bind(long lastWriteAt, LongConsumer onWrite) {
+        current.set(new Client(lastWriteAt, onWrite));
+    }
+
+    public void unbind() {
+        current.remove();
+    }
+
+    /**
+     * Runs {@code runnable} on behalf of the client bound to the calling thread.
+     */
+    public Runnable wrap(Runnable runnable) {
+        Client client = current.get();
+        if ( client == null ) {
+            return runnable;
+        }
+        return () -> {
+            Client previous = current.get();
+            current.set(client);
+            try {
+                runnable.run();
+            } finally {
+                if ( previous != null ) {
+                    current.set(previous);
+                } else {
+                    current.remove();
+                }
+            }
+        };
+    }
+
+    public void markWrite() {
+        long now = clock.millis();
+        Client client = current.get();
+        if ( client == null ) {
+            client = new Client(Long.MIN_VALUE, null);
+            current.set(client);
+        }
+        client.lastWriteAt = now;
+        if ( client.onWrite != null ) {
+            client.onWrite.accept(now);
+        }
+    }
+
+    public boolean isReplicaSafe() {
+        Client client = current.get();
+        long last = client != null ? client.lastWriteAt : Long.MIN_VALUE;
+        return last == Long.MIN_VALUE || clock.millis() - last > toleranceMillis;
+    }
+
+    private static final class Client {
+        private volatile long lastWriteAt;
+        private final LongConsumer onWrite;
+
+        private Client(long lastWriteAt, LongConsumer onWrite) {
+            this.lastWriteAt = lastWriteAt;
+            this.onWrite = onWrite;
+        }
+    }
+}
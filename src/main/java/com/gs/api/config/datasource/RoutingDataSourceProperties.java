@@ -0,0 +1,27 @@
+package com.gs.api.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class RoutingDataSourceProperties {
+
+    private Node primary = new Node();
+
+    private List<Node> replicas = new ArrayList<>();
+
+    private Duration replicaLagTolerance = Duration.ofSeconds(1);
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
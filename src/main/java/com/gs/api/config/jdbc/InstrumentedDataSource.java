@@ -0,0 +1,134 @@
+package com.gs.api.config.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Proxies connections and statements so every execution, with its SQL and bind parameters, is reported
+ * to the {@link QueryListener}s. Listeners are looked up on first use, as most of them are beans that
+ * must not be created together with the data source.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final Supplier<List<QueryListener>> listenerLookup;
+    private volatile List<QueryListener> listeners;
+
+    public InstrumentedDataSource(DataSource target, Supplier<List<QueryListener>> listeners) {
+        super(target);
+        this.listenerLookup = listeners;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrumented(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrumented(super.getConnection(username, password));
+    }
+
+    private Connection instrumented(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ( isIdentityMethod(method) ) {
+                        return identity(proxy, method, args);
+                    }
+                    Object result = invoke(connection, method, args);
+                    if ( result instanceof Statement ) {
+                        return instrumented((Statement) result, firstString(args));
+                    }
+                    return result;
+                });
+    }
+
+    private Statement instrumented(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if ( isIdentityMethod(method) ) {
+                        return identity(proxy, method, args);
+                    }
+                    String name = method.getName();
+                    if ( name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer ) {
+                        parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    } else if ( name.equals("clearParameters") ) {
+                        parameters.clear();
+                    } else if ( name.startsWith("execute") ) {
+                        String sql = firstString(args);
+                        return execute(statement, method, args,
+                                new QueryExecution(sql != null ? sql : preparedSql,
+                                        Collections.unmodifiableList(new ArrayList<>(parameters.values())),
+                                        name.equals("executeBatch")));
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private Object execute(Statement statement, Method method, Object[] args, QueryExecution execution) throws Throwable {
+        List<QueryListener> listeners = listeners();
+        for ( QueryListener listener : listeners ) {
+            listener.beforeQuery(execution);
+        }
+        Throwable error = null;
+        try {
+            return invoke(statement, method, args);
+        } catch ( Throwable e ) {
+            error = e;
+            throw e;
+        } finally {
+            execution.finish(error);
+            for ( int i = listeners.size() - 1; i >= 0; i-- ) {
+                listeners.get(i).afterQuery(execution);
+            }
+        }
+    }
+
+    private List<QueryListener> listeners() {
+        List<QueryListener> resolved = listeners;
+        if ( resolved == null ) {
+            resolved = new ArrayList<>(listenerLookup.get());
+            listeners = resolved;
+        }
+        return resolved;
+    }
+
+    private static String firstString(Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+    }
+
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class
+                && (method.getName().equals("equals") || method.getName().equals("hashCode"));
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch ( InvocationTargetException e ) {
+            throw e.getTargetException();
+        }
+    }
+}
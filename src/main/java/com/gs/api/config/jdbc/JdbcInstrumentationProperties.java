@@ -0,0 +1,36 @@
+package com.gs.api.config.jdbc;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+public class JdbcInstrumentationProperties {
+
+    private Duration slowQueryThreshold = Duration.ofMillis(500);
+
+    /**
+     * Executions of the same statement shape within one request from which it is reported as N+1.
+     */
+    private int repeatedStatementThreshold = 5;
+
+    private Budget budget = new Budget();
+
+    @Getter
+    @Setter
+    public static class Budget {
+        /**
+         * Fail the request instead of only logging; meant for the test profile.
+         */
+        private boolean enforce;
+        private int defaultLimit = 50;
+        /**
+         * Statement budget per endpoint, keyed by method and route, e.g. {@code GET /api/books/{id}/loans}.
+         */
+        private Map<String, Integer> endpoints = new HashMap<>();
+    }
+}
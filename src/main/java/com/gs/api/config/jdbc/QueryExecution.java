@@ -0,0 +1,63 @@
+package com.gs.api.config.jdbc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class QueryExecution {
+
+    private final String sql;
+    private final List<Object> parameters;
+    private final boolean batch;
+    private final long startNanos = System.nanoTime();
+    private long elapsedNanos = -1;
+    private Throwable error;
+    private Object attachment;
+
+    QueryExecution(String sql, List<Object> parameters, boolean batch) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.batch = batch;
+    }
+
+    /**
+     * The statement text, {@code null} for a batch of plain statements.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Bind parameters in index order, as of the execution (for a batch: the last row added).
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    public boolean isBatch() {
+        return batch;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Lets a listener carry state from {@code beforeQuery} to {@code afterQuery}.
+     */
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    void finish(Throwable error) {
+        this.elapsedNanos = System.nanoTime() - startNanos;
+        this.error = error;
+    }
+}
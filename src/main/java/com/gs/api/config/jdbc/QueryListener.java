@@ -0,0 +1,13 @@
+package com.gs.api.config.jdbc;
+
+/**
+ * Notified around every statement executed through the {@link InstrumentedDataSource}, on the executing thread.
+ */
+public interface QueryListener {
+
+    default void beforeQuery(QueryExecution execution) {
+    }
+
+    default void afterQuery(QueryExecution execution) {
+    }
+}
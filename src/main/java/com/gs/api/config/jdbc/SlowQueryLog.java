@@ -0,0 +1,34 @@
+package com.gs.api.config.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class SlowQueryLog implements QueryListener {
+
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final long thresholdMillis;
+
+    public SlowQueryLog(Duration threshold) {
+        this.thresholdMillis = threshold.toMillis();
+    }
+
+    @Override
+    public void afterQuery(QueryExecution execution) {
+        if ( execution.getElapsedMillis() >= thresholdMillis && log.isWarnEnabled() ) {
+            log.warn(" slow query took {} ms: {} parameters {} ",
+                    execution.getElapsedMillis(), execution.getSql(), format(execution.getParameters()));
+        }
+    }
+
+    private String format(List<Object> parameters) {
+        return parameters.stream()
+                .map(String::valueOf)
+                .map(value -> value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value)
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+}
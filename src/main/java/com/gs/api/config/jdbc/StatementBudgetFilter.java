@@ -0,0 +1,88 @@
+package com.gs.api.config.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements of each request and, once the response is complete, publishes them per
+ * endpoint ({@code api.requests.statements}), reports repeated statement shapes as possible N+1 and
+ * checks the endpoint's statement budget. With {@code budget.enforce} both findings fail the request,
+ * which is how the test suite catches regressions.
+ */
+@Slf4j
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final String STATEMENTS = StatementBudgetFilter.class.getName() + ".statements";
+
+    private final StatementStats statementStats;
+    private final JdbcInstrumentationProperties properties;
+    private final MeterRegistry registry;
+
+    public StatementBudgetFilter(StatementStats statementStats,
+                                 JdbcInstrumentationProperties properties,
+                                 MeterRegistry registry) {
+        this.statementStats = statementStats;
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        StatementStats.RequestStatements statements = (StatementStats.RequestStatements) request.getAttribute(STATEMENTS);
+        if ( statements == null ) {
+            statements = new StatementStats.RequestStatements();
+            request.setAttribute(STATEMENTS, statements);
+        }
+        try ( StatementStats.Scope scope = statementStats.activate(statements) ) {
+            filterChain.doFilter(request, response);
+        }
+        if ( !isAsyncStarted(request) ) {
+            check(endpointOf(request), statements);
+        }
+    }
+
+    private void check(String endpoint, StatementStats.RequestStatements statements) {
+        DistributionSummary.builder("api.requests.statements")
+                .tag("endpoint", endpoint)
+                .register(registry)
+                .record(statements.getTotal());
+
+        StringBuilder violations = new StringBuilder();
+        for ( Map.Entry<String, Integer> repeated : statements.repeated(properties.getRepeatedStatementThreshold()).entrySet() ) {
+            Counter.builder("api.requests.n-plus-one").tag("endpoint", endpoint).register(registry).increment();
+            log.warn(" possible N+1 in {}: {} executions of {} ", endpoint, repeated.getValue(), repeated.getKey());
+            violations.append(String.format("%n  %dx %s", repeated.getValue(), repeated.getKey()));
+        }
+        int budget = properties.getBudget().getEndpoints().getOrDefault(endpoint, properties.getBudget().getDefaultLimit());
+        if ( statements.getTotal() > budget ) {
+            log.warn(" {} ran {} statements, over its budget of {} ", endpoint, statements.getTotal(), budget);
+            violations.append(String.format("%n  %d statements, budget %d", statements.getTotal(), budget));
+        }
+        if ( properties.getBudget().isEnforce() && violations.length() > 0 ) {
+            throw new IllegalStateException(endpoint + " exceeded its statement budget:" + violations);
+        }
+    }
+
+    private String endpointOf(HttpServletRequest request) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (route != null ? route : "UNMAPPED");
+    }
+}
@@ -0,0 +1,94 @@
+package com.gs.api.config.jdbc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the statements of the request bound to the current thread, grouped by shape (the SQL with
+ * literals and {@code IN} lists collapsed). The same shape executed again and again within a request
+ * is the N+1 signature. Work handed to another thread is counted through {@link #wrap(Runnable)}.
+ */
+public class StatementStats implements QueryListener {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ThreadLocal<RequestStatements> current = new ThreadLocal<>();
+
+    @Override
+    public void afterQuery(QueryExecution execution) {
+        RequestStatements statements = current.get();
+        if ( statements != null ) {
+            statements.record(shapeOf(execution.getSql()));
+        }
+    }
+
+    public Scope activate(RequestStatements statements) {
+        RequestStatements previous = current.get();
+        current.set(statements);
+        return () -> {
+            if ( previous == null ) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        };
+    }
+
+    public Runnable wrap(Runnable runnable) {
+        RequestStatements statements = current.get();
+        if ( statements == null ) {
+            return runnable;
+        }
+        return () -> {
+            try ( Scope scope = activate(statements) ) {
+                runnable.run();
+            }
+        };
+    }
+
+    static String shapeOf(String sql) {
+        if ( sql == null ) {
+            return "batch";
+        }
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return WHITESPACE.matcher(shape.trim()).replaceAll(" ");
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static class RequestStatements {
+
+        private final AtomicInteger total = new AtomicInteger();
+        private final Map<String, AtomicInteger> shapes = new ConcurrentHashMap<>();
+
+        void record(String shape) {
+            total.incrementAndGet();
+            shapes.computeIfAbsent(shape, s -> new AtomicInteger()).incrementAndGet();
+        }
+
+        public int getTotal() {
+            return total.get();
+        }
+
+        /**
+         * Shapes executed at least {@code threshold} times, with their counts.
+         */
+        public Map<String, Integer> repeated(int threshold) {
+            return shapes.entrySet()
+                    .stream()
+                    .filter(entry -> entry.getValue().get() >= threshold)
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get()));
+        }
+    }
+}
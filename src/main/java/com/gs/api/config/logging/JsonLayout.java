@@ -0,0 +1,50 @@
+package com.gs.api.config.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.LayoutBase;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Renders each event as one JSON object per line, with the MDC (request id, latency, ...) as top-level fields.
+ */
+public class JsonLayout extends LayoutBase<ILoggingEvent> {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Override
+    public String doLayout(ILoggingEvent event) {
+        StringWriter writer = new StringWriter(256);
+        try ( JsonGenerator json = jsonFactory.createGenerator(writer) ) {
+            json.writeStartObject();
+            json.writeStringField("@timestamp", Instant.ofEpochMilli(event.getTimeStamp()).toString());
+            json.writeStringField("level", event.getLevel().toString());
+            json.writeStringField("logger", event.getLoggerName());
+            json.writeStringField("thread", event.getThreadName());
+            json.writeStringField("message", event.getFormattedMessage());
+            for ( Map.Entry<String, String> entry : event.getMDCPropertyMap().entrySet() ) {
+                json.writeStringField(entry.getKey(), entry.getValue());
+            }
+            if ( event.getThrowableProxy() != null ) {
+                json.writeStringField("stack_trace", ThrowableProxyUtil.asString(event.getThrowableProxy()));
+            }
+            json.writeEndObject();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.append(CoreConstants.LINE_SEPARATOR).toString();
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/json";
+    }
+}
@@ -0,0 +1,72 @@
+package com.gs.api.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in every N events of a hot-path logger (and its children) below {@code WARN}; warnings and
+ * errors always pass. Runs before the event is built, so dropped lines cost neither formatting nor a
+ * slot in the async buffer.
+ * <p>
+ * Rules are {@code logger=N} pairs separated by commas, e.g. {@code com.gs.api.access=100}; the most
+ * specific logger name wins.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final ConcurrentMap<String, Long> rates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public void setRules(String rules) {
+        rates.clear();
+        if ( rules == null ) {
+            return;
+        }
+        for ( String rule : rules.split(",") ) {
+            String[] parts = rule.trim().split("=");
+            if ( parts.length == 2 ) {
+                rates.put(parts[0].trim(), Long.parseLong(parts[1].trim()));
+            } else if ( !rule.trim().isEmpty() ) {
+                addWarn("Ignoring malformed sampling rule [" + rule + "]");
+            }
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks, which must not consume a sample
+        if ( format == null || rates.isEmpty() || level.isGreaterOrEqual(Level.WARN) ) {
+            return FilterReply.NEUTRAL;
+        }
+        String rule = ruleFor(logger.getName());
+        if ( rule == null ) {
+            return FilterReply.NEUTRAL;
+        }
+        long oneIn = rates.get(rule);
+        if ( oneIn <= 1 ) {
+            return FilterReply.NEUTRAL;
+        }
+        long seen = counters.computeIfAbsent(rule, r -> new AtomicLong()).getAndIncrement();
+        return seen % oneIn == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private String ruleFor(String loggerName) {
+        String name = loggerName;
+        while ( true ) {
+            if ( rates.containsKey(name) ) {
+                return name;
+            }
+            int dot = name.lastIndexOf('.');
+            if ( dot < 0 ) {
+                return null;
+            }
+            name = name.substring(0, dot);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.gs.api.config.startup;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.Ordered;
+
+import java.util.Collection;
+
+/**
+ * Keeps the hot-path beans eager under {@code spring.main.lazy-initialization}, so the first request
+ * does not pay for Hibernate bootstrap or MVC infrastructure. Spring Boot's lazy-init post processor
+ * only marks definitions whose lazy flag is unset, so an explicit {@code false} wins regardless of order.
+ */
+public class EagerBeansPostProcessor implements BeanFactoryPostProcessor, Ordered {
+
+    private final Collection<String> eagerBeans;
+
+    public EagerBeansPostProcessor(Collection<String> eagerBeans) {
+        this.eagerBeans = eagerBeans;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for ( String name : eagerBeans ) {
+            if ( beanFactory.containsBeanDefinition(name) ) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                definition.setLazyInit(false);
+            }
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,112 @@
+package com.gs.api.config.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Measures how long each bean takes from instantiation to the end of its initialization and logs the
+ * slowest ones once the application is ready. Dependencies are created while their dependent is being
+ * built, so the report ranks by self time (own time minus nested bean creation).
+ */
+@Slf4j
+public class StartupTimingPostProcessor implements InstantiationAwareBeanPostProcessor,
+        ApplicationListener<ApplicationReadyEvent> {
+
+    private final int top;
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+    private final ConcurrentLinkedQueue<BeanTiming> timings = new ConcurrentLinkedQueue<>();
+
+    public StartupTimingPostProcessor(int top) {
+        this.top = top;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        creating.get().push(new Frame(beanName, System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Frame> stack = creating.get();
+        Frame frame = stack.peek();
+        // objects exposed by a FactoryBean pass through here without a matching instantiation
+        if ( frame == null || !frame.beanName.equals(beanName) ) {
+            return bean;
+        }
+        stack.pop();
+        long total = System.nanoTime() - frame.startedAt;
+        timings.add(new BeanTiming(beanName, total, total - frame.nestedNanos));
+        Frame parent = stack.peek();
+        if ( parent != null ) {
+            parent.nestedNanos += total;
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        List<BeanTiming> slowest = report();
+        if ( slowest.isEmpty() ) {
+            return;
+        }
+        StringBuilder report = new StringBuilder("Slowest beans at startup (self ms / total ms):");
+        for ( BeanTiming timing : slowest ) {
+            report.append(String.format("%n  %8.1f / %8.1f  %s",
+                    timing.getSelfNanos() / 1e6, timing.getTotalNanos() / 1e6, timing.getBeanName()));
+        }
+        log.info(report.toString());
+    }
+
+    public List<BeanTiming> report() {
+        return new ArrayList<>(timings).stream()
+                .sorted(Comparator.comparingLong(BeanTiming::getSelfNanos).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    private static final class Frame {
+        private final String beanName;
+        private final long startedAt;
+        private long nestedNanos;
+
+        private Frame(String beanName, long startedAt) {
+            this.beanName = beanName;
+            this.startedAt = startedAt;
+        }
+    }
+
+    public static final class BeanTiming {
+        private final String beanName;
+        private final long totalNanos;
+        private final long selfNanos;
+
+        BeanTiming(String beanName, long totalNanos, long selfNanos) {
+            this.beanName = beanName;
+            this.totalNanos = totalNanos;
+            this.selfNanos = selfNanos;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.gs.api.config.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/slowtraces?limit=10}: the slowest of the recently finished traces, each as
+ * its span tree with duration, self time and SQL statement count per span.
+ */
+@Endpoint(id = "slowtraces")
+public class SlowTracesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final Tracer tracer;
+
+    public SlowTracesEndpoint(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @ReadOperation
+    public List<Span> slowest(@Nullable Integer limit) {
+        return tracer.slowest(limit != null ? limit : DEFAULT_LIMIT);
+    }
+}
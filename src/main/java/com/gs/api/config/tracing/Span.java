@@ -0,0 +1,117 @@
+package com.gs.api.config.tracing;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A timed unit of work (HTTP request, controller/service/repository call, JDBC statement) and its children.
+ * {@code statements} counts the SQL statements executed inside the span, including its children.
+ * <p>
+ * The getters are the JSON shape served by {@link SlowTracesEndpoint}.
+ */
+public class Span {
+
+    static final int MAX_SPANS_PER_TRACE = 1_000;
+
+    private final Span parent;
+    private final String layer;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Object> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final List<Span> children = new CopyOnWriteArrayList<>();
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger traceSize;
+    private volatile String name;
+    private volatile long durationNanos = -1;
+
+    Span(String name, String layer, Span parent) {
+        this.name = name;
+        this.layer = layer;
+        this.parent = parent;
+        this.traceSize = parent == null ? new AtomicInteger(1) : parent.traceSize;
+        if ( parent != null && traceSize.incrementAndGet() <= MAX_SPANS_PER_TRACE ) {
+            parent.children.add(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLayer() {
+        return layer;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public double getDurationMillis() {
+        long duration = durationNanos;
+        return toMillis(duration < 0 ? System.nanoTime() - startNanos : duration);
+    }
+
+    /**
+     * Time spent in the span itself rather than in its children, e.g. DTO mapping in a controller.
+     */
+    public double getSelfMillis() {
+        double children = this.children.stream().mapToDouble(Span::getDurationMillis).sum();
+        return Math.max(0, getDurationMillis() - children);
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public Map<String, Object> getAttributes() {
+        synchronized ( attributes ) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    public List<Span> getChildren() {
+        return children;
+    }
+
+    public Span setAttribute(String key, Object value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    boolean isRoot() {
+        return parent == null;
+    }
+
+    void rename(String name) {
+        this.name = name;
+    }
+
+    void end() {
+        if ( durationNanos < 0 ) {
+            durationNanos = System.nanoTime() - startNanos;
+        }
+        if ( isRoot() && traceSize.get() > MAX_SPANS_PER_TRACE ) {
+            setAttribute("droppedSpans", traceSize.get() - MAX_SPANS_PER_TRACE);
+        }
+    }
+
+    void statementExecuted() {
+        for ( Span span = this; span != null; span = span.parent ) {
+            span.statements.incrementAndGet();
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,111 @@
+package com.gs.api.config.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Minimal in-process tracer: the current span lives in a thread local, new spans become its children,
+ * and finished traces (root spans) are kept in memory, the latest {@code capacity} of them.
+ * Work handed to another thread joins the trace through {@link #wrap(Runnable)}.
+ */
+public class Tracer {
+
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+    private final Deque<Span> recent = new ArrayDeque<>();
+    private final int capacity;
+
+    public Tracer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public Span start(String name, String layer) {
+        Span span = new Span(name, layer, current.get());
+        current.set(span);
+        return span;
+    }
+
+    public void end(Span span) {
+        span.end();
+        if ( current.get() == span ) {
+            restore(span.getParent());
+        }
+        if ( span.isRoot() ) {
+            record(span);
+        }
+    }
+
+    /**
+     * Takes the span off this thread without ending it, for requests that complete on another thread.
+     */
+    public void suspend(Span span) {
+        if ( current.get() == span ) {
+            restore(span.getParent());
+        }
+    }
+
+    public Scope activate(Span span) {
+        Span previous = current.get();
+        current.set(span);
+        return () -> restore(previous);
+    }
+
+    public Span current() {
+        return current.get();
+    }
+
+    public Runnable wrap(Runnable runnable) {
+        Span span = current.get();
+        if ( span == null ) {
+            return runnable;
+        }
+        return () -> {
+            try ( Scope scope = activate(span) ) {
+                runnable.run();
+            }
+        };
+    }
+
+    public void statementExecuted() {
+        Span span = current.get();
+        if ( span != null ) {
+            span.statementExecuted();
+        }
+    }
+
+    public List<Span> slowest(int limit) {
+        List<Span> traces;
+        synchronized ( recent ) {
+            traces = new ArrayList<>(recent);
+        }
+        return traces.stream()
+                .sorted(Comparator.comparingDouble(Span::getDurationMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private void record(Span trace) {
+        synchronized ( recent ) {
+            if ( recent.size() >= capacity ) {
+                recent.removeFirst();
+            }
+            recent.addLast(trace);
+        }
+    }
+
+    private void restore(Span span) {
+        if ( span == null ) {
+            current.remove();
+        } else {
+            current.set(span);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.gs.api.config.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens a span around every controller, service and repository call. Runs outside the transaction
+ * interceptor, so service spans include the commit.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TracingAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.gs.api.repository";
+
+    private final Tracer tracer;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("within(com.gs.api..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+        Span span = tracer.start(typeName(joinPoint) + "." + joinPoint.getSignature().getName(), "controller");
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch ( Throwable e ) {
+            end(span, e);
+            throw e;
+        }
+        if ( result instanceof DeferredResult ) {
+            // the work continues on the query executor and the span ends with the response
+            tracer.suspend(span);
+            ((DeferredResult<?>) result).onCompletion(() -> tracer.end(span));
+        } else {
+            tracer.end(span);
+        }
+        return result;
+    }
+
+    /**
+     * Services and repositories only join an existing trace: scheduled jobs such as the return flush,
+     * the book purge and the event pollers would otherwise flood the recent traces with root entries.
+     */
+    @Around("within(com.gs.api..*) && @within(org.springframework.stereotype.Service)")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        if ( tracer.current() == null ) {
+            return joinPoint.proceed();
+        }
+        return trace(joinPoint, typeName(joinPoint), "service");
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        if ( tracer.current() == null ) {
+            return joinPoint.proceed();
+        }
+        return trace(joinPoint, repositoryName(joinPoint.getThis()), "repository");
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String type, String layer) throws Throwable {
+        Span span = tracer.start(type + "." + joinPoint.getSignature().getName(), layer);
+        try {
+            Object result = joinPoint.proceed();
+            tracer.end(span);
+            return result;
+        } catch ( Throwable e ) {
+            end(span, e);
+            throw e;
+        }
+    }
+
+    private void end(Span span, Throwable e) {
+        span.setAttribute("error", e.getClass().getSimpleName());
+        tracer.end(span);
+    }
+
+    private String typeName(ProceedingJoinPoint joinPoint) {
+        return ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName();
+    }
+
+    private String repositoryName(Object proxy) {
+        return repositoryNames.computeIfAbsent(proxy.getClass(), type -> {
+            for ( Class<?> candidate : ClassUtils.getAllInterfacesForClassAsSet(type) ) {
+                if ( candidate.getName().startsWith(REPOSITORY_PACKAGE) ) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
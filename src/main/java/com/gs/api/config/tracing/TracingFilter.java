@@ -0,0 +1,55 @@
+package com.gs.api.config.tracing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Opens the root span of a request and ends it once the response is complete, which for async
+ * requests is the final async dispatch. The span is named after the matched route, not the raw URI.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final String SPAN = TracingFilter.class.getName() + ".span";
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Span span = (Span) request.getAttribute(SPAN);
+        if ( span == null ) {
+            span = tracer.start(request.getMethod() + " " + request.getRequestURI(), "http");
+            span.setAttribute("http.method", request.getMethod());
+            tracer.suspend(span);
+            request.setAttribute(SPAN, span);
+        }
+        try ( Tracer.Scope scope = tracer.activate(span) ) {
+            filterChain.doFilter(request, response);
+        } finally {
+            if ( !isAsyncStarted(request) ) {
+                Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                if ( route != null ) {
+                    span.rename(request.getMethod() + " " + route);
+                }
+                span.setAttribute("http.status", response.getStatus());
+                tracer.end(span);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.gs.api.config.tracing;
+
+import com.gs.api.config.jdbc.QueryExecution;
+import com.gs.api.config.jdbc.QueryListener;
+
+import java.util.Locale;
+
+/**
+ * Opens a {@code jdbc} span around every statement and counts it on all enclosing spans.
+ */
+public class TracingQueryListener implements QueryListener {
+
+    private static final int MAX_SQL_LENGTH = 300;
+
+    private final Tracer tracer;
+
+    public TracingQueryListener(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void beforeQuery(QueryExecution execution) {
+        if ( tracer.current() == null ) {
+            return;
+        }
+        String sql = execution.getSql();
+        Span span = tracer.start(verbOf(sql, execution.isBatch()), "jdbc");
+        if ( sql != null ) {
+            span.setAttribute("db.statement", sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql);
+        }
+        tracer.statementExecuted();
+        execution.setAttachment(span);
+    }
+
+    @Override
+    public void afterQuery(QueryExecution execution) {
+        if ( execution.getAttachment() instanceof Span ) {
+            tracer.end((Span) execution.getAttachment());
+        }
+    }
+
+    private static String verbOf(String sql, boolean batch) {
+        if ( sql == null ) {
+            return "batch";
+        }
+        String trimmed = sql.trim();
+        int space = trimmed.indexOf(' ');
+        String verb = (space < 0 ? trimmed : trimmed.substring(0, space)).toLowerCase(Locale.ROOT);
+        return batch ? verb + " batch" : verb;
+    }
+}
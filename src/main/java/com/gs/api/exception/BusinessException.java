@@ -1,8 +1,12 @@
 package com.gs.api.exception;
 
+/**
+ * A rule of the domain refused the request (duplicate isbn, book already loaned, ...). These are
+ * expected outcomes answered with a 400, so no stack trace is captured.
+ */
 public class BusinessException extends RuntimeException {
 
     public BusinessException(String  s) {
-        super(s);
+        super(s, null, false, false);
     }
 }
@@ -0,0 +1,12 @@
+package com.gs.api.exception;
+
+/**
+ * The requested resource does not exist. Thrown on hot read paths, where filling in a stack trace
+ * used to cost more than the lookup itself.
+ */
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException(String s) {
+        super(s, null, false, false);
+    }
+}
@@ -0,0 +1,11 @@
+package com.gs.api.exception;
+
+/**
+ * The given version is stale; answered with a 409 and thrown without a stack trace.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String s) {
+        super(s, null, false, false);
+    }
+}
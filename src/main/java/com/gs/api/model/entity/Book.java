@@ -1,8 +1,10 @@
 package com.gs.api.model.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.util.List;
 
 @Getter
@@ -10,7 +12,11 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_book_isbn", columnList = "isbn"),
+        @Index(name = "idx_book_deleted", columnList = "deleted")
+})
+@Where(clause = "deleted = false")
 public class Book {
 
     @Id
@@ -29,6 +35,16 @@ public class Book {
     @Column
     private String isbn;
 
+    @Version
+    @Column
+    private Long version;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Column
+    private Instant deletedAt;
+
     @OneToMany(mappedBy = "book")
     private List<Loan> loans;
 }
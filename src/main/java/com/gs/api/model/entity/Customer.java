@@ -0,0 +1,26 @@
+package com.gs.api.model.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "uk_customer_email", columnList = "email", unique = true))
+public class Customer {
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column
+    private String name;
+
+    @Column(nullable = false)
+    private String email;
+}
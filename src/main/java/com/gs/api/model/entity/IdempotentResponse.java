@@ -0,0 +1,38 @@
+package com.gs.api.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_idempotent_response_created", columnList = "createdAt"))
+public class IdempotentResponse {
+
+    @Id
+    @Column(name = "idempotency_key", length = 512)
+    private String key;
+
+    @Column
+    private int status;
+
+    @Column
+    private String contentType;
+
+    @Lob
+    @Column
+    private byte[] body;
+
+    @Column(length = 64)
+    private String requestHash;
+
+    @Column
+    private Instant createdAt;
+}
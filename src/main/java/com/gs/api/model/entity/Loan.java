@@ -10,7 +10,11 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_loan_customer", columnList = "customer_id, loanDate"),
+        @Index(name = "idx_loan_book", columnList = "book_id, loanDate"),
+        @Index(name = "idx_loan_returned", columnList = "returned, loanDate")
+})
 @ToString
 public class Loan {
 
@@ -18,9 +22,10 @@ public class Loan {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String customer;
-
-    private String customerEmail;
+    @Setter
+    @ManyToOne
+    @JoinColumn
+    private Customer customer;
 
     @ManyToOne
     @JoinColumn
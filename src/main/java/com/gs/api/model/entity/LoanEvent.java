@@ -0,0 +1,52 @@
+package com.gs.api.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Append-only change record (outbox row) written in the same transaction as the change it describes.
+ * The identity {@code id} is the offset consumers resume from.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_loan_event_created", columnList = "createdAt"))
+public class LoanEvent {
+
+    public enum Type {
+        LOAN_CREATED, LOAN_RETURNED, BOOK_CREATED, BOOK_UPDATED, BOOK_DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type type;
+
+    @Column
+    private Long loanId;
+
+    @Column
+    private Long bookId;
+
+    @Column
+    private String bookIsbn;
+
+    @Column
+    private Long customerId;
+
+    @Column
+    private Boolean returned;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,53 @@
+package com.gs.api.model.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * A customer's place in the FIFO hold queue of a book; the queue order is the id order.
+ */
+@Getter
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_reservation_book_status", columnList = "book_id, status"))
+@ToString
+public class Reservation {
+
+    public enum Status {
+        WAITING, FULFILLED, CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn
+    private Book book;
+
+    @Setter
+    @ManyToOne
+    @JoinColumn
+    private Customer customer;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @ManyToOne
+    @JoinColumn
+    private Loan loan;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public Reservation fulfil(Loan loan) {
+        this.status = Status.FULFILLED;
+        this.loan = loan;
+        return this;
+    }
+}
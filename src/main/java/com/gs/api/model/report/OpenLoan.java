@@ -0,0 +1,17 @@
+package com.gs.api.model.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Id and book id of a loan not yet returned, built by a constructor query.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OpenLoan {
+
+    private long id;
+    private long bookId;
+}
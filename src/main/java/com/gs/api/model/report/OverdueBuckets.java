@@ -0,0 +1,22 @@
+package com.gs.api.model.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Overdue loans split by days late, counted in a single aggregate query.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueBuckets {
+
+    private long upToWeek;
+    private long upToMonth;
+    private long overMonth;
+
+    public long getTotal() {
+        return upToWeek + upToMonth + overMonth;
+    }
+}
@@ -0,0 +1,18 @@
+package com.gs.api.model.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of overdue loans of one book or customer, built by a {@code GROUP BY} constructor query.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueCount {
+
+    private Long id;
+    private String label;
+    private long overdue;
+}
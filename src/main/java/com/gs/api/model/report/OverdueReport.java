@@ -0,0 +1,23 @@
+package com.gs.api.model.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueReport {
+
+    private LocalDate asOf;
+    private Instant generatedAt;
+    private OverdueBuckets byDaysLate;
+    private List<OverdueCount> byBook;
+    private List<OverdueCount> byCustomer;
+}
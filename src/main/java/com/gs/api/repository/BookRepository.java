@@ -2,12 +2,59 @@ package com.gs.api.repository;
 
 import com.gs.api.model.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
     boolean existsByIsbn(String isbn);
 
     Optional<Book> findByIsbn(String isbn);
+
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.deleted = true, b.deletedAt = :now, b.version = b.version + 1 where b.id = :id")
+    int softDeleteById(@Param("id") Long id, @Param("now") Instant now);
+
+    /**
+     * Soft-deleted books are invisible to JPQL (see {@code @Where} on {@link Book}), hence native.
+     */
+    @Query(value = "select id from book where deleted = true order by id limit :limit", nativeQuery = true)
+    List<Long> findSoftDeletedIds(@Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from book where id = :id and deleted = true", nativeQuery = true)
+    int purgeById(@Param("id") Long id);
+
+    /**
+     * Locks the book row until the transaction ends; serializes loan and reservation hand-offs per book.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id = :id")
+    Optional<Book> lockById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Book b set b.title = :title, b.author = :author, b.version = b.version + 1 " +
+            " where b.id = :id and b.version = :version and b.deleted = false")
+    int updateTitleAndAuthor(@Param("id") Long id,
+                             @Param("title") String title,
+                             @Param("author") String author,
+                             @Param("version") Long version);
+
+    @Modifying
+    @Query("update Book b set b.title = :title, b.author = :author, b.version = b.version + 1 " +
+            " where b.id = :id and b.deleted = false")
+    int updateTitleAndAuthor(@Param("id") Long id, @Param("title") String title, @Param("author") String author);
 }
@@ -0,0 +1,11 @@
+package com.gs.api.repository;
+
+import com.gs.api.model.entity.Customer;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerRepositoryCustom {
+
+    Optional<Customer> findByEmail(String email);
+}
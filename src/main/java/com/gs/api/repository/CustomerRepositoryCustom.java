@@ -0,0 +1,10 @@
+package com.gs.api.repository;
+
+public interface CustomerRepositoryCustom {
+
+    /**
+     * Inserts a customer on the connection of the current transaction. When the email is already taken
+     * the insert is rolled back to a savepoint, so the transaction goes on; returns whether it inserted.
+     */
+    boolean registerIfAbsent(String name, String email);
+}
@@ -0,0 +1,18 @@
+package com.gs.api.repository;
+
+import com.gs.api.model.entity.IdempotentResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotentResponseRepository extends JpaRepository<IdempotentResponse, String> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotentResponse r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,31 @@
+package com.gs.api.repository;
+
+import com.gs.api.model.entity.LoanEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface LoanEventRepository extends JpaRepository<LoanEvent, Long> {
+
+    List<LoanEvent> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    @Query("select coalesce(max(e.id), 0) from LoanEvent e")
+    long findLastId();
+
+    @Query("select coalesce(max(e.id), 0) from LoanEvent e where e.createdAt <= :before")
+    long findLastIdCreatedBefore(@Param("before") Instant before);
+
+    @Query("select coalesce(min(e.id), 0) from LoanEvent e")
+    long findFirstId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from LoanEvent e where e.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
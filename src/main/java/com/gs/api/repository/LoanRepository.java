@@ -1,24 +1,92 @@
 package com.gs.api.repository;
 
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
+import com.gs.api.model.report.OpenLoan;
+import com.gs.api.model.report.OverdueBuckets;
+import com.gs.api.model.report.OverdueCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface LoanRepository extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan>, LoanRepositoryCustom {
 
     @Query(value = "select case when ( count(l.id) > 0 ) then true else false end " +
             " from Loan l where l.book = :book and returned is not true")
     boolean existsByBookIdAndReturnedIsFalse(@Param("book") Book book);
 
-    @Query( value = "select l from Loan l join l.book as b where b.isbn = :isbn or l.customer = :customer")
-    Page<Loan> findByBookIsbnOrCustumer(
-            @Param("isbn") String isbn,
-            @Param("customer") String customer,
-            Pageable pageable);
-
+    @EntityGraph(attributePaths = {"book", "customer"})
     Page<Loan> findLoansByBook(@Param("book") Book book, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"book", "customer"})
+    Slice<Loan> findSliceByBook(Book book, Pageable pageable);
+
+    long countByBook(Book book);
+
+    @Query("select min(l.id) from Loan l")
+    Long findMinId();
+
+    @Query("select max(l.id) from Loan l")
+    Long findMaxId();
+
+    @Query("select new com.gs.api.model.report.OpenLoan(l.id, l.book.id) from Loan l " +
+            " where l.returned = false and l.id > :after order by l.id")
+    List<OpenLoan> findOpenLoansAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("select l.id from Loan l where l.book.id = :bookId order by l.id")
+    List<Long> findIdsByBookId(@Param("bookId") Long bookId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Loan l where l.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Ids among {@code ids} whose flag differs from {@code returned}, locked until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l.id from Loan l where l.id in :ids and l.returned <> :returned")
+    List<Long> lockIdsByIdInAndReturnedNot(@Param("ids") List<Long> ids, @Param("returned") boolean returned);
+
+    @Modifying
+    @Query("update Loan l set l.returned = :returned where l.id in :ids and l.returned <> :returned")
+    int updateReturnedByIdIn(@Param("ids") List<Long> ids, @Param("returned") boolean returned);
+
+    @EntityGraph(attributePaths = {"book", "customer"})
+    List<Loan> findByIdIn(List<Long> ids);
+
+    @EntityGraph(attributePaths = {"book", "customer"})
+    Page<Loan> findLoansByCustomer(@Param("customer") Customer customer, Pageable pageable);
+
+    @Query("select new com.gs.api.model.report.OverdueCount(b.id, b.isbn, count(l)) " +
+            " from Loan l join l.book b where l.returned = false and l.loanDate < :dueBefore " +
+            " group by b.id, b.isbn order by count(l) desc")
+    List<OverdueCount> countOverdueByBook(@Param("dueBefore") LocalDate dueBefore, Pageable pageable);
+
+    @Query("select new com.gs.api.model.report.OverdueCount(c.id, c.email, count(l)) " +
+            " from Loan l join l.customer c where l.returned = false and l.loanDate < :dueBefore " +
+            " group by c.id, c.email order by count(l) desc")
+    List<OverdueCount> countOverdueByCustomer(@Param("dueBefore") LocalDate dueBefore, Pageable pageable);
+
+    @Query("select new com.gs.api.model.report.OverdueBuckets(" +
+            " coalesce(sum(case when l.loanDate >= :weekLate then 1 else 0 end), 0), " +
+            " coalesce(sum(case when l.loanDate < :weekLate and l.loanDate >= :monthLate then 1 else 0 end), 0), " +
+            " coalesce(sum(case when l.loanDate < :monthLate then 1 else 0 end), 0)) " +
+            " from Loan l where l.returned = false and l.loanDate < :dueBefore")
+    OverdueBuckets countOverdueBuckets(@Param("dueBefore") LocalDate dueBefore,
+                                       @Param("weekLate") LocalDate weekLate,
+                                       @Param("monthLate") LocalDate monthLate);
 }
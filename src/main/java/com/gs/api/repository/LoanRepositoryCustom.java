@@ -1,6 +1,10 @@
 package com.gs.api.repository;
 
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -8,4 +12,20 @@ import java.util.List;
 public interface LoanRepositoryCustom {
 
     List<Loan> findNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate);
+
+    List<Customer> findCustomersWithNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate);
+
+    /**
+     * Same as {@link #findNotReturnedLoansAfterDay(LocalDate, int)}, restricted to loan ids in {@code [fromId, toId)}.
+     */
+    List<Loan> findNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate, long fromId, long toId);
+
+    /**
+     * Same as {@link #findCustomersWithNotReturnedLoansAfterDay(LocalDate, int)}, restricted to loan ids in
+     * {@code [fromId, toId)}; a customer with late loans in several ranges is returned by each of them.
+     */
+    List<Customer> findCustomersWithNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate,
+                                                             long fromId, long toId);
+
+    Slice<Loan> findSlice(Specification<Loan> specification, Pageable pageable);
 }
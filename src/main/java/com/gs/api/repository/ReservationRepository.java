@@ -0,0 +1,38 @@
+package com.gs.api.repository;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    Optional<Reservation> findFirstByBookAndStatusOrderByIdAsc(Book book, Reservation.Status status);
+
+    boolean existsByBookAndStatus(Book book, Reservation.Status status);
+
+    boolean existsByBookAndCustomerAndStatus(Book book, Customer customer, Reservation.Status status);
+
+    long countByBookAndStatusAndIdLessThan(Book book, Reservation.Status status, Long id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Reservation r where r.book.id = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query("update Reservation r set r.status = :to where r.id = :id and r.status = :from")
+    int updateStatus(@Param("id") Long id, @Param("from") Reservation.Status from, @Param("to") Reservation.Status to);
+
+    @Modifying
+    @Query("update Reservation r set r.status = :to where r.book.id = :bookId and r.status = :from")
+    int updateStatusByBookId(@Param("bookId") Long bookId,
+                             @Param("from") Reservation.Status from,
+                             @Param("to") Reservation.Status to);
+}
@@ -0,0 +1,35 @@
+package com.gs.api.repository.impl;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.repository.BookRepositoryCustom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Override
+    public Slice<Book> findSlice(Example<Book> example, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> from = query.from(Book.class);
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(from, cb, example);
+        if ( predicate != null ) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), from, cb));
+        return SliceQueries.toSlice(entityManager.createQuery(query), pageable);
+    }
+}
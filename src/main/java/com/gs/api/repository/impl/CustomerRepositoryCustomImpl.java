@@ -0,0 +1,39 @@
+package com.gs.api.repository.impl;
+
+import com.gs.api.repository.CustomerRepositoryCustom;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+public class CustomerRepositoryCustomImpl implements CustomerRepositoryCustom {
+
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Override
+    public boolean registerIfAbsent(String name, String email) {
+        // plain JDBC: a failed persist would leave the session unusable for the rest of the transaction
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try ( PreparedStatement insert = connection.prepareStatement("insert into customer (name, email) values (?, ?)") ) {
+                insert.setString(1, name);
+                insert.setString(2, email);
+                insert.executeUpdate();
+            } catch ( SQLException e ) {
+                connection.rollback(savepoint);
+                if ( e.getSQLState() != null && e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION) ) {
+                    return false;
+                }
+                throw e;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        });
+    }
+}
@@ -1,8 +1,13 @@
 package com.gs.api.repository.impl;
 
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
 import com.gs.api.repository.LoanRepositoryCustom;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.*;
@@ -16,14 +21,69 @@ public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
 
     @Override
     public List<Loan> findNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate) {
+        return findLateLoans(verificationDate, daysConsideretAsLate, null, null);
+    }
+
+    @Override
+    public List<Loan> findNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate, long fromId, long toId) {
+        return findLateLoans(verificationDate, daysConsideretAsLate, fromId, toId);
+    }
+
+    @Override
+    public List<Customer> findCustomersWithNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate) {
+        return findLateCustomers(verificationDate, daysConsideretAsLate, null, null);
+    }
+
+    @Override
+    public List<Customer> findCustomersWithNotReturnedLoansAfterDay(LocalDate verificationDate, int daysConsideretAsLate,
+                                                                    long fromId, long toId) {
+        return findLateCustomers(verificationDate, daysConsideretAsLate, fromId, toId);
+    }
+
+    @Override
+    public Slice<Loan> findSlice(Specification<Loan> specification, Pageable pageable) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Loan> query = cb.createQuery(Loan.class);
         Root<Loan> from = query.from(Loan.class);
+        // the listing maps book and customer of every row; fetch them with it instead of one select per row
+        from.fetch("book", JoinType.LEFT);
+        from.fetch("customer", JoinType.LEFT);
+        Predicate predicate = specification == null ? null : specification.toPredicate(from, query, cb);
+        if ( predicate != null ) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), from, cb));
+        return SliceQueries.toSlice(entityManager.createQuery(query), pageable);
+    }
+
+    private List<Loan> findLateLoans(LocalDate verificationDate, int daysConsideretAsLate, Long fromId, Long toId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Loan> query = cb.createQuery(Loan.class);
+        Root<Loan> from = query.from(Loan.class);
+
+        query.where(isLate(cb, from, verificationDate, daysConsideretAsLate, fromId, toId));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private List<Customer> findLateCustomers(LocalDate verificationDate, int daysConsideretAsLate, Long fromId, Long toId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Customer> query = cb.createQuery(Customer.class);
+        Root<Loan> from = query.from(Loan.class);
+
+        query.select(from.get("customer")).distinct(true)
+                .where(isLate(cb, from, verificationDate, daysConsideretAsLate, fromId, toId));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private Predicate[] isLate(CriteriaBuilder cb, Root<Loan> from, LocalDate verificationDate, int daysConsideretAsLate,
+                               Long fromId, Long toId) {
         Predicate isNotReturned = cb.isFalse(from.get("returned"));
         Expression<LocalDate> maxDateExpression = cb.sum(from.get("loanDate"), daysConsideretAsLate).as(LocalDate.class);
         Predicate isLate = cb.greaterThan(maxDateExpression, verificationDate);
-
-        query.where(isNotReturned, isLate);
-        return entityManager.createQuery(query).getResultList();
+        if ( fromId == null ) {
+            return new Predicate[]{isNotReturned, isLate};
+        }
+        Path<Long> id = from.get("id");
+        return new Predicate[]{cb.greaterThanOrEqualTo(id, fromId), cb.lessThan(id, toId), isNotReturned, isLate};
     }
 }
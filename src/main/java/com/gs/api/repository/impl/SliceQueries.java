@@ -0,0 +1,28 @@
+package com.gs.api.repository.impl;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+final class SliceQueries {
+
+    private SliceQueries() {
+    }
+
+    /**
+     * Reads one row past the page instead of running a count query to know whether there is a next page.
+     */
+    static <T> Slice<T> toSlice(TypedQuery<T> query, Pageable pageable) {
+        if ( pageable.isUnpaged() ) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<T> content = query.getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+}
@@ -0,0 +1,57 @@
+package com.gs.api.repository.sharding;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * A loan row as stored on its shard. Book and customer are denormalized, as they live on another database.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class ShardedLoan {
+
+    private final Long id;
+    private final Long bookId;
+    private final String bookIsbn;
+    private final Long customerId;
+    private final String customerName;
+    private final String customerEmail;
+    private final LocalDate loanDate;
+    private final boolean returned;
+
+    public static ShardedLoan of(Loan loan) {
+        Customer customer = loan.getCustomer();
+        return ShardedLoan.builder()
+                .id(loan.getId())
+                .bookId(loan.getBook().getId())
+                .bookIsbn(loan.getBook().getIsbn())
+                .customerId(customer != null ? customer.getId() : null)
+                .customerName(customer != null ? customer.getName() : null)
+                .customerEmail(customer != null ? customer.getEmail() : null)
+                .loanDate(loan.getLoanDate())
+                .returned(loan.isReturned())
+                .build();
+    }
+
+    /**
+     * The row as a detached {@link Loan} whose book and customer carry only the denormalized columns.
+     */
+    public Loan toLoan() {
+        return Loan.builder()
+                .id(id)
+                .book(Book.builder().id(bookId).isbn(bookIsbn).build())
+                .customer(customerId != null
+                        ? Customer.builder().id(customerId).name(customerName).email(customerEmail).build()
+                        : null)
+                .loanDate(loanDate)
+                .returned(returned)
+                .build();
+    }
+}
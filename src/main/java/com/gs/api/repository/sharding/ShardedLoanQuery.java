@@ -0,0 +1,28 @@
+package com.gs.api.repository.sharding;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Filter of a sharded loan listing; unset fields do not restrict it. A book id routes the query to
+ * that book's shard, everything else scatters.
+ */
+@Getter
+@Builder
+public class ShardedLoanQuery {
+
+    private final Long bookId;
+    private final String bookIsbn;
+    private final Long customerId;
+
+    /**
+     * Whether isbn and customer must both match; by default either does.
+     */
+    private final boolean matchAll;
+
+    private final LocalDate loanDateFrom;
+    private final LocalDate loanDateTo;
+    private final Boolean returned;
+}
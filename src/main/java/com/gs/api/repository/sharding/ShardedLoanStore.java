@@ -0,0 +1,316 @@
+package com.gs.api.repository.sharding;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loans spread over N databases by book id, so writes for different books land on different shards
+ * and scale with the shard count, while everything about one book (its open loan, its history) stays
+ * on one shard.
+ * <p>
+ * Ids carry their shard ({@code id = sequence * shards + shard}), so lookups by id are routed too.
+ * Queries without a book id are scattered to all shards in parallel and gathered with a k-way merge
+ * on the requested sort; a page at offset {@code o} needs the first {@code o + size} rows of every shard.
+ */
+public class ShardedLoanStore {
+
+    private static final Map<String, String> SORTABLE = new HashMap<>();
+
+    static {
+        SORTABLE.put("id", "id");
+        SORTABLE.put("loanDate", "loan_date");
+        SORTABLE.put("bookIsbn", "book_isbn");
+    }
+
+    private static final RowMapper<ShardedLoan> ROW_MAPPER = (rs, rowNum) -> ShardedLoan.builder()
+            .id(rs.getLong("id"))
+            .bookId(rs.getLong("book_id"))
+            .bookIsbn(rs.getString("book_isbn"))
+            .customerId(rs.getObject("customer_id") != null ? rs.getLong("customer_id") : null)
+            .customerName(rs.getString("customer_name"))
+            .customerEmail(rs.getString("customer_email"))
+            .loanDate(rs.getDate("loan_date").toLocalDate())
+            .returned(rs.getBoolean("returned"))
+            .build();
+
+    private final List<JdbcTemplate> shards;
+    private final ExecutorService scatter;
+
+    public ShardedLoanStore(List<DataSource> dataSources) {
+        this.shards = dataSources.stream().map(JdbcTemplate::new).collect(Collectors.toList());
+        AtomicInteger threads = new AtomicInteger();
+        this.scatter = Executors.newFixedThreadPool(dataSources.size(), r -> {
+            Thread thread = new Thread(r, "loan-shard-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        shards.forEach(this::createSchema);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(long bookId) {
+        return Math.floorMod(Long.hashCode(bookId), shards.size());
+    }
+
+    public ShardedLoan save(ShardedLoan loan) {
+        int shard = shardOf(loan.getBookId());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        shards.get(shard).update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "insert into loan_shard(id, book_id, book_isbn, customer_id, customer_name, customer_email, loan_date, returned) " +
+                            "values ((next value for loan_shard_seq) * ? + ?, ?, ?, ?, ?, ?, ?, ?)", new String[]{"ID"});
+            ps.setInt(1, shards.size());
+            ps.setInt(2, shard);
+            ps.setLong(3, loan.getBookId());
+            ps.setString(4, loan.getBookIsbn());
+            ps.setObject(5, loan.getCustomerId());
+            ps.setString(6, loan.getCustomerName());
+            ps.setString(7, loan.getCustomerEmail());
+            ps.setDate(8, Date.valueOf(loan.getLoanDate()));
+            ps.setBoolean(9, loan.isReturned());
+            return ps;
+        }, keyHolder);
+        return loan.toBuilder().id(keyHolder.getKey().longValue()).build();
+    }
+
+    public Optional<ShardedLoan> findById(long id) {
+        return shardFor(id).query("select * from loan_shard where id = ?", ROW_MAPPER, id).stream().findFirst();
+    }
+
+    public boolean markReturned(long id) {
+        return shardFor(id).update("update loan_shard set returned = true where id = ?", id) > 0;
+    }
+
+    public boolean existsOpenLoan(long bookId) {
+        Integer open = shards.get(shardOf(bookId)).queryForObject(
+                "select count(*) from loan_shard where book_id = ? and returned = false", Integer.class, bookId);
+        return open != null && open > 0;
+    }
+
+    /**
+     * Loans of a book (by isbn) or of a customer; isbn alone does not tell the shard, so this scatters.
+     */
+    public Page<ShardedLoan> findByBookIsbnOrCustomerId(String isbn, Long customerId, Pageable pageable) {
+        return find(ShardedLoanQuery.builder().bookIsbn(isbn).customerId(customerId).build(), pageable);
+    }
+
+    /**
+     * A page of the loans matching the query, from the book's shard when it names a book id and
+     * gathered from all shards otherwise.
+     */
+    public Page<ShardedLoan> find(ShardedLoanQuery query, Pageable pageable) {
+        List<Object> args = new ArrayList<>();
+        String where = " from loan_shard" + where(query, args);
+        List<JdbcTemplate> targets = query.getBookId() != null
+                ? Collections.singletonList(shards.get(shardOf(query.getBookId())))
+                : shards;
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(pageable.getOffset() + pageable.getPageSize());
+        List<List<ShardedLoan>> perShard = scatter(targets, shard -> shard.query(
+                "select *" + where + orderBy(pageable.getSort()) + " limit ?", ROW_MAPPER, pageArgs.toArray()));
+        long total = scatter(targets, shard -> shard.queryForObject("select count(*)" + where, Long.class, args.toArray()))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        List<ShardedLoan> page = merge(perShard, comparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(page, pageable, total);
+    }
+
+    /**
+     * The loans {@code LoanRepository#findNotReturnedLoansAfterDay} selects, across all shards, oldest
+     * first: open loans whose loan date plus {@code daysConsideredAsLate} is after the verification
+     * date. Each shard scans its {@code (returned, loan_date)} index in parallel.
+     */
+    public List<ShardedLoan> findNotReturnedAfterDay(LocalDate verificationDate, int daysConsideredAsLate) {
+        Sort sort = Sort.by("loanDate", "id");
+        List<List<ShardedLoan>> perShard = scatter(shards, shard -> shard.query(
+                "select * from loan_shard where returned = false and loan_date > ?" + orderBy(sort),
+                ROW_MAPPER, Date.valueOf(verificationDate.minusDays(daysConsideredAsLate))));
+        return merge(perShard, comparator(sort), 0, Integer.MAX_VALUE);
+    }
+
+    public void shutdown() {
+        scatter.shutdownNow();
+    }
+
+    private JdbcTemplate shardFor(long id) {
+        return shards.get((int) Math.floorMod(id, (long) shards.size()));
+    }
+
+    private static String where(ShardedLoanQuery query, List<Object> args) {
+        List<String> identity = new ArrayList<>();
+        if ( query.getBookIsbn() != null && !query.getBookIsbn().isEmpty() ) {
+            identity.add("book_isbn = ?");
+            args.add(query.getBookIsbn());
+        }
+        if ( query.getCustomerId() != null ) {
+            identity.add("customer_id = ?");
+            args.add(query.getCustomerId());
+        }
+        List<String> conditions = new ArrayList<>();
+        if ( query.getBookId() != null ) {
+            conditions.add("book_id = ?");
+            args.add(query.getBookId());
+        }
+        if ( !identity.isEmpty() ) {
+            conditions.add("(" + String.join(query.isMatchAll() ? " and " : " or ", identity) + ")");
+        }
+        if ( query.getLoanDateFrom() != null ) {
+            conditions.add("loan_date >= ?");
+            args.add(Date.valueOf(query.getLoanDateFrom()));
+        }
+        if ( query.getLoanDateTo() != null ) {
+            conditions.add("loan_date <= ?");
+            args.add(Date.valueOf(query.getLoanDateTo()));
+        }
+        if ( query.getReturned() != null ) {
+            conditions.add("returned = ?");
+            args.add(query.getReturned());
+        }
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private <T> List<T> scatter(List<JdbcTemplate> targets, Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> futures = targets.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), scatter))
+                .collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch ( CompletionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * K-way merge of per-shard lists that are each sorted by {@code order}.
+     */
+    private static List<ShardedLoan> merge(List<List<ShardedLoan>> perShard, Comparator<ShardedLoan> order,
+                                           long offset, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.current(), b.current()));
+        for ( List<ShardedLoan> rows : perShard ) {
+            if ( !rows.isEmpty() ) {
+                heads.add(new Cursor(rows));
+            }
+        }
+        List<ShardedLoan> merged = new ArrayList<>();
+        long skipped = 0;
+        while ( !heads.isEmpty() && merged.size() < limit ) {
+            Cursor head = heads.poll();
+            if ( skipped < offset ) {
+                skipped++;
+            } else {
+                merged.add(head.current());
+            }
+            if ( head.advance() ) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for ( Sort.Order order : sort ) {
+            orders.add(column(order.getProperty()) + (order.isAscending() ? " asc" : " desc"));
+        }
+        // id breaks ties, so every shard and the merge agree on one total order
+        orders.add("id asc");
+        return " order by " + String.join(", ", orders);
+    }
+
+    private static Comparator<ShardedLoan> comparator(Sort sort) {
+        Comparator<ShardedLoan> comparator = (a, b) -> 0;
+        for ( Sort.Order order : sort ) {
+            Comparator<ShardedLoan> property = Comparator.comparing(
+                    loan -> sortKey(loan, order.getProperty()), Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? property : property.reversed());
+        }
+        return comparator.thenComparing(ShardedLoan::getId);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable sortKey(ShardedLoan loan, String property) {
+        switch ( property ) {
+            case "id":
+                return loan.getId();
+            case "loanDate":
+                return loan.getLoanDate();
+            default:
+                return loan.getBookIsbn();
+        }
+    }
+
+    private static String column(String property) {
+        String column = SORTABLE.get(property);
+        if ( column == null ) {
+            throw new IllegalArgumentException("Cannot sort sharded loans by " + property);
+        }
+        return column;
+    }
+
+    private void createSchema(JdbcTemplate shard) {
+        shard.execute("create sequence if not exists loan_shard_seq");
+        shard.execute("create table if not exists loan_shard (" +
+                " id bigint primary key," +
+                " book_id bigint not null," +
+                " book_isbn varchar(255)," +
+                " customer_id bigint," +
+                " customer_name varchar(255)," +
+                " customer_email varchar(255)," +
+                " loan_date date not null," +
+                " returned boolean not null)");
+        shard.execute("create index if not exists idx_loan_shard_book on loan_shard(book_id, returned)");
+        shard.execute("create index if not exists idx_loan_shard_isbn on loan_shard(book_isbn)");
+        shard.execute("create index if not exists idx_loan_shard_customer on loan_shard(customer_id)");
+        shard.execute("create index if not exists idx_loan_shard_returned on loan_shard(returned, loan_date)");
+    }
+
+    private static final class Cursor {
+        private final List<ShardedLoan> rows;
+        private int position;
+
+        private Cursor(List<ShardedLoan> rows) {
+            this.rows = rows;
+        }
+
+        private ShardedLoan current() {
+            return rows.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < rows.size();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.gs.api.repository.specification;
+
+import com.gs.api.model.entity.Loan;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+public final class LoanSpecifications {
+
+    private LoanSpecifications() {
+    }
+
+    public static Specification<Loan> bookIdEquals(Long bookId) {
+        return (root, query, cb) -> cb.equal(root.get("book").get("id"), bookId);
+    }
+
+    public static Specification<Loan> customerIdEquals(Long customerId) {
+        return (root, query, cb) -> cb.equal(root.get("customer").get("id"), customerId);
+    }
+
+    public static Specification<Loan> loanDateFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("loanDate"), from);
+    }
+
+    public static Specification<Loan> loanDateTo(LocalDate to) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("loanDate"), to);
+    }
+
+    public static Specification<Loan> returnedEquals(boolean returned) {
+        return (root, query, cb) -> cb.equal(root.get("returned"), returned);
+    }
+
+    public static Specification<Loan> none() {
+        return (root, query, cb) -> cb.disjunction();
+    }
+}
@@ -0,0 +1,57 @@
+package com.gs.api.service;
+
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.ReservationRepository;
+import com.gs.api.service.support.CountCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Physically removes soft-deleted books together with their loan history. Every batch is its own
+ * short transaction, so purging a book with thousands of loans never holds long locks.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookPurgeService {
+
+    @Value("${application.books.purge.batch-size:500}")
+    private int batchSize;
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final ReservationRepository reservationRepository;
+    private final CountCache countCache;
+
+    @Scheduled(fixedDelayString = "${application.books.purge.interval:60000}")
+    public void purgeDeletedBooks() {
+        List<Long> bookIds = bookRepository.findSoftDeletedIds(batchSize);
+        for ( Long bookId : bookIds ) {
+            purge(bookId);
+        }
+    }
+
+    public void purge(Long bookId) {
+        reservationRepository.deleteByBookId(bookId);
+        long loans = 0;
+        List<Long> loanIds;
+        do {
+            loanIds = loanRepository.findIdsByBookId(bookId, PageRequest.of(0, batchSize));
+            if ( !loanIds.isEmpty() ) {
+                loans += loanRepository.deleteByIdIn(loanIds);
+            }
+        } while ( loanIds.size() == batchSize );
+        bookRepository.purgeById(bookId);
+        if ( loans > 0 ) {
+            countCache.invalidate(CountCache.LOANS);
+        }
+        log.info(" purged book {} with {} loans ", bookId, loans);
+    }
+}
@@ -4,6 +4,7 @@ import com.gs.api.model.entity.Book;
 import com.gs.api.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.Optional;
 
@@ -12,11 +13,17 @@ public interface BookService {
 
     Optional<Book> getById(Long id);
 
+    Optional<Book> update(Book book);
+
     Page<Book> find(Book book, Pageable pageable);
 
+    Slice<Book> findSlice(Book book, Pageable pageable);
+
     void deleteById(Long id);
 
     Optional<Book> getBookByIsbn(String isbn);
 
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
+
+    Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable);
 }
@@ -0,0 +1,21 @@
+package com.gs.api.service;
+
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+public interface CustomerService {
+
+    Optional<Customer> getById(Long id);
+
+    Page<Loan> getLoansByCustomer(Customer customer, Pageable pageable);
+
+    /**
+     * The customer itself when it has an id, otherwise the customer registered with its email,
+     * registering it first when there is none.
+     */
+    Customer resolve(Customer customer);
+}
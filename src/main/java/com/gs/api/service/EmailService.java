@@ -4,4 +4,6 @@ import java.util.List;
 
 public interface EmailService {
     void sendMails(String message, List<String> emails);
+
+    void sendMails(String subject, String message, List<String> emails);
 }
@@ -0,0 +1,31 @@
+package com.gs.api.service;
+
+import com.gs.api.service.support.LoanReturnWriteBehind;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Background flusher of write-behind loan returns: everything queued since the last run goes to the
+ * database in one transaction of batched updates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoanReturnFlushService {
+
+    private final LoanReturnWriteBehind writeBehind;
+    private final LoanService loanService;
+
+    @Scheduled(fixedDelayString = "${application.loans.write-behind.flush-interval:200}")
+    public void flushReturns() {
+        if ( !writeBehind.isEnabled() ) {
+            return;
+        }
+        int flushed = writeBehind.flush(loanService::applyReturns);
+        if ( flushed > 0 ) {
+            log.debug(" flushed {} loan returns ", flushed);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.gs.api.service;
 
 import com.gs.api.api.dto.LoanFilterDTO;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface LoanService {
@@ -16,7 +19,22 @@ public interface LoanService {
 
     Loan update(Loan loan);
 
+    /**
+     * Queues the return of an existing loan for a later batched write; {@code false} when the loan is
+     * unknown or write-behind is off or full, and the caller has to {@link #update(Loan)} it instead.
+     */
+    boolean queueReturn(Long id, boolean returned);
+
+    /**
+     * Applies queued returns, loan id to returned flag, in one transaction.
+     */
+    void applyReturns(Map<Long, Boolean> returns);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
 
+    Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable);
+
     List<Loan> getAllLateLoans();
+
+    List<Customer> getAllCustomersWithLateLoans();
 }
@@ -0,0 +1,10 @@
+package com.gs.api.service;
+
+import com.gs.api.model.report.OverdueReport;
+
+public interface ReportService {
+
+    OverdueReport getOverdueReport();
+
+    OverdueReport refreshOverdueReport();
+}
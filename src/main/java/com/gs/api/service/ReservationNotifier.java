@@ -0,0 +1,35 @@
+package com.gs.api.service;
+
+import com.gs.api.model.entity.Reservation;
+import com.gs.api.service.event.ReservationFulfilledEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+
+@Service
+@RequiredArgsConstructor
+public class ReservationNotifier {
+
+    @Value("${application.mail.reservation.message}")
+    private String message;
+
+    private final EmailService emailService;
+
+    /**
+     * Runs on the task executor after the hand-off committed, so a slow mail server never holds the
+     * book lock nor delays the return request.
+     */
+    @Async
+    @TransactionalEventListener
+    public void notifyCustomer(ReservationFulfilledEvent event) {
+        Reservation reservation = event.getReservation();
+        emailService.sendMails(
+                "Your reserved Book is ready!",
+                message.concat(" ").concat(reservation.getBook().getIsbn()),
+                Collections.singletonList(reservation.getCustomer().getEmail()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.gs.api.service;
+
+import com.gs.api.model.entity.Reservation;
+
+import java.util.Optional;
+
+public interface ReservationService {
+
+    Reservation reserve(Reservation reservation);
+
+    Optional<Reservation> getById(Long id);
+
+    long getPosition(Reservation reservation);
+
+    Optional<Reservation> cancel(Long id);
+}
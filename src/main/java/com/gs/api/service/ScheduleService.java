@@ -1,6 +1,6 @@
 package com.gs.api.service;
 
-import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.Customer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -23,9 +23,9 @@ public class ScheduleService {
 
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> emails = allLateLoans.stream()
-                .map(Loan::getCustomerEmail)
+        List<Customer> customers = loanService.getAllCustomersWithLateLoans();
+        List<String> emails = customers.stream()
+                .map(Customer::getEmail)
                 .collect(Collectors.toList());
 
         emailService.sendMails(message, emails);
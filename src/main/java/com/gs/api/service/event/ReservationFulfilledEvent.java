@@ -0,0 +1,15 @@
+package com.gs.api.service.event;
+
+import com.gs.api.model.entity.Reservation;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published inside the transaction that hands a returned book to the head of its reservation queue.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReservationFulfilledEvent {
+
+    private final Reservation reservation;
+}
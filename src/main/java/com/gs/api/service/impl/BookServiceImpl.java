@@ -1,18 +1,34 @@
 package com.gs.api.service.impl;
 
 import com.gs.api.exception.BusinessException;
+import com.gs.api.exception.VersionConflictException;
 import com.gs.api.model.entity.Book;
 import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.Reservation;
 import com.gs.api.repository.BookRepository;
 import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.ReservationRepository;
+import com.gs.api.repository.sharding.ShardedLoan;
+import com.gs.api.repository.sharding.ShardedLoanQuery;
+import com.gs.api.repository.sharding.ShardedLoanStore;
 import com.gs.api.service.BookService;
+import com.gs.api.service.support.BookCache;
+import com.gs.api.service.support.CatalogSnapshot;
+import com.gs.api.service.support.CountCache;
+import com.gs.api.service.support.LoanEventLog;
+import com.gs.api.service.support.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -21,51 +37,155 @@ public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
     private final LoanRepository loanRepository;
+    private final ReservationRepository reservationRepository;
+    private final CountCache countCache;
+    private final LoanEventLog eventLog;
+    private final SingleFlight singleFlight;
+    private final BookCache bookCache;
+    private final CatalogSnapshot catalogSnapshot;
+    private final Optional<ShardedLoanStore> shards;
 
     @Override
+    @Transactional
     public Book save(Book book) {
         if ( bookRepository.existsByIsbn(book.getIsbn()) ) {
             throw new BusinessException("Isbn already registered");
         }
-        return bookRepository.save(book);
+        countCache.invalidate(CountCache.BOOKS);
+        singleFlight.invalidate(SingleFlight.BOOKS);
+        Book saved = bookRepository.save(book);
+        eventLog.bookCreated(saved);
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getById(Long id) {
-        return bookRepository.findById(id);
+        Optional<Book> snapshot = catalogSnapshot.get(id);
+        if ( snapshot.isPresent() ) {
+            return snapshot;
+        }
+        return bookCache.get(id,
+                () -> singleFlight.execute(SingleFlight.BOOKS, "id=" + id, () -> bookRepository.findById(id)));
+    }
+
+    /**
+     * Updates title and author with a single conditional {@code UPDATE}; when the book carries a version
+     * the row only changes if nobody else updated it since, otherwise the last write wins.
+     */
+    @Override
+    @Transactional
+    public Optional<Book> update(Book book) {
+        countCache.invalidate(CountCache.BOOKS);
+        singleFlight.invalidate(SingleFlight.BOOKS);
+        bookCache.evictAfterCommit(book.getId());
+        catalogSnapshot.invalidateAfterCommit(book.getId());
+        int updated = book.getVersion() == null
+                ? bookRepository.updateTitleAndAuthor(book.getId(), book.getTitle(), book.getAuthor())
+                : bookRepository.updateTitleAndAuthor(book.getId(), book.getTitle(), book.getAuthor(), book.getVersion());
+        if ( updated == 0 ) {
+            if ( bookRepository.existsById(book.getId()) ) {
+                throw new VersionConflictException("Book was modified by another request");
+            }
+            return Optional.empty();
+        }
+        Optional<Book> saved = bookRepository.findById(book.getId());
+        saved.ifPresent(eventLog::bookUpdated);
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book book, Pageable pageable) {
-        Example<Book> example = Example.of(
-                book,
-                ExampleMatcher
-                        .matching()
-                        .withIgnoreCase()
-                        .withIgnoreNullValues()
-                        .withStringMatcher(ExampleMatcher.StringMatcher.STARTING)
-        );
-        return bookRepository.findAll(example, pageable);
+        return singleFlight.execute(SingleFlight.BOOKS, "page|" + filterKey(book) + '|' + pageable, () -> {
+            Example<Book> example = toExample(book);
+            Slice<Book> slice = bookRepository.findSlice(example, pageable);
+            return PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                    () -> countCache.get(CountCache.BOOKS, filterKey(book), () -> bookRepository.count(example)));
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findSlice(Book book, Pageable pageable) {
+        return singleFlight.execute(SingleFlight.BOOKS, "slice|" + filterKey(book) + '|' + pageable,
+                () -> bookRepository.findSlice(toExample(book), pageable));
+    }
+
+    /**
+     * Refuses to hide a book that is on loan and cancels its queue. Holds the book lock, so no loan or
+     * reservation can slip in between the check and the delete.
+     */
+    @Override
+    @Transactional
     public void deleteById(Long id) {
-        if ( !bookRepository.existsById(id) ) {
-            throw new IllegalArgumentException("Book not found");
+        Book book = bookRepository.lockById(id).orElseThrow(() -> new IllegalArgumentException("Book not found"));
+        if ( isOnLoan(book) ) {
+            throw new BusinessException("Book is on loan");
         }
-        bookRepository.deleteById(id);
+        reservationRepository.updateStatusByBookId(id, Reservation.Status.WAITING, Reservation.Status.CANCELLED);
+        countCache.invalidate(CountCache.BOOKS);
+        singleFlight.invalidate(SingleFlight.BOOKS);
+        bookCache.evictAfterCommit(id);
+        catalogSnapshot.invalidateAfterCommit(id);
+        bookRepository.softDeleteById(id, Instant.now());
+        eventLog.bookDeleted(id);
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        if ( !bookRepository.existsByIsbn(isbn) ) {
+        Optional<Book> book = catalogSnapshot.getByIsbn(isbn);
+        if ( !book.isPresent() ) {
+            book = bookCache.getByIsbn(isbn, () -> bookRepository.findByIsbn(isbn));
+        }
+        if ( !book.isPresent() ) {
             throw new BusinessException("Book not found");
         }
-        return bookRepository.findByIsbn(isbn);
+        return book;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return loanRepository.findLoansByBook(book, pageable);
+        if ( shards.isPresent() ) {
+            return shards.get().find(ShardedLoanQuery.builder().bookId(book.getId()).build(), pageable).map(ShardedLoan::toLoan);
+        }
+        Slice<Loan> slice = loanRepository.findSliceByBook(book, pageable);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                () -> countCache.get(CountCache.LOANS, "book=" + book.getId(), () -> loanRepository.countByBook(book)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable) {
+        if ( shards.isPresent() ) {
+            return getLoansByBook(book, pageable);
+        }
+        return loanRepository.findSliceByBook(book, pageable);
+    }
+
+    private boolean isOnLoan(Book book) {
+        return shards.isPresent()
+                ? shards.get().existsOpenLoan(book.getId())
+                : loanRepository.existsByBookIdAndReturnedIsFalse(book);
+    }
+
+    private Example<Book> toExample(Book book) {
+        return Example.of(
+                book,
+                ExampleMatcher
+                        .matching()
+                        .withIgnoreCase()
+                        .withIgnoreNullValues()
+                        .withStringMatcher(ExampleMatcher.StringMatcher.STARTING)
+        );
+    }
+
+    private String filterKey(Book book) {
+        return String.join("|", normalize(book.getTitle()), normalize(book.getAuthor()), normalize(book.getIsbn()));
+    }
+
+    private String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
     }
 }
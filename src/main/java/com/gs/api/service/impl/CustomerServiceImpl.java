@@ -0,0 +1,70 @@
+package com.gs.api.service.impl;
+
+import com.gs.api.exception.BusinessException;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.repository.CustomerRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.sharding.ShardedLoan;
+import com.gs.api.repository.sharding.ShardedLoanQuery;
+import com.gs.api.repository.sharding.ShardedLoanStore;
+import com.gs.api.service.CustomerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class CustomerServiceImpl implements CustomerService {
+
+    private static final int REGISTER_ATTEMPTS = 3;
+
+    private final CustomerRepository customerRepository;
+    private final LoanRepository loanRepository;
+    private final Optional<ShardedLoanStore> shards;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Customer> getById(Long id) {
+        return customerRepository.findById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Loan> getLoansByCustomer(Customer customer, Pageable pageable) {
+        if ( shards.isPresent() ) {
+            return shards.get()
+                    .find(ShardedLoanQuery.builder().customerId(customer.getId()).build(), pageable)
+                    .map(ShardedLoan::toLoan);
+        }
+        return loanRepository.findLoansByCustomer(customer, pageable);
+    }
+
+    /**
+     * Registers in the caller's transaction: loans and reservations resolve their customer while holding
+     * a pooled connection and the book lock, so a second connection could exhaust the pool. When a
+     * concurrent first request for the same email wins the unique index, only the insert is rolled back
+     * and the winner's row is used once it is visible.
+     */
+    @Override
+    @Transactional
+    public Customer resolve(Customer customer) {
+        if ( customer.getId() != null ) {
+            return customer;
+        }
+        for ( int attempt = 1; ; attempt++ ) {
+            Optional<Customer> registered = customerRepository.findByEmail(customer.getEmail());
+            if ( registered.isPresent() ) {
+                return registered.get();
+            }
+            if ( !customerRepository.registerIfAbsent(customer.getName(), customer.getEmail())
+                    && attempt == REGISTER_ATTEMPTS ) {
+                throw new BusinessException("Customer is being registered by another request");
+            }
+        }
+    }
+}
@@ -20,9 +20,14 @@ public class EmailServiceImpl implements EmailService {
 
     @Override
     public void sendMails(String message, List<String> emails) {
+        sendMails("Return the Book!", message, emails);
+    }
+
+    @Override
+    public void sendMails(String subject, String message, List<String> emails) {
         SimpleMailMessage mailMessage = new SimpleMailMessage();
         mailMessage.setFrom(sender);
-        mailMessage.setSubject("Return the Book!");
+        mailMessage.setSubject(subject);
         mailMessage.setText(message);
         mailMessage.setTo(emails.toArray(new String[0]));
         javaMailSender.send(mailMessage);
@@ -2,35 +2,93 @@ package com.gs.api.service.impl;
 
 import com.gs.api.api.dto.LoanFilterDTO;
 import com.gs.api.exception.BusinessException;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.Reservation;
+import com.gs.api.repository.BookRepository;
 import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.ReservationRepository;
+import com.gs.api.repository.sharding.ShardedLoan;
+import com.gs.api.repository.sharding.ShardedLoanQuery;
+import com.gs.api.repository.sharding.ShardedLoanStore;
+import com.gs.api.repository.specification.LoanSpecifications;
+import com.gs.api.service.CustomerService;
 import com.gs.api.service.LoanService;
+import com.gs.api.service.event.ReservationFulfilledEvent;
+import com.gs.api.service.support.ActiveLoanIndex;
+import com.gs.api.service.support.CountCache;
+import com.gs.api.service.support.LoanEventLog;
+import com.gs.api.service.support.LoanReturnWriteBehind;
+import com.gs.api.service.support.PartitionedScan;
+import com.gs.api.service.support.SingleFlight;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Example;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+/**
+ * With {@code application.loans.sharding.enabled} loans live in the {@link ShardedLoanStore} instead of
+ * the {@code loan} table: creating, looking up, returning, listing and scanning loans go to the shards,
+ * shard writes are not part of the surrounding transaction, and reservations fulfilled with a sharded
+ * loan keep no reference to it.
+ */
 @Service
 @RequiredArgsConstructor
 public class LoanServiceImpl implements LoanService {
 
+    private static final int RETURNS_PER_UPDATE = 500;
+
     private final LoanRepository repository;
+    private final CustomerService customerService;
+    private final BookRepository bookRepository;
+    private final CountCache countCache;
+    private final LoanEventLog eventLog;
+    private final ReservationRepository reservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight singleFlight;
+    private final PartitionedScan partitionedScan;
+    private final LoanReturnWriteBehind writeBehind;
+    private final ActiveLoanIndex activeLoans;
+    private final Optional<ShardedLoanStore> shards;
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if ( repository.existsByBookIdAndReturnedIsFalse(loan.getBook()) ) {
+        // a book deleted since it was read matches no row
+        bookRepository.lockById(loan.getBook().getId()).orElseThrow(() -> new BusinessException("Book not found"));
+        if ( isOnLoan(loan.getBook()) ) {
             throw new BusinessException("Book already loaned");
         }
-        return repository.save(loan);
+        loan.setCustomer(customerService.resolve(loan.getCustomer()));
+        countCache.invalidate(CountCache.LOANS);
+        singleFlight.invalidate(SingleFlight.LOANS);
+        Loan saved = insert(loan);
+        activeLoans.loaned(saved, eventLog.loanCreated(saved));
+        return saved;
     }
 
     @Override
     public Optional<Loan> getById(Long id) {
+        if ( shards.isPresent() ) {
+            return Optional.of(shards.get()
+                    .findById(id)
+                    .map(ShardedLoan::toLoan)
+                    .orElseThrow(() -> new BusinessException("Loan not found")));
+        }
         if ( !repository.existsById(id) ) {
             throw new BusinessException("Loan not found");
         }
@@ -38,17 +96,282 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan.returnBook());
+        countCache.invalidate(CountCache.LOANS);
+        singleFlight.invalidate(SingleFlight.LOANS);
+        Loan saved;
+        if ( shards.isPresent() ) {
+            shards.get().markReturned(loan.getId());
+            saved = loan.returnBook();
+        } else {
+            saved = repository.save(loan.returnBook());
+        }
+        activeLoans.returned(saved, eventLog.loanReturned(saved));
+        handOffToNextReservation(loan.getBook());
+        return saved;
+    }
+
+    @Override
+    public boolean queueReturn(Long id, boolean returned) {
+        // the write-behind flush updates the loan table; sharded returns are written right away
+        return !shards.isPresent() && writeBehind.isEnabled() && repository.existsById(id) && writeBehind.enqueue(id, returned);
+    }
+
+    /**
+     * One bulk {@code UPDATE} per flag and chunk of ids; the loans it actually changed are then read back
+     * with their book and customer to publish the events and hand the books to waiting reservations.
+     */
+    @Override
+    @Transactional
+    public void applyReturns(Map<Long, Boolean> returns) {
+        List<Long> queuedReturns = new ArrayList<>();
+        List<Long> queuedReopens = new ArrayList<>();
+        returns.forEach((id, returned) -> (returned ? queuedReturns : queuedReopens).add(id));
+        List<Long> returnedIds = changeReturned(queuedReturns, true);
+        Map<Long, Loan> reopenable = reopenable(queuedReopens);
+        List<Long> reopenedIds = changeReturned(new ArrayList<>(reopenable.keySet()), false);
+        if ( returnedIds.isEmpty() && reopenedIds.isEmpty() ) {
+            return;
+        }
+        countCache.invalidate(CountCache.LOANS);
+        singleFlight.invalidate(SingleFlight.LOANS);
+
+        Map<Long, Book> books = new LinkedHashMap<>();
+        for ( List<Long> ids : chunks(returnedIds) ) {
+            for ( Loan loan : repository.findByIdIn(ids) ) {
+                activeLoans.returned(loan, eventLog.loanReturned(loan));
+                books.putIfAbsent(loan.getBook().getId(), loan.getBook());
+            }
+        }
+        // a reopen is published as a return event carrying the cleared flag
+        for ( Long id : reopenedIds ) {
+            Loan loan = reopenable.get(id).undoReturn();
+            activeLoans.loaned(loan, eventLog.loanReturned(loan));
+        }
+        books.values().forEach(this::handOffToNextReservation);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
-        return repository.findByBookIsbnOrCustumer(filter.getIsbn(), filter.getCustomer(), pageable);
+        return singleFlight.execute(SingleFlight.LOANS, "page|" + filterKey(filter) + '|' + pageable, () -> {
+            if ( shards.isPresent() ) {
+                return shards.get().find(toShardedQuery(filter), pageable).map(ShardedLoan::toLoan);
+            }
+            Specification<Loan> specification = toSpecification(filter);
+            Slice<Loan> slice = repository.findSlice(specification, pageable);
+            return PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                    () -> countCache.get(CountCache.LOANS, filterKey(filter), () -> repository.count(specification)));
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable) {
+        return singleFlight.execute(SingleFlight.LOANS, "slice|" + filterKey(filter) + '|' + pageable,
+                () -> shards.isPresent()
+                        ? shards.get().find(toShardedQuery(filter), pageable).map(ShardedLoan::toLoan)
+                        : repository.findSlice(toSpecification(filter), pageable));
     }
 
     @Override
     public List<Loan> getAllLateLoans() {
-        return repository.findNotReturnedLoansAfterDay(LocalDate.now(), 3);
+        LocalDate today = LocalDate.now();
+        if ( shards.isPresent() ) {
+            return shards.get().findNotReturnedAfterDay(today, 3).stream().map(ShardedLoan::toLoan).collect(Collectors.toList());
+        }
+        if ( !partitionedScan.isEnabled() ) {
+            return repository.findNotReturnedLoansAfterDay(today, 3);
+        }
+        return scanLoanIds((from, to) -> repository.findNotReturnedLoansAfterDay(today, 3, from, to));
+    }
+
+    @Override
+    public List<Customer> getAllCustomersWithLateLoans() {
+        LocalDate today = LocalDate.now();
+        if ( shards.isPresent() ) {
+            Map<Long, Customer> customers = new LinkedHashMap<>();
+            for ( ShardedLoan loan : shards.get().findNotReturnedAfterDay(today, 3) ) {
+                Customer customer = loan.toLoan().getCustomer();
+                if ( customer != null ) {
+                    customers.putIfAbsent(customer.getId(), customer);
+                }
+            }
+            return new ArrayList<>(customers.values());
+        }
+        if ( !partitionedScan.isEnabled() ) {
+            return repository.findCustomersWithNotReturnedLoansAfterDay(today, 3);
+        }
+        // a customer is returned once per partition holding one of their late loans
+        Map<Long, Customer> customers = new LinkedHashMap<>();
+        for ( Customer customer : scanLoanIds((from, to) -> repository.findCustomersWithNotReturnedLoansAfterDay(today, 3, from, to)) ) {
+            customers.putIfAbsent(customer.getId(), customer);
+        }
+        return new ArrayList<>(customers.values());
     }
+
+    private <T> List<T> scanLoanIds(PartitionedScan.RangeQuery<T> query) {
+        Long min = repository.findMinId();
+        Long max = repository.findMaxId();
+        if ( min == null || max == null ) {
+            return new ArrayList<>();
+        }
+        return partitionedScan.scan(min, max, query);
+    }
+
+    private ShardedLoanQuery toShardedQuery(LoanFilterDTO filter) {
+        return ShardedLoanQuery.builder()
+                .bookIsbn(filter.getIsbn())
+                .customerId(filter.getCustomerId())
+                .matchAll(filter.getMatch() == LoanFilterDTO.Match.ALL)
+                .loanDateFrom(filter.getLoanDateFrom())
+                .loanDateTo(filter.getLoanDateTo())
+                .returned(filter.getReturned())
+                .build();
+    }
+
+    private Specification<Loan> toSpecification(LoanFilterDTO filter) {
+        boolean matchAll = filter.getMatch() == LoanFilterDTO.Match.ALL;
+        List<Specification<Loan>> identity = new ArrayList<>();
+
+        if ( filter.getIsbn() != null && !filter.getIsbn().isEmpty() ) {
+            Optional<Book> book = bookRepository.findByIsbn(filter.getIsbn());
+            if ( book.isPresent() ) {
+                identity.add(LoanSpecifications.bookIdEquals(book.get().getId()));
+            } else if ( matchAll ) {
+                return LoanSpecifications.none();
+            }
+        }
+        if ( filter.getCustomerId() != null ) {
+            identity.add(LoanSpecifications.customerIdEquals(filter.getCustomerId()));
+        }
+
+        Specification<Loan> spec = identity.stream()
+                .reduce((left, right) -> matchAll ? left.and(right) : left.or(right))
+                .orElse(null);
+        if ( spec == null && filter.getIsbn() != null && !filter.getIsbn().isEmpty() ) {
+            return LoanSpecifications.none();
+        }
+
+        spec = Specification.where(spec);
+        if ( filter.getLoanDateFrom() != null ) {
+            spec = spec.and(LoanSpecifications.loanDateFrom(filter.getLoanDateFrom()));
+        }
+        if ( filter.getLoanDateTo() != null ) {
+            spec = spec.and(LoanSpecifications.loanDateTo(filter.getLoanDateTo()));
+        }
+        if ( filter.getReturned() != null ) {
+            spec = spec.and(LoanSpecifications.returnedEquals(filter.getReturned()));
+        }
+        return spec;
+    }
+
+    /**
+     * Sets the flag on the loans among {@code ids} that do not have it yet and returns their ids. The rows
+     * are locked before the update, so a concurrent return of the same loan is never published twice.
+     */
+    private List<Long> changeReturned(List<Long> ids, boolean returned) {
+        List<Long> changed = new ArrayList<>();
+        for ( List<Long> chunk : chunks(ids) ) {
+            List<Long> locked = repository.lockIdsByIdInAndReturnedNot(chunk, returned);
+            if ( !locked.isEmpty() ) {
+                repository.updateReturnedByIdIn(locked, returned);
+                changed.addAll(locked);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * The returned loans among {@code ids} that can be reopened without giving their book a second open
+     * loan: one per book, and only while the book, locked as in {@link #save(Loan)}, has no open loan.
+     */
+    private Map<Long, Loan> reopenable(List<Long> ids) {
+        Map<Long, Loan> byBook = new LinkedHashMap<>();
+        for ( List<Long> chunk : chunks(ids) ) {
+            for ( Loan loan : repository.findByIdIn(chunk) ) {
+                if ( loan.isReturned() ) {
+                    byBook.putIfAbsent(loan.getBook().getId(), loan);
+                }
+            }
+        }
+        Map<Long, Loan> reopenable = new LinkedHashMap<>();
+        byBook.forEach((bookId, loan) -> {
+            Optional<Book> book = bookRepository.lockById(bookId);
+            if ( book.isPresent() && !isOnLoan(book.get()) ) {
+                reopenable.put(loan.getId(), loan);
+            }
+        });
+        return reopenable;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for ( int from = 0; from < ids.size(); from += RETURNS_PER_UPDATE ) {
+            chunks.add(ids.subList(from, Math.min(from + RETURNS_PER_UPDATE, ids.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Lends the book to the head of its reservation queue in the returning transaction, so the book
+     * is never observably free while someone is waiting for it.
+     */
+    private void handOffToNextReservation(Book returned) {
+        // sharded loans carry a detached copy of their book; a deleted book has no queue to serve
+        Optional<Book> locked = bookRepository.lockById(returned.getId());
+        if ( !locked.isPresent() || isOnLoan(locked.get()) ) {
+            return;
+        }
+        Book book = locked.get();
+        reservationRepository
+                .findFirstByBookAndStatusOrderByIdAsc(book, Reservation.Status.WAITING)
+                .ifPresent(reservation -> {
+                    Loan loan = insert(Loan.builder()
+                            .book(book)
+                            .customer(reservation.getCustomer())
+                            .loanDate(LocalDate.now())
+                            .build());
+                    activeLoans.loaned(loan, eventLog.loanCreated(loan));
+                    reservation.fulfil(shards.isPresent() ? null : loan);
+                    eventPublisher.publishEvent(new ReservationFulfilledEvent(reservation));
+                });
+    }
+
+    private Loan insert(Loan loan) {
+        if ( !shards.isPresent() ) {
+            return repository.save(loan);
+        }
+        ShardedLoan saved = shards.get().save(ShardedLoan.of(loan));
+        return Loan.builder()
+                .id(saved.getId())
+                .book(loan.getBook())
+                .customer(loan.getCustomer())
+                .loanDate(loan.getLoanDate())
+                .returned(loan.isReturned())
+                .build();
+    }
+
+    private boolean isOnLoan(Book book) {
+        if ( shards.isPresent() ) {
+            return shards.get().existsOpenLoan(book.getId());
+        }
+        // the index is only trusted once built and while no other commit of the book is in flight
+        long activeLoan = activeLoans.isReady() ? activeLoans.activeLoanOf(book.getId()) : ActiveLoanIndex.UNKNOWN;
+        return activeLoan == ActiveLoanIndex.UNKNOWN
+                ? repository.existsByBookIdAndReturnedIsFalse(book)
+                : activeLoan != 0;
+    }
+
+    private String filterKey(LoanFilterDTO filter) {
+        return String.join("|",
+                String.valueOf(filter.getIsbn()),
+                String.valueOf(filter.getCustomerId()),
+                String.valueOf(filter.getMatch()),
+                String.valueOf(filter.getLoanDateFrom()),
+                String.valueOf(filter.getLoanDateTo()),
+                String.valueOf(filter.getReturned()));
+    }
+
 }
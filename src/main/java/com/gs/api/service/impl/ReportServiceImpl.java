@@ -0,0 +1,75 @@
+package com.gs.api.service.impl;
+
+import com.gs.api.model.report.OverdueReport;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.service.ReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Serves the overdue report from memory. The report is rebuilt in the background from three
+ * aggregate queries, so a dashboard request never loads loan entities nor waits on the database
+ * (except for the very first one after startup).
+ */
+@Service
+public class ReportServiceImpl implements ReportService {
+
+    private final LoanRepository loanRepository;
+    private final int loanPeriodDays;
+    private final int top;
+    private final Clock clock;
+    private volatile OverdueReport overdueReport;
+
+    @Autowired
+    public ReportServiceImpl(LoanRepository loanRepository,
+                             @Value("${application.reports.overdue.loan-period-days:3}") int loanPeriodDays,
+                             @Value("${application.reports.overdue.top:50}") int top) {
+        this(loanRepository, loanPeriodDays, top, Clock.systemDefaultZone());
+    }
+
+    public ReportServiceImpl(LoanRepository loanRepository, int loanPeriodDays, int top, Clock clock) {
+        this.loanRepository = loanRepository;
+        this.loanPeriodDays = loanPeriodDays;
+        this.top = top;
+        this.clock = clock;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OverdueReport getOverdueReport() {
+        OverdueReport report = overdueReport;
+        if ( report != null ) {
+            return report;
+        }
+        synchronized ( this ) {
+            return overdueReport != null ? overdueReport : refreshOverdueReport();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${application.reports.overdue.refresh-interval:60000}",
+            initialDelayString = "${application.reports.overdue.refresh-interval:60000}")
+    public OverdueReport refreshOverdueReport() {
+        LocalDate asOf = LocalDate.now(clock);
+        LocalDate dueBefore = asOf.minusDays(loanPeriodDays);
+        PageRequest topN = PageRequest.of(0, top);
+
+        OverdueReport report = OverdueReport.builder()
+                .asOf(asOf)
+                .generatedAt(clock.instant())
+                .byDaysLate(loanRepository.countOverdueBuckets(dueBefore, dueBefore.minusDays(7), dueBefore.minusDays(30)))
+                .byBook(loanRepository.countOverdueByBook(dueBefore, topN))
+                .byCustomer(loanRepository.countOverdueByCustomer(dueBefore, topN))
+                .build();
+        overdueReport = report;
+        return report;
+    }
+}
@@ -0,0 +1,109 @@
+package com.gs.api.service.impl;
+
+import com.gs.api.exception.BusinessException;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.Reservation;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.ReservationRepository;
+import com.gs.api.repository.sharding.ShardedLoanStore;
+import com.gs.api.service.CustomerService;
+import com.gs.api.service.LoanService;
+import com.gs.api.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class ReservationServiceImpl implements ReservationService {
+
+    private final ReservationRepository reservationRepository;
+    private final LoanRepository loanRepository;
+    private final BookRepository bookRepository;
+    private final CustomerService customerService;
+    private final LoanService loanService;
+    private final Optional<ShardedLoanStore> shards;
+
+    /**
+     * Lends the book right away when it is free and nobody is queued, otherwise appends the customer
+     * to the book's queue. Holds the book lock, so it cannot interleave with a return hand-off.
+     */
+    @Override
+    @Transactional
+    public Reservation reserve(Reservation reservation) {
+        // a book deleted since it was read matches no row
+        Book book = bookRepository.lockById(reservation.getBook().getId())
+                .orElseThrow(() -> new BusinessException("Book not found"));
+        Customer customer = customerService.resolve(reservation.getCustomer());
+        reservation.setCustomer(customer);
+
+        if ( !isOnLoan(book)
+                && !reservationRepository.existsByBookAndStatus(book, Reservation.Status.WAITING) ) {
+            Loan loan = loanService.save(Loan.builder()
+                    .book(book)
+                    .customer(customer)
+                    .loanDate(LocalDate.now())
+                    .build());
+            // a sharded loan lives on another database and cannot be referenced
+            return reservationRepository.save(reservation.toBuilder()
+                    .status(Reservation.Status.FULFILLED)
+                    .loan(shards.isPresent() ? null : loan)
+                    .createdAt(Instant.now())
+                    .build());
+        }
+        if ( reservationRepository.existsByBookAndCustomerAndStatus(book, customer, Reservation.Status.WAITING) ) {
+            throw new BusinessException("Customer already waiting for this book");
+        }
+        return reservationRepository.save(reservation.toBuilder()
+                .status(Reservation.Status.WAITING)
+                .createdAt(Instant.now())
+                .build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Reservation> getById(Long id) {
+        return reservationRepository.findById(id);
+    }
+
+    /**
+     * 1-based position in the queue, 0 once the reservation left it.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long getPosition(Reservation reservation) {
+        if ( reservation.getStatus() != Reservation.Status.WAITING ) {
+            return 0;
+        }
+        return reservationRepository.countByBookAndStatusAndIdLessThan(
+                reservation.getBook(), Reservation.Status.WAITING, reservation.getId()) + 1;
+    }
+
+    /**
+     * Cancels with a conditional update, so it cannot overwrite a concurrent hand-off.
+     */
+    @Override
+    @Transactional
+    public Optional<Reservation> cancel(Long id) {
+        if ( reservationRepository.updateStatus(id, Reservation.Status.WAITING, Reservation.Status.CANCELLED) == 0 ) {
+            if ( reservationRepository.existsById(id) ) {
+                throw new BusinessException("Reservation is no longer waiting");
+            }
+            return Optional.empty();
+        }
+        return reservationRepository.findById(id);
+    }
+
+    private boolean isOnLoan(Book book) {
+        return shards.isPresent()
+                ? shards.get().existsOpenLoan(book.getId())
+                : loanRepository.existsByBookIdAndReturnedIsFalse(book);
+    }
+}
@@ -0,0 +1,320 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.model.report.OpenLoan;
+import com.gs.api.repository.LoanEventRepository;
+import com.gs.api.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Node-local index from book id to the id of its open loan, held in a {@link LongLongMap}: answering
+ * whether a book is on loan costs a hash probe instead of a query, with no per-entry objects.
+ * <p>
+ * The first poll builds the index from the open loans; later polls apply the {@link LoanEvent} feed, and
+ * this node's own loans and returns are applied when their transaction completes. A transaction sees its
+ * own changes before that. Between the start of another transaction's commit and the index update, the
+ * book reads as {@link #UNKNOWN}, so a caller holding the book lock asks the database instead of seeing
+ * the state from before the commit. Each book remembers the offset of its last applied change, and older
+ * events from the feed are ignored. Writes of other nodes arrive with the next poll, so enable the index
+ * only where loans of a book are written by one node.
+ */
+@Slf4j
+@Component
+public class ActiveLoanIndex {
+
+    /**
+     * Answer of {@link #activeLoanOf(long)} while a change of the book is being committed.
+     */
+    public static final long UNKNOWN = -1;
+
+    private static final int PAGE = 1000;
+
+    private final LoanRepository loanRepository;
+    private final LoanEventRepository eventRepository;
+    private final LoanEventLog eventLog;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongLongMap loans = new LongLongMap(0);
+    private LongLongMap offsets = new LongLongMap(0);
+    private final LongLongMap committing = new LongLongMap(0);
+    private List<Change> committedDuringRebuild;
+    private volatile boolean ready;
+    private long lastOffset;
+
+    @Autowired
+    public ActiveLoanIndex(LoanRepository loanRepository,
+                           LoanEventRepository eventRepository,
+                           LoanEventLog eventLog,
+                           @Value("${application.loans.active-index.enabled:false}") boolean enabled) {
+        this.loanRepository = loanRepository;
+        this.eventRepository = eventRepository;
+        this.eventLog = eventLog;
+        this.enabled = enabled;
+    }
+
+    /**
+     * {@code false} until the first poll built the index; callers query the database meanwhile.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Id of the open loan of the book, {@code 0} when there is none, or {@link #UNKNOWN} while another
+     * transaction commits a change of the book.
+     */
+    public long activeLoanOf(long bookId) {
+        Map<Long, Change> changes = changes();
+        Change change = changes != null ? changes.get(bookId) : null;
+        if ( change != null ) {
+            return change.open ? change.loanId : 0;
+        }
+        lock.readLock().lock();
+        try {
+            return committing.get(bookId) != 0 ? UNKNOWN : loans.get(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records that the loan is open; {@code offset} is the event published for it.
+     */
+    public void loaned(Loan loan, long offset) {
+        record(loan, true, offset);
+    }
+
+    /**
+     * Records that the loan is returned; {@code offset} is the event published for it.
+     */
+    public void returned(Loan loan, long offset) {
+        record(loan, false, offset);
+    }
+
+    @Scheduled(fixedDelayString = "${application.loans.active-index.poll-interval:250}")
+    public void poll() {
+        if ( !enabled ) {
+            return;
+        }
+        if ( !ready || eventRepository.findFirstId() > lastOffset + 1 ) {
+            rebuild();
+        }
+        List<LoanEvent> events;
+        do {
+            events = eventLog.read(lastOffset, PAGE);
+            lock.writeLock().lock();
+            try {
+                for ( LoanEvent event : events ) {
+                    apply(event);
+                    lastOffset = event.getId();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while ( events.size() == PAGE );
+        ready = true;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return loans.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loans committed after the settled offset taken first are in the feed as well, and applied by the
+     * caller. This node's own commits may land in the old map while the pages are read, so they are kept
+     * and replayed onto the new one.
+     */
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            committedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LongLongMap rebuilt = null;
+        long offset = 0;
+        try {
+            offset = eventLog.settledOffset();
+            rebuilt = load();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if ( rebuilt != null ) {
+                    LongLongMap rebuiltOffsets = new LongLongMap(0);
+                    for ( Change change : committedDuringRebuild ) {
+                        change.applyTo(rebuilt, rebuiltOffsets);
+                    }
+                    loans = rebuilt;
+                    offsets = rebuiltOffsets;
+                    lastOffset = offset;
+                }
+                committedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info(" built active loan index of {} loans at offset {} ", rebuilt.size(), offset);
+    }
+
+    private LongLongMap load() {
+        LongLongMap rebuilt = new LongLongMap(PAGE);
+        List<OpenLoan> page;
+        long after = 0;
+        do {
+            page = loanRepository.findOpenLoansAfter(after, PageRequest.of(0, PAGE));
+            for ( OpenLoan loan : page ) {
+                rebuilt.put(loan.getBookId(), loan.getId());
+                after = loan.getId();
+            }
+        } while ( page.size() == PAGE );
+        return rebuilt;
+    }
+
+    private void apply(LoanEvent event) {
+        if ( event.getBookId() == null || event.getLoanId() == null ) {
+            return;
+        }
+        if ( event.getType() == LoanEvent.Type.LOAN_CREATED ) {
+            new Change(event.getBookId(), event.getLoanId(), true, event.getId()).applyTo(loans, offsets);
+        } else if ( event.getType() == LoanEvent.Type.LOAN_RETURNED ) {
+            boolean open = !Boolean.TRUE.equals(event.getReturned());
+            new Change(event.getBookId(), event.getLoanId(), open, event.getId()).applyTo(loans, offsets);
+        }
+    }
+
+    /**
+     * Keeps the change visible to the current transaction only; marks its book as committing before the
+     * commit and applies it once the commit is done.
+     */
+    private void record(Loan loan, boolean open, long offset) {
+        if ( !enabled || loan.getId() == null || loan.getBook() == null || loan.getBook().getId() == null ) {
+            return;
+        }
+        long bookId = loan.getBook().getId();
+        Change change = new Change(bookId, loan.getId(), open, offset);
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            apply(Collections.singletonList(change), false);
+            return;
+        }
+        Map<Long, Change> changes = changes();
+        if ( changes == null ) {
+            Map<Long, Change> bound = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean marked;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    mark(bound.values(), 1);
+                    marked = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(ActiveLoanIndex.this);
+                    if ( status == STATUS_COMMITTED ) {
+                        apply(bound.values(), marked);
+                    } else if ( marked ) {
+                        mark(bound.values(), -1);
+                    }
+                }
+            });
+            changes = bound;
+        }
+        changes.put(bookId, change);
+    }
+
+    private void mark(Iterable<Change> changes, int delta) {
+        lock.writeLock().lock();
+        try {
+            for ( Change change : changes ) {
+                long count = committing.get(change.bookId) + delta;
+                if ( count > 0 ) {
+                    committing.put(change.bookId, count);
+                } else {
+                    committing.remove(change.bookId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies committed changes and clears their committing marks in one step, so readers never see
+     * the book free of its mark but without the change.
+     */
+    private void apply(Iterable<Change> changes, boolean marked) {
+        lock.writeLock().lock();
+        try {
+            for ( Change change : changes ) {
+                change.applyTo(loans, offsets);
+                if ( committedDuringRebuild != null ) {
+                    committedDuringRebuild.add(change);
+                }
+            }
+            if ( marked ) {
+                mark(changes, -1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Change> changes() {
+        return (Map<Long, Change>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private static final class Change {
+        private final long bookId;
+        private final long loanId;
+        private final boolean open;
+        private final long offset;
+
+        private Change(long bookId, long loanId, boolean open, long offset) {
+            this.bookId = bookId;
+            this.loanId = loanId;
+            this.open = open;
+            this.offset = offset;
+        }
+
+        /**
+         * Skipped when the book already has a later change; a change without offset always applies.
+         */
+        private void applyTo(LongLongMap loans, LongLongMap offsets) {
+            if ( offset > 0 ) {
+                if ( offset <= offsets.get(bookId) ) {
+                    return;
+                }
+                offsets.put(bookId, offset);
+            }
+            if ( open ) {
+                loans.put(bookId, loanId);
+            } else {
+                loans.remove(bookId, loanId);
+            }
+        }
+    }
+}
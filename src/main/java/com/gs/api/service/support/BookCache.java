@@ -0,0 +1,201 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Node-local cache of books by id and isbn, kept coherent across nodes through the {@link LoanEventLog}
+ * outbox: every node polls the feed and evicts books with a {@code BOOK_UPDATED} or {@code BOOK_DELETED}
+ * event, so a write on any node is seen everywhere within the poll interval.
+ * <p>
+ * A missed event (the feed was purged while the node was stalled, a poll failed) cannot keep a stale entry
+ * alive: entries older than {@code revalidate-after} are only served after a primary-key version check,
+ * which every update and soft delete bumps.
+ * <p>
+ * Cached books are shared between requests and must be treated as read-only.
+ */
+@Component
+public class BookCache {
+
+    private static final int POLL_BATCH = 500;
+
+    private final BookRepository bookRepository;
+    private final LoanEventRepository eventRepository;
+    private final LoanEventLog eventLog;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long revalidateMillis;
+    private final Clock clock;
+    private final ConcurrentMap<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> idByIsbn = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile long lastOffset = -1;
+
+    @Autowired
+    public BookCache(BookRepository bookRepository,
+                     LoanEventRepository eventRepository,
+                     LoanEventLog eventLog,
+                     @Value("${application.books.cache.enabled:true}") boolean enabled,
+                     @Value("${application.books.cache.max-entries:10000}") int maxEntries,
+                     @Value("${application.books.cache.revalidate-after:5s}") Duration revalidateAfter) {
+        this(bookRepository, eventRepository, eventLog, enabled, maxEntries, revalidateAfter, Clock.systemUTC());
+    }
+
+    public BookCache(BookRepository bookRepository,
+                     LoanEventRepository eventRepository,
+                     LoanEventLog eventLog,
+                     boolean enabled,
+                     int maxEntries,
+                     Duration revalidateAfter,
+                     Clock clock) {
+        this.bookRepository = bookRepository;
+        this.eventRepository = eventRepository;
+        this.eventLog = eventLog;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.revalidateMillis = revalidateAfter.toMillis();
+        this.clock = clock;
+    }
+
+    public Optional<Book> get(Long id, Supplier<Optional<Book>> loader) {
+        if ( !usable() ) {
+            return loader.get();
+        }
+        Optional<Book> cached = cached(id);
+        return cached.isPresent() ? cached : load(loader);
+    }
+
+    public Optional<Book> getByIsbn(String isbn, Supplier<Optional<Book>> loader) {
+        if ( !usable() ) {
+            return loader.get();
+        }
+        Long id = idByIsbn.get(isbn);
+        Optional<Book> cached = id != null ? cached(id) : Optional.empty();
+        return cached.isPresent() ? cached : load(loader);
+    }
+
+    /**
+     * Evicts the book on this node once the surrounding transaction commits; other nodes follow when
+     * they read the write's outbox event.
+     */
+    public void evictAfterCommit(Long id) {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        } else {
+            evict(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.books.cache.poll-interval:250}")
+    public void pollInvalidations() {
+        if ( !enabled ) {
+            return;
+        }
+        if ( lastOffset < 0 ) {
+            // nothing is cached before the first poll, so earlier events are irrelevant
+            lastOffset = eventRepository.findLastId();
+            return;
+        }
+        List<LoanEvent> events;
+        do {
+            events = eventLog.read(lastOffset, POLL_BATCH);
+            for ( LoanEvent event : events ) {
+                if ( event.getType() == LoanEvent.Type.BOOK_UPDATED || event.getType() == LoanEvent.Type.BOOK_DELETED ) {
+                    evict(event.getBookId());
+                }
+                lastOffset = event.getId();
+            }
+        } while ( events.size() == POLL_BATCH );
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    /**
+     * Caching starts with the first poll and is skipped in read-write transactions, which must see
+     * their own changes.
+     */
+    private boolean usable() {
+        return enabled && lastOffset >= 0
+                && !(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private Optional<Book> cached(Long id) {
+        Entry entry = byId.get(id);
+        if ( entry == null ) {
+            return Optional.empty();
+        }
+        long now = clock.millis();
+        if ( now - entry.checkedAt < revalidateMillis ) {
+            return Optional.of(entry.book);
+        }
+        Optional<Long> version = bookRepository.findVersionById(id);
+        if ( version.isPresent() && version.get().equals(entry.book.getVersion()) ) {
+            entry.checkedAt = now;
+            return Optional.of(entry.book);
+        }
+        evict(id);
+        return Optional.empty();
+    }
+
+    private Optional<Book> load(Supplier<Optional<Book>> loader) {
+        // a load racing with an eviction may have read the old row; do not cache it then
+        long evictionsBefore = evictions.get();
+        Optional<Book> book = loader.get();
+        if ( book.isPresent() && evictions.get() == evictionsBefore ) {
+            if ( byId.size() >= maxEntries ) {
+                byId.clear();
+                idByIsbn.clear();
+            }
+            Book loaded = book.get();
+            byId.put(loaded.getId(), new Entry(loaded, clock.millis()));
+            idByIsbn.put(loaded.getIsbn(), loaded.getId());
+        }
+        return book;
+    }
+
+    private void evict(Long id) {
+        if ( id == null ) {
+            return;
+        }
+        evictions.incrementAndGet();
+        Entry removed = byId.remove(id);
+        if ( removed != null ) {
+            idByIsbn.remove(removed.book.getIsbn(), id);
+        }
+    }
+
+    private static final class Entry {
+        private final Book book;
+        private volatile long checkedAt;
+
+        private Entry(Book book, long checkedAt) {
+            this.book = book;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only, memory-mapped snapshot of the book catalog.
+ * <pre>
+ * header   magic, format, event offset, books, isbns, isbn index position, strings position, crc
+ * books    id, version, isbn, title and author string positions; sorted by id
+ * isbns    book index; sorted by the UTF-8 bytes of the isbn, books without isbn left out
+ * strings  length and UTF-8 bytes
+ * </pre>
+ * Lookups are binary searches over the mapping that allocate nothing; only materializing the
+ * {@link Book} of a hit creates objects. Files are written next to the target and atomically moved over
+ * it, and a crc mismatch makes {@link #open(Path)} reject a damaged file, so a crash never leaves a
+ * half-written snapshot in use.
+ */
+public final class CatalogFile {
+
+    private static final int MAGIC = 0x43415431;
+    private static final int FORMAT = 1;
+    private static final int HEADER = 36;
+    private static final int BOOK = 28;
+    private static final int NO_STRING = -1;
+
+    private final ByteBuffer buffer;
+    private final long offset;
+    private final int books;
+    private final int isbns;
+    private final int isbnIndexAt;
+
+    private CatalogFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.offset = buffer.getLong(8);
+        this.books = buffer.getInt(16);
+        this.isbns = buffer.getInt(20);
+        this.isbnIndexAt = buffer.getInt(24);
+    }
+
+    /**
+     * Maps an existing snapshot; empty when there is none or it is damaged.
+     */
+    public static Optional<CatalogFile> open(Path file) {
+        if ( !Files.isRegularFile(file) ) {
+            return Optional.empty();
+        }
+        MappedByteBuffer buffer;
+        try ( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ) ) {
+            if ( channel.size() < HEADER || channel.size() > Integer.MAX_VALUE ) {
+                return Optional.empty();
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch ( IOException e ) {
+            throw new UncheckedIOException("Cannot map catalog snapshot " + file, e);
+        }
+        if ( buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT || buffer.getInt(32) != crc(buffer) ) {
+            return Optional.empty();
+        }
+        return Optional.of(new CatalogFile(buffer));
+    }
+
+    /**
+     * Writes {@code catalog}, consistent with the outbox up to {@code offset}, and atomically replaces {@code file}.
+     */
+    public static CatalogFile write(Path file, long offset, List<Book> catalog) {
+        List<Book> byId = new ArrayList<>(catalog);
+        byId.sort(Comparator.comparing(Book::getId));
+        List<byte[]> strings = new ArrayList<>(byId.size() * 3);
+        int stringBytes = 0;
+        for ( Book book : byId ) {
+            for ( String value : new String[]{book.getIsbn(), book.getTitle(), book.getAuthor()} ) {
+                byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                stringBytes += 4 + (bytes == null ? 0 : bytes.length);
+            }
+        }
+        List<Integer> isbnOrder = new ArrayList<>();
+        for ( int i = 0; i < byId.size(); i++ ) {
+            if ( strings.get(i * 3) != null ) {
+                isbnOrder.add(i);
+            }
+        }
+        isbnOrder.sort((a, b) -> compareBytes(strings.get(a * 3), strings.get(b * 3)));
+
+        int isbnIndexAt = HEADER + byId.size() * BOOK;
+        int stringsAt = isbnIndexAt + isbnOrder.size() * 4;
+        ByteBuffer out = ByteBuffer.allocate(stringsAt + stringBytes);
+        out.putInt(MAGIC).putInt(FORMAT).putLong(offset).putInt(byId.size()).putInt(isbnOrder.size())
+                .putInt(isbnIndexAt).putInt(stringsAt).putInt(0);
+        int stringAt = stringsAt;
+        for ( int i = 0; i < byId.size(); i++ ) {
+            Book book = byId.get(i);
+            out.putLong(book.getId()).putLong(book.getVersion() == null ? 0 : book.getVersion());
+            for ( int s = 0; s < 3; s++ ) {
+                byte[] bytes = strings.get(i * 3 + s);
+                out.putInt(stringAt);
+                stringAt += 4 + (bytes == null ? 0 : bytes.length);
+            }
+        }
+        isbnOrder.forEach(out::putInt);
+        for ( byte[] bytes : strings ) {
+            out.putInt(bytes == null ? NO_STRING : bytes.length);
+            if ( bytes != null ) {
+                out.put(bytes);
+            }
+        }
+        out.putInt(32, crc(out));
+        out.flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if ( file.getParent() != null ) {
+                Files.createDirectories(file.getParent());
+            }
+            try ( FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING) ) {
+                while ( out.hasRemaining() ) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch ( IOException e ) {
+            throw new UncheckedIOException("Cannot write catalog snapshot " + file, e);
+        }
+        return open(file).orElseThrow(() -> new IllegalStateException("Catalog snapshot " + file + " is damaged"));
+    }
+
+    /**
+     * Outbox offset the snapshot is consistent with.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    public int size() {
+        return books;
+    }
+
+    /**
+     * Position of the book with {@code id}, or {@code -1}.
+     */
+    public int indexOf(long id) {
+        int low = 0;
+        int high = books - 1;
+        while ( low <= high ) {
+            int middle = (low + high) >>> 1;
+            long found = id(middle);
+            if ( found < id ) {
+                low = middle + 1;
+            } else if ( found > id ) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Position of the book with {@code isbn}, or {@code -1}.
+     */
+    public int indexOfIsbn(String isbn) {
+        int low = 0;
+        int high = isbns - 1;
+        while ( low <= high ) {
+            int middle = (low + high) >>> 1;
+            int index = buffer.getInt(isbnIndexAt + middle * 4);
+            int compared = compareUtf8(isbn, buffer.getInt(HEADER + index * BOOK + 16));
+            if ( compared > 0 ) {
+                low = middle + 1;
+            } else if ( compared < 0 ) {
+                high = middle - 1;
+            } else {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    public long id(int index) {
+        return buffer.getLong(HEADER + index * BOOK);
+    }
+
+    public Book book(int index) {
+        int at = HEADER + index * BOOK;
+        return Book.builder()
+                .id(buffer.getLong(at))
+                .version(buffer.getLong(at + 8))
+                .isbn(string(buffer.getInt(at + 16)))
+                .title(string(buffer.getInt(at + 20)))
+                .author(string(buffer.getInt(at + 24)))
+                .build();
+    }
+
+    private String string(int at) {
+        int length = buffer.getInt(at);
+        if ( length == NO_STRING ) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(at + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares {@code value} with the stored string at {@code at} in UTF-8 byte order, encoding on the fly.
+     */
+    private int compareUtf8(String value, int at) {
+        int length = buffer.getInt(at);
+        int position = at + 4;
+        int end = position + Math.max(length, 0);
+        for ( int i = 0; i < value.length(); ) {
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int bytes = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            for ( int b = 0; b < bytes; b++ ) {
+                if ( position == end ) {
+                    return 1;
+                }
+                int compared = Integer.compare(utf8Byte(codePoint, bytes, b), buffer.get(position++) & 0xFF);
+                if ( compared != 0 ) {
+                    return compared;
+                }
+            }
+        }
+        return position == end ? 0 : -1;
+    }
+
+    private static int utf8Byte(int codePoint, int bytes, int b) {
+        if ( bytes == 1 ) {
+            return codePoint;
+        }
+        if ( b == 0 ) {
+            int lead = bytes == 2 ? 0xC0 : bytes == 3 ? 0xE0 : 0xF0;
+            return lead | (codePoint >>> (6 * (bytes - 1)));
+        }
+        return 0x80 | ((codePoint >>> (6 * (bytes - 1 - b))) & 0x3F);
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        for ( int i = 0; i < Math.min(a.length, b.length); i++ ) {
+            int compared = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if ( compared != 0 ) {
+                return compared;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /**
+     * Crc of everything but the crc itself.
+     */
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        ByteBuffer header = buffer.duplicate();
+        header.position(0);
+        header.limit(32);
+        crc.update(header);
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER);
+        body.limit(buffer.capacity());
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+}
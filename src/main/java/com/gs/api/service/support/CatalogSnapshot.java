@@ -0,0 +1,204 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves book lookups by id and isbn from a memory-mapped {@link CatalogFile} on local disk.
+ * <p>
+ * The snapshot records the {@link LoanEventLog} offset it is consistent with. A refresh reads the book
+ * events after it, reloads the changed books and writes a new file; it starts over from the table when
+ * there is no usable file yet or the outbox was purged past its offset. Until the first refresh of a
+ * run the snapshot is not used, so a node restarting on an old file never serves from it.
+ * <p>
+ * Other nodes' writes are seen within the refresh interval. Books written on this node are bypassed
+ * from commit until a refresh applied their event.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshot {
+
+    private static final int PAGE = 1000;
+
+    private final BookRepository bookRepository;
+    private final LoanEventRepository eventRepository;
+    private final LoanEventLog eventLog;
+    private final boolean enabled;
+    private final Path file;
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private volatile CatalogFile current;
+    private volatile boolean refreshed;
+    private long appliedOffset;
+
+    @Autowired
+    public CatalogSnapshot(BookRepository bookRepository,
+                           LoanEventRepository eventRepository,
+                           LoanEventLog eventLog,
+                           @Value("${application.books.snapshot.enabled:false}") boolean enabled,
+                           @Value("${application.books.snapshot.file:data/catalog.snapshot}") String file) {
+        this.bookRepository = bookRepository;
+        this.eventRepository = eventRepository;
+        this.eventLog = eventLog;
+        this.enabled = enabled;
+        this.file = Paths.get(file);
+    }
+
+    public Optional<Book> get(Long id) {
+        CatalogFile snapshot = usable();
+        if ( snapshot == null || id == null || dirty.contains(id) ) {
+            return Optional.empty();
+        }
+        int index = snapshot.indexOf(id);
+        return index < 0 ? Optional.empty() : Optional.of(snapshot.book(index));
+    }
+
+    public Optional<Book> getByIsbn(String isbn) {
+        CatalogFile snapshot = usable();
+        if ( snapshot == null || isbn == null ) {
+            return Optional.empty();
+        }
+        int index = snapshot.indexOfIsbn(isbn);
+        return index < 0 || dirty.contains(snapshot.id(index)) ? Optional.empty() : Optional.of(snapshot.book(index));
+    }
+
+    /**
+     * Stops serving the book from the snapshot once the surrounding transaction commits, until a refresh
+     * picked up the change.
+     */
+    public void invalidateAfterCommit(Long id) {
+        if ( !enabled || id == null ) {
+            return;
+        }
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dirty.add(id);
+                }
+            });
+        } else {
+            dirty.add(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.books.snapshot.refresh-interval:1000}")
+    public void refresh() {
+        if ( !enabled ) {
+            return;
+        }
+        if ( current == null ) {
+            current = CatalogFile.open(file).orElse(null);
+            appliedOffset = current != null ? current.offset() : -1;
+        }
+        if ( current == null || eventRepository.findFirstId() > appliedOffset + 1 ) {
+            current = rebuild();
+        } else {
+            applyChanges();
+        }
+        refreshed = true;
+    }
+
+    private CatalogFile rebuild() {
+        Set<Long> bypassed = new HashSet<>(dirty);
+        // events after this offset are applied by the next refresh, whether or not the pages below saw them;
+        // it trails the head by the settle window, as an event allocated before the head may commit later
+        long offset = eventLog.settledOffset();
+        List<Book> books = new ArrayList<>();
+        Slice<Book> page = bookRepository.findAll(PageRequest.of(0, PAGE, Sort.by("id")));
+        books.addAll(page.getContent());
+        while ( page.hasNext() ) {
+            page = bookRepository.findAll(page.nextPageable());
+            books.addAll(page.getContent());
+        }
+        CatalogFile rebuilt = CatalogFile.write(file, offset, books);
+        appliedOffset = offset;
+        dirty.removeAll(bypassed);
+        log.info(" wrote catalog snapshot of {} books at offset {} ", rebuilt.size(), offset);
+        return rebuilt;
+    }
+
+    /**
+     * Rewrites the file only when books changed; loan events merely advance the offset in memory, and
+     * a restart reads them again.
+     */
+    private void applyChanges() {
+        // committed before the events are read, so the reload below sees them
+        Set<Long> bypassed = new HashSet<>(dirty);
+        Set<Long> changed = new HashSet<>();
+        List<LoanEvent> events;
+        do {
+            events = eventLog.read(appliedOffset, PAGE);
+            for ( LoanEvent event : events ) {
+                if ( isBookChange(event) ) {
+                    changed.add(event.getBookId());
+                }
+                appliedOffset = event.getId();
+            }
+        } while ( events.size() == PAGE );
+        if ( changed.isEmpty() ) {
+            return;
+        }
+        Map<Long, Book> reloaded = new HashMap<>();
+        changed.forEach(id -> reloaded.put(id, null));
+        bookRepository.findAllById(changed).forEach(book -> reloaded.put(book.getId(), book));
+        current = CatalogFile.write(file, appliedOffset, books(current, reloaded));
+        bypassed.retainAll(changed);
+        dirty.removeAll(bypassed);
+    }
+
+    /**
+     * Books of the snapshot with {@code changes} applied; a {@code null} change removes the book.
+     */
+    private List<Book> books(CatalogFile snapshot, Map<Long, Book> changes) {
+        List<Book> books = new ArrayList<>(snapshot.size() + changes.size());
+        for ( int i = 0; i < snapshot.size(); i++ ) {
+            if ( !changes.containsKey(snapshot.id(i)) ) {
+                books.add(snapshot.book(i));
+            }
+        }
+        changes.values().stream().filter(Objects::nonNull).forEach(books::add);
+        return books;
+    }
+
+    private CatalogFile usable() {
+        if ( !refreshed ) {
+            return null;
+        }
+        // read-write transactions must see their own changes
+        if ( TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly() ) {
+            return null;
+        }
+        return current;
+    }
+
+    private static boolean isBookChange(LoanEvent event) {
+        return event.getType() == LoanEvent.Type.BOOK_CREATED
+                || event.getType() == LoanEvent.Type.BOOK_UPDATED
+                || event.getType() == LoanEvent.Type.BOOK_DELETED;
+    }
+}
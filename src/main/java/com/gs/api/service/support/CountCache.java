@@ -0,0 +1,93 @@
+package com.gs.api.service.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches {@code count(*)} results of paged listings per region (table) and normalized filter.
+ * A write to a region bumps its generation, which makes every cached total of that region stale;
+ * the TTL bounds staleness caused by writes on other nodes.
+ */
+@Component
+public class CountCache {
+
+    public static final String BOOKS = "books";
+    public static final String LOANS = "loans";
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final long ttlMillis;
+    private final Clock clock;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CountCache(@Value("${application.count-cache.ttl:30s}") Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    public CountCache(Duration ttl, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public long get(String region, String filterKey, LongSupplier counter) {
+        String key = region + '|' + filterKey;
+        long generation = generation(region).get();
+        long now = clock.millis();
+
+        Entry entry = entries.get(key);
+        if ( entry != null && entry.generation == generation && entry.expiresAt > now ) {
+            return entry.count;
+        }
+        long count = counter.getAsLong();
+        if ( entries.size() >= MAX_ENTRIES ) {
+            entries.clear();
+        }
+        entries.put(key, new Entry(generation, count, now + ttlMillis));
+        return count;
+    }
+
+    /**
+     * Invalidates the region once the surrounding transaction commits, so a concurrent reader
+     * cannot re-cache the pre-commit count.
+     */
+    public void invalidate(String region) {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation(region).incrementAndGet();
+                }
+            });
+        } else {
+            generation(region).incrementAndGet();
+        }
+    }
+
+    private AtomicLong generation(String region) {
+        return generations.computeIfAbsent(region, r -> new AtomicLong());
+    }
+
+    private static final class Entry {
+        private final long generation;
+        private final long count;
+        private final long expiresAt;
+
+        private Entry(long generation, long count, long expiresAt) {
+            this.generation = generation;
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
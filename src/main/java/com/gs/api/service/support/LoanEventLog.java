@@ -0,0 +1,218 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.repository.LoanEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbox of loan and book changes. Events are appended inside the caller's transaction and become
+ * visible with it; long-polling readers parked in {@link #poll(long, int)} are woken after the commit.
+ * <p>
+ * Identity offsets are allocated before commit, so two concurrent transactions may commit out of order.
+ * A read stops in front of an offset gap younger than {@code settle}: the missing event is either
+ * about to commit or was rolled back, and skipping it would lose it for a consumer that resumes after it.
+ */
+@Component
+public class LoanEventLog {
+
+    private final LoanEventRepository repository;
+    private final long settleMillis;
+    private final Duration retention;
+    private final Clock clock;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "loan-event-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public LoanEventLog(LoanEventRepository repository,
+                        @Value("${application.events.gap-settle:2s}") Duration settle,
+                        @Value("${application.events.retention:7d}") Duration retention) {
+        this(repository, settle, retention, Clock.systemUTC());
+    }
+
+    public LoanEventLog(LoanEventRepository repository, Duration settle, Duration retention, Clock clock) {
+        this.repository = repository;
+        this.settleMillis = settle.toMillis();
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    /**
+     * Appends the event; returns its offset.
+     */
+    public long loanCreated(Loan loan) {
+        return append(event(LoanEvent.Type.LOAN_CREATED, loan)).getId();
+    }
+
+    /**
+     * Appends the event, which carries the loan's current {@code returned} flag; returns its offset.
+     */
+    public long loanReturned(Loan loan) {
+        return append(event(LoanEvent.Type.LOAN_RETURNED, loan)).getId();
+    }
+
+    public void bookCreated(Book book) {
+        append(event(LoanEvent.Type.BOOK_CREATED, book));
+    }
+
+    public void bookUpdated(Book book) {
+        append(event(LoanEvent.Type.BOOK_UPDATED, book));
+    }
+
+    public void bookDeleted(Long bookId) {
+        append(LoanEvent.builder()
+                .type(LoanEvent.Type.BOOK_DELETED)
+                .bookId(bookId)
+                .createdAt(clock.instant())
+                .build());
+    }
+
+    /**
+     * Reads up to {@code limit} committed events after the {@code after} offset, in offset order.
+     */
+    public List<LoanEvent> read(long after, int limit) {
+        List<LoanEvent> events = repository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit));
+        long unsettled = clock.millis() - settleMillis;
+        long expected = after + 1;
+        for ( int i = 0; i < events.size(); i++ ) {
+            LoanEvent event = events.get(i);
+            if ( event.getId() != expected && event.getCreatedAt().toEpochMilli() > unsettled ) {
+                return events.subList(0, i);
+            }
+            expected = event.getId() + 1;
+        }
+        return events;
+    }
+
+    /**
+     * Offset for a consumer that just loaded the current state to resume from: the last event older than
+     * the settle window. A younger event may still be preceded by one that commits later, so everything
+     * after this offset is read again and must be safe to apply twice.
+     */
+    public long settledOffset() {
+        return repository.findLastIdCreatedBefore(clock.instant().minusMillis(settleMillis));
+    }
+
+    /**
+     * Completes with the next events after {@code after}: immediately if there are any, otherwise once
+     * a write commits. Cancelling the returned future (e.g. on request timeout) unregisters the reader.
+     */
+    public CompletableFuture<List<LoanEvent>> poll(long after, int limit) {
+        List<LoanEvent> events = read(after, limit);
+        if ( !events.isEmpty() ) {
+            return CompletableFuture.completedFuture(events);
+        }
+        Waiter waiter = new Waiter(after, limit);
+        waiters.add(waiter);
+        waiter.future.whenComplete((result, error) -> waiters.remove(waiter));
+        // a commit may have slipped in between the read and the registration
+        wakeWaiters();
+        return waiter.future;
+    }
+
+    @Scheduled(fixedDelayString = "${application.events.purge-interval:3600000}")
+    public void purgeExpired() {
+        repository.deleteCreatedBefore(clock.instant().minus(retention));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+    }
+
+    private LoanEvent event(LoanEvent.Type type, Book book) {
+        return LoanEvent.builder()
+                .type(type)
+                .bookId(book.getId())
+                .bookIsbn(book.getIsbn())
+                .createdAt(clock.instant())
+                .build();
+    }
+
+    private LoanEvent event(LoanEvent.Type type, Loan loan) {
+        return LoanEvent.builder()
+                .type(type)
+                .loanId(loan.getId())
+                .bookId(loan.getBook() != null ? loan.getBook().getId() : null)
+                .bookIsbn(loan.getBook() != null ? loan.getBook().getIsbn() : null)
+                .customerId(loan.getCustomer() != null ? loan.getCustomer().getId() : null)
+                .returned(loan.isReturned())
+                .createdAt(clock.instant())
+                .build();
+    }
+
+    private LoanEvent append(LoanEvent event) {
+        repository.save(event);
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeWaiters();
+                }
+            });
+        } else {
+            wakeWaiters();
+        }
+        return event;
+    }
+
+    /**
+     * Coalesces bursts of commits into one pass on the notifier thread; waiters polling the same
+     * offset share a single read.
+     */
+    private void wakeWaiters() {
+        if ( waiters.isEmpty() || !wakeScheduled.compareAndSet(false, true) ) {
+            return;
+        }
+        notifier.execute(() -> {
+            wakeScheduled.set(false);
+            Map<Long, List<LoanEvent>> reads = new HashMap<>();
+            for ( Waiter waiter : new ArrayList<>(waiters) ) {
+                if ( waiter.future.isDone() ) {
+                    continue;
+                }
+                List<LoanEvent> events = reads.computeIfAbsent(waiter.after, after -> read(after, waiter.limit));
+                if ( !events.isEmpty() ) {
+                    waiter.future.complete(events.subList(0, Math.min(waiter.limit, events.size())));
+                }
+            }
+        });
+    }
+
+    private static final class Waiter {
+        private final long after;
+        private final int limit;
+        private final CompletableFuture<List<LoanEvent>> future = new CompletableFuture<>();
+
+        private Waiter(long after, int limit) {
+            this.after = after;
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.gs.api.service.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Acknowledges loan returns once they are in the {@link ReturnJournal} and applies them to the database
+ * later, coalesced per loan: only the latest state of each loan is written by {@link #flush(Consumer)}.
+ * Returns left in the journal by a crash are queued again on startup.
+ * <p>
+ * Until a return is flushed the loan still reads as open, so the book cannot be loaned again for up
+ * to one flush interval.
+ */
+@Component
+public class LoanReturnWriteBehind {
+
+    private final ReturnJournal journal;
+    private final ConcurrentMap<Long, Boolean> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoanReturnWriteBehind(@Value("${application.loans.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${application.loans.write-behind.journal:data/loan-returns.journal}") String file,
+                                 @Value("${application.loans.write-behind.capacity:16777216}") int capacity,
+                                 @Value("${application.loans.write-behind.sync:true}") boolean sync) {
+        this(enabled ? new ReturnJournal(Paths.get(file), capacity, sync) : null);
+    }
+
+    public LoanReturnWriteBehind(ReturnJournal journal) {
+        this.journal = journal;
+        if ( journal != null ) {
+            pending.putAll(journal.unapplied());
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Queues the return; {@code false} when disabled or the journal is full, the caller then writes it
+     * synchronously.
+     */
+    public boolean enqueue(long loanId, boolean returned) {
+        if ( journal == null ) {
+            return false;
+        }
+        // appended and queued under the journal lock, so every record before position() is in pending
+        synchronized ( journal ) {
+            if ( !journal.append(loanId, returned) ) {
+                return false;
+            }
+            pending.put(loanId, returned);
+        }
+        return true;
+    }
+
+    /**
+     * Hands the queued returns to {@code writer} in one call and checkpoints the journal once it returned.
+     * When the writer throws, everything stays queued for the next flush. A loan queued again while the
+     * writer runs stays queued with its newer state, and its record stays past the checkpoint.
+     */
+    public int flush(Consumer<Map<Long, Boolean>> writer) {
+        if ( journal == null ) {
+            return 0;
+        }
+        int position;
+        Map<Long, Boolean> returns;
+        // position and copy taken together, so every record before position is in the copy
+        synchronized ( journal ) {
+            position = journal.position();
+            returns = new HashMap<>(pending);
+        }
+        if ( !returns.isEmpty() ) {
+            writer.accept(returns);
+            returns.forEach((loanId, returned) -> pending.remove(loanId, returned));
+        }
+        journal.checkpoint(position);
+        return returns.size();
+    }
+
+    public int pending() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if ( journal != null ) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.gs.api.service.support;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from positive {@code long} keys to non-zero {@code long} values, stored in two
+ * parallel primitive arrays: no boxing, no entry objects, about 32 bytes per mapping at the lowest load.
+ * Removal shifts the following entries back instead of leaving tombstones.
+ * <p>
+ * Not thread-safe; {@code 0} is both the free-slot marker and the "no value" answer of {@link #get(long)}.
+ */
+public class LongLongMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    public LongLongMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * The value of {@code key}, or {@code 0}.
+     */
+    public long get(long key) {
+        for ( int slot = slot(key); ; slot = (slot + 1) & mask ) {
+            long found = keys[slot];
+            if ( found == key ) {
+                return values[slot];
+            }
+            if ( found == 0 ) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Maps {@code key} to {@code value}; returns the previous value, or {@code 0}.
+     */
+    public long put(long key, long value) {
+        if ( key <= 0 || value == 0 ) {
+            throw new IllegalArgumentException("Keys must be positive and values non-zero: " + key + "=" + value);
+        }
+        int slot = slot(key);
+        while ( keys[slot] != 0 ) {
+            if ( keys[slot] == key ) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if ( ++size > (mask + 1) * 3 / 4 ) {
+            rehash((mask + 1) * 2);
+        }
+        return 0;
+    }
+
+    /**
+     * Removes {@code key}; returns its value, or {@code 0}.
+     */
+    public long remove(long key) {
+        return remove(key, 0);
+    }
+
+    /**
+     * Removes {@code key} only while it maps to {@code expected} (any value when {@code 0}); returns the
+     * removed value, or {@code 0}.
+     */
+    public long remove(long key, long expected) {
+        for ( int slot = slot(key); ; slot = (slot + 1) & mask ) {
+            long found = keys[slot];
+            if ( found == 0 ) {
+                return 0;
+            }
+            if ( found == key ) {
+                long value = values[slot];
+                if ( expected != 0 && value != expected ) {
+                    return 0;
+                }
+                shiftBack(slot);
+                size--;
+                return value;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    /**
+     * Backward-shift deletion: moves later entries of the probe run into the hole when their home slot
+     * does not lie between the hole and their current slot.
+     */
+    private void shiftBack(int hole) {
+        int slot = hole;
+        while ( true ) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if ( key == 0 ) {
+                break;
+            }
+            int home = slot(key);
+            if ( ((slot - home) & mask) >= ((slot - hole) & mask) ) {
+                keys[hole] = key;
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = 0;
+    }
+
+    private int slot(long key) {
+        // murmur3 finalizer, ids are sequential
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for ( int i = 0; i < oldKeys.length; i++ ) {
+            if ( oldKeys[i] != 0 ) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while ( capacity * 3 / 4 < expected ) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,117 @@
+package com.gs.api.service.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans an id range in parallel: {@code [min, max]} is cut into {@code partitions} contiguous chunks
+ * that are queried on a dedicated {@link ForkJoinPool}, each in its own read-only transaction, and the
+ * results are concatenated in id order.
+ * <p>
+ * Every worker holds a connection while its chunk runs, so {@code parallelism} must stay below the
+ * connection pool size. Partitions are split in halves until a single chunk is left; more partitions
+ * than workers lets fast chunks make room for slow ones.
+ */
+@Component
+public class PartitionedScan {
+
+    private final TransactionTemplate readOnly;
+    private final boolean enabled;
+    private final int partitions;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public PartitionedScan(PlatformTransactionManager transactionManager,
+                           @Value("${application.loans.overdue-scan.partitioned:false}") boolean enabled,
+                           @Value("${application.loans.overdue-scan.partitions:16}") int partitions,
+                           @Value("${application.loans.overdue-scan.parallelism:4}") int parallelism) {
+        this(readOnly(transactionManager), enabled, partitions, parallelism);
+    }
+
+    public PartitionedScan(TransactionTemplate readOnly, boolean enabled, int partitions, int parallelism) {
+        this.readOnly = readOnly;
+        this.enabled = enabled;
+        this.partitions = Math.max(1, partitions);
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs {@code query} once per chunk of {@code [min, max]}, bounds given as {@code [from, to)}.
+     */
+    public <T> List<T> scan(long min, long max, RangeQuery<T> query) {
+        if ( max < min ) {
+            return Collections.emptyList();
+        }
+        long span = max - min + 1;
+        int chunks = (int) Math.min(partitions, span);
+        return pool.invoke(new Chunk<>(query, min, span, chunks, 0, chunks));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    @FunctionalInterface
+    public interface RangeQuery<T> {
+
+        List<T> query(long from, long to);
+    }
+
+    private final class Chunk<T> extends RecursiveTask<List<T>> {
+
+        private final RangeQuery<T> query;
+        private final long min;
+        private final long span;
+        private final int chunks;
+        private final int first;
+        private final int last;
+
+        private Chunk(RangeQuery<T> query, long min, long span, int chunks, int first, int last) {
+            this.query = query;
+            this.min = min;
+            this.span = span;
+            this.chunks = chunks;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if ( last - first == 1 ) {
+                long from = min + span * first / chunks;
+                long to = min + span * last / chunks;
+                List<T> rows = readOnly != null
+                        ? readOnly.execute(status -> query.query(from, to))
+                        : query.query(from, to);
+                return rows != null ? rows : Collections.emptyList();
+            }
+            int middle = (first + last) >>> 1;
+            Chunk<T> right = new Chunk<>(query, min, span, chunks, middle, last);
+            right.fork();
+            List<T> merged = new ArrayList<>(new Chunk<>(query, min, span, chunks, first, middle).compute());
+            merged.addAll(right.join());
+            return merged;
+        }
+    }
+}
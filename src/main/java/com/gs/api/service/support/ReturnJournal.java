@@ -0,0 +1,120 @@
+package com.gs.api.service.support;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fixed-size, memory-mapped append log of loan returns.
+ * <p>
+ * The header holds the position up to which records were applied to the database and the current
+ * epoch; every record is {@code loan id, returned flag, epoch}. Records are read from the checkpoint on
+ * until the first one not stamped with the current epoch, so stale bytes of an earlier round never
+ * replay. Once everything is applied the log rewinds: the epoch changes first, then the checkpoint, so
+ * a crash in between replays nothing.
+ * <p>
+ * With {@code sync} every append is forced to disk before it is acknowledged.
+ */
+public class ReturnJournal implements AutoCloseable {
+
+    static final int HEADER = 12;
+    static final int RECORD = 13;
+
+    private static final int CHECKPOINT_AT = 0;
+    private static final int EPOCH_AT = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean sync;
+    private int epoch;
+    private int position;
+
+    public ReturnJournal(Path file, int capacity, boolean sync) {
+        this.sync = sync;
+        try {
+            if ( file.getParent() != null ) {
+                Files.createDirectories(file.getParent());
+            }
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int size = HEADER + Math.max(1, (capacity - HEADER) / RECORD) * RECORD;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        } catch ( IOException e ) {
+            throw new UncheckedIOException("Cannot open return journal " + file, e);
+        }
+        this.epoch = buffer.getInt(EPOCH_AT) == 0 ? 1 : buffer.getInt(EPOCH_AT);
+        int checkpoint = (int) buffer.getLong(CHECKPOINT_AT);
+        this.position = checkpoint < HEADER ? HEADER : checkpoint;
+        while ( position + RECORD <= buffer.limit() && buffer.getInt(position + 9) == epoch ) {
+            position += RECORD;
+        }
+        if ( checkpoint < HEADER ) {
+            buffer.putLong(CHECKPOINT_AT, HEADER);
+            buffer.putInt(EPOCH_AT, epoch);
+        }
+    }
+
+    /**
+     * Appends a return; {@code false} when the journal is full.
+     */
+    public synchronized boolean append(long loanId, boolean returned) {
+        if ( position + RECORD > buffer.limit() ) {
+            return false;
+        }
+        buffer.putLong(position, loanId);
+        buffer.put(position + 8, (byte) (returned ? 1 : 0));
+        buffer.putInt(position + 9, epoch);
+        position += RECORD;
+        if ( sync ) {
+            buffer.force();
+        }
+        return true;
+    }
+
+    public synchronized int position() {
+        return position;
+    }
+
+    /**
+     * Latest state of every loan with a record after the checkpoint, in first-appended order.
+     */
+    public synchronized Map<Long, Boolean> unapplied() {
+        Map<Long, Boolean> returns = new LinkedHashMap<>();
+        for ( int at = (int) buffer.getLong(CHECKPOINT_AT); at < position; at += RECORD ) {
+            returns.put(buffer.getLong(at), buffer.get(at + 8) == 1);
+        }
+        return returns;
+    }
+
+    /**
+     * Records that everything before {@code applied} reached the database.
+     */
+    public synchronized void checkpoint(int applied) {
+        if ( applied == position ) {
+            epoch = epoch == Integer.MAX_VALUE ? 1 : epoch + 1;
+            buffer.putInt(EPOCH_AT, epoch);
+            buffer.force();
+            buffer.putLong(CHECKPOINT_AT, HEADER);
+            position = HEADER;
+        } else {
+            buffer.putLong(CHECKPOINT_AT, applied);
+        }
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        buffer.force();
+        try {
+            channel.close();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
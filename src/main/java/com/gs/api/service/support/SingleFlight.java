@@ -0,0 +1,124 @@
+package com.gs.api.service.support;
+
+import com.gs.api.config.datasource.ReplicaLagGuard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for a key runs the query, callers arriving
+ * while it is in flight wait for and share its result (or exception). Nothing is cached once the call
+ * completes.
+ * <p>
+ * Like {@link CountCache}, a committed write to a region bumps its generation, so a reader that arrives
+ * after the commit never joins a query started before it. Callers inside a read-write transaction
+ * always run their own query, as they must see their own uncommitted changes. With replica routing, a
+ * caller the {@link ReplicaLagGuard} keeps on the primary only shares reads with other such callers.
+ * <p>
+ * Waiting callers can be interrupted, so a query timeout frees them even while the leader is stuck.
+ * <p>
+ * Shared results are the same instances for every caller and must be treated as read-only.
+ */
+@Component
+public class SingleFlight {
+
+    public static final String BOOKS = "books";
+    public static final String LOANS = "loans";
+
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Optional<ReplicaLagGuard> lagGuard;
+
+    public SingleFlight() {
+        this(Optional.empty());
+    }
+
+    @Autowired
+    public SingleFlight(Optional<ReplicaLagGuard> lagGuard) {
+        this.lagGuard = lagGuard;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String region, String key, Supplier<T> query) {
+        if ( TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly() ) {
+            return query.get();
+        }
+        String flightKey = flightKey(region, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+        if ( leader != null ) {
+            return (T) await(leader);
+        }
+        try {
+            T result = query.get();
+            flight.complete(result);
+            return result;
+        } catch ( RuntimeException | Error e ) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Stops sharing in-flight reads of the region with new callers once the surrounding transaction commits.
+     */
+    public void invalidate(String region) {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation(region).incrementAndGet();
+                }
+            });
+        } else {
+            generation(region).incrementAndGet();
+        }
+    }
+
+    /**
+     * Number of callers currently waiting for the in-flight read of the key.
+     */
+    int waiting(String region, String key) {
+        CompletableFuture<Object> flight = inFlight.get(flightKey(region, key));
+        return flight != null ? flight.getNumberOfDependents() : 0;
+    }
+
+    private String flightKey(String region, String key) {
+        boolean primary = lagGuard.isPresent() && !lagGuard.get().isReplicaSafe();
+        return region + '|' + generation(region).get() + '|' + (primary ? "primary" : "replica") + '|' + key;
+    }
+
+    private Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared read", e);
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private AtomicLong generation(String region) {
+        return generations.computeIfAbsent(region, r -> new AtomicLong());
+    }
+}
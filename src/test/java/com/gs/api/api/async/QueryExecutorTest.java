@@ -0,0 +1,76 @@
+package com.gs.api.api.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryExecutorTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    QueryExecutor queryExecutor;
+
+    @AfterEach
+    public void tearDown() {
+        queryExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should reject queries with 503 once the pool and its queue are full")
+    public void rejectWhenSaturated() throws InterruptedException {
+        queryExecutor = new QueryExecutor(pool(1, 0), null, Duration.ofSeconds(5), true, registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        DeferredResult<String> running = queryExecutor.submit(() -> {
+            await(release);
+            return "done";
+        });
+        DeferredResult<String> rejected = queryExecutor.submit(() -> "never");
+        release.countDown();
+
+        assertThat(rejected.getResult()).isInstanceOf(ResponseStatusException.class);
+        assertThat(((ResponseStatusException) rejected.getResult()).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(registry.counter("api.query.rejected", "reason", "saturated").count()).isEqualTo(1);
+        while ( !running.hasResult() ) {
+            Thread.sleep(5);
+        }
+        assertThat(running.getResult()).isEqualTo("done");
+    }
+
+    @Test
+    @DisplayName("Should run the query on the calling thread when async handling is disabled")
+    public void runInlineWhenDisabled() {
+        queryExecutor = new QueryExecutor(pool(1, 0), null, Duration.ofSeconds(5), false, registry);
+        Thread caller = Thread.currentThread();
+
+        DeferredResult<Boolean> result = queryExecutor.submit(() -> Thread.currentThread() == caller);
+
+        assertThat(result.getResult()).isEqualTo(true);
+    }
+
+    private ThreadPoolTaskExecutor pool(int size, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.gs.api.api.dto;
 
 import com.gs.api.config.ModelMapperConfig;
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -39,6 +40,7 @@ class LoanDTOTest {
         // then
         assertThat(map.getId()).isEqualTo(dto.getId());
         assertThat(map.getBookIsbn()).isEqualTo(dto.getBookIsbn());
+        assertThat(map.getCustomerId()).isEqualTo(dto.getCustomerId());
         assertThat(map.getCustomer()).isEqualTo(dto.getCustomer());
         assertThat(map.getCustomerEmail()).isEqualTo(dto.getCustomerEmail());
     }
@@ -55,8 +57,9 @@ class LoanDTOTest {
 
         // then
         assertThat(map.getId()).isEqualTo(loan.getId());
-        assertThat(map.getCustomer()).isEqualTo(loan.getCustomer());
-        assertThat(map.getCustomerEmail()).isEqualTo(loan.getCustomerEmail());
+        assertThat(map.getCustomer().getId()).isEqualTo(loan.getCustomer().getId());
+        assertThat(map.getCustomer().getName()).isEqualTo(loan.getCustomer().getName());
+        assertThat(map.getCustomer().getEmail()).isEqualTo(loan.getCustomer().getEmail());
         assertThat(map.getBook().getIsbn()).isEqualTo(loan.getBook().getIsbn());
         assertThat(map.getLoanDate()).isNull();
         assertThat(map.isReturned()).isFalse();
@@ -66,6 +69,7 @@ class LoanDTOTest {
         return LoanDTO.builder()
                 .id(1L)
                 .bookIsbn("123")
+                .customerId(1L)
                 .customer("John")
                 .customerEmail("john@mail.com")
                 .build();
@@ -74,11 +78,10 @@ class LoanDTOTest {
     private Loan createLoan() {
         return Loan.builder()
                 .id(1L)
-                .customer("John")
+                .customer(Customer.builder().id(1L).name("John").email("john@mail.com").build())
                 .loanDate(LOAN_DATE)
                 .book(createBook())
                 .returned(false)
-                .customerEmail("john@mail.com")
                 .build();
     }
 
@@ -0,0 +1,121 @@
+package com.gs.api.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageDTOTest {
+
+    private static final int ITERATIONS = 2_000;
+
+    @Test
+    @DisplayName("Should expose only content and totals of a Page")
+    public void mapPageToPageDTO() {
+        // given
+        Page<BookDTO> page = createPage();
+
+        // when
+        PageDTO<BookDTO> dto = PageDTO.of(page);
+
+        // then
+        assertThat(dto.getContent()).hasSize(100);
+        assertThat(dto.getPage()).isEqualTo(1);
+        assertThat(dto.getSize()).isEqualTo(100);
+        assertThat(dto.isHasNext()).isTrue();
+        assertThat(dto.getTotalElements()).isEqualTo(1_000L);
+        assertThat(dto.getTotalPages()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should serialize a page smaller than PageImpl, and smaller still as Smile, CBOR or gzip")
+    public void payloadPerPage() throws IOException {
+        // given
+        Page<BookDTO> page = createPage();
+        PageDTO<BookDTO> dto = PageDTO.of(page);
+        ObjectMapper json = new ObjectMapper();
+
+        // when
+        byte[] pageImplJson = json.writeValueAsBytes(page);
+        byte[] dtoJson = json.writeValueAsBytes(dto);
+        byte[] dtoSmile = new ObjectMapper(new SmileFactory()).writeValueAsBytes(dto);
+        byte[] dtoCbor = new ObjectMapper(new CBORFactory()).writeValueAsBytes(dto);
+        byte[] dtoJsonGzip = gzip(dtoJson);
+
+        // then
+        assertThat(dtoJson.length).isLessThan(pageImplJson.length);
+        assertThat(dtoSmile.length).isLessThan(dtoJson.length);
+        assertThat(dtoCbor.length).isLessThan(dtoJson.length);
+        assertThat(dtoJsonGzip.length).isLessThan(dtoJson.length);
+    }
+
+    /**
+     * Run with {@code -Dbenchmark.page-payload=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.page-payload", matches = "true")
+    @DisplayName("Benchmark payload bytes and serialization time per page")
+    public void benchmarkPayloadPerPage() throws IOException {
+        Page<BookDTO> page = createPage();
+        PageDTO<BookDTO> dto = PageDTO.of(page);
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+        report("PageImpl json", json.writeValueAsBytes(page).length, time(json, page));
+        report("PageDTO json", json.writeValueAsBytes(dto).length, time(json, dto));
+        report("PageDTO json+gzip", gzip(json.writeValueAsBytes(dto)).length, -1);
+        report("PageDTO smile", smile.writeValueAsBytes(dto).length, time(smile, dto));
+        report("PageDTO cbor", cbor.writeValueAsBytes(dto).length, time(cbor, dto));
+    }
+
+    private long time(ObjectMapper mapper, Object value) throws IOException {
+        for ( int i = 0; i < ITERATIONS; i++ ) {
+            mapper.writeValueAsBytes(value);
+        }
+        long start = System.nanoTime();
+        for ( int i = 0; i < ITERATIONS; i++ ) {
+            mapper.writeValueAsBytes(value);
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private void report(String format, int bytes, long nanosPerPage) {
+        System.out.printf("%-18s %7d bytes %9s ns/page%n",
+                format, bytes, nanosPerPage < 0 ? "-" : Long.toString(nanosPerPage));
+    }
+
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( GZIPOutputStream gzip = new GZIPOutputStream(out) ) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private Page<BookDTO> createPage() {
+        List<BookDTO> books = LongStream.rangeClosed(1, 100)
+                .mapToObj(id -> BookDTO.builder()
+                        .id(id)
+                        .isbn("978-" + id)
+                        .title("As aventuras " + id)
+                        .author("Fulano")
+                        .build())
+                .collect(Collectors.toList());
+        return new PageImpl<>(books, PageRequest.of(1, 100), 1_000);
+    }
+}
@@ -0,0 +1,193 @@
+package com.gs.api.api.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.api.api.dto.LoanDTO;
+import com.gs.api.api.resource.LoanController;
+import com.gs.api.config.AsyncQueryConfig;
+import com.gs.api.config.IdempotencyConfig;
+import com.gs.api.config.ModelMapperConfig;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.service.BookService;
+import com.gs.api.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LoanController.class)
+@AutoConfigureMockMvc
+@Import({ModelMapperConfig.class, IdempotencyConfig.class, AsyncQueryConfig.class})
+class IdempotencyFilterTest {
+
+    static final String LOAN_API = "/api/loans";
+    static final String CLIENT = "ip:127.0.0.1:";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    InMemoryIdempotencyStore store;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanService loanService;
+
+    @Test
+    @DisplayName("Should replay the stored response for a repeated Idempotency-Key")
+    public void replayRepeatedKey() throws Exception {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        given(bookService.getBookByIsbn(anyString())).willReturn(Optional.of(book));
+        given(loanService.save(any(Loan.class))).willReturn(createLoan(book));
+
+        // when
+        MockHttpServletResponse first = mvc.perform(createLoanRequest("key-1"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse();
+        MockHttpServletResponse replay = mvc.perform(createLoanRequest("key-1"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true"))
+                .andReturn().getResponse();
+
+        // then
+        assertThat(replay.getContentAsString()).isEqualTo(first.getContentAsString());
+        verify(bookService, times(1)).getBookByIsbn(anyString());
+        verify(loanService, times(1)).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a request whose Idempotency-Key is still in flight")
+    public void rejectInFlightKey() throws Exception {
+        // given
+        store.reserve(CLIENT + LOAN_API + ":key-2");
+
+        // when
+        mvc.perform(createLoanRequest("key-2"))
+                .andExpect(status().isConflict());
+
+        // then
+        verify(loanService, never()).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Should not store responses of failed requests")
+    public void releaseKeyOnServerError() throws Exception {
+        // given
+        given(bookService.getBookByIsbn(anyString())).willThrow(new IllegalStateException("database down"));
+
+        // when
+        Throwable throwable = catchThrowable(
+                () -> mvc.perform(createLoanRequest("key-3")));
+
+        // then
+        assertThat(throwable).isNotNull();
+        assertThat(store.find(CLIENT + LOAN_API + ":key-3")).isEmpty();
+        assertThat(store.reserve(CLIENT + LOAN_API + ":key-3")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject a repeated Idempotency-Key sent with a different body")
+    public void rejectKeyReusedForDifferentBody() throws Exception {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        given(bookService.getBookByIsbn(anyString())).willReturn(Optional.of(book));
+        given(loanService.save(any(Loan.class))).willReturn(createLoan(book));
+        mvc.perform(createLoanRequest("key-4")).andExpect(status().isCreated());
+
+        // when
+        mvc.perform(createLoanRequest("key-4", "other@mail"))
+                .andExpect(status().isUnprocessableEntity());
+
+        // then
+        verify(loanService, times(1)).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Should not replay another client's response for the same Idempotency-Key")
+    public void scopeKeyByClient() throws Exception {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        given(bookService.getBookByIsbn(anyString())).willReturn(Optional.of(book));
+        given(loanService.save(any(Loan.class))).willReturn(createLoan(book));
+        mvc.perform(createLoanRequest("key-5")).andExpect(status().isCreated());
+
+        // when
+        mvc.perform(createLoanRequest("key-5").with(request -> {
+                    request.setRemoteAddr("10.0.0.2");
+                    return request;
+                }))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED));
+
+        // then
+        verify(loanService, times(2)).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Should evict completed responses before in-flight keys when full")
+    public void keepInFlightKeysOnEviction() {
+        // given
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofHours(1), 2);
+        store.reserve("in-flight");
+        store.reserve("done");
+        store.complete("done", new StoredResponse(201, null, new byte[0], "hash"));
+
+        // when
+        store.reserve("next");
+
+        // then
+        assertThat(store.reserve("in-flight")).isFalse();
+        assertThat(store.find("done")).isEmpty();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    private MockHttpServletRequestBuilder createLoanRequest(String key) throws Exception {
+        return createLoanRequest(key, "customer@mail");
+    }
+
+    private MockHttpServletRequestBuilder createLoanRequest(String key, String email) throws Exception {
+        LoanDTO dto = LoanDTO.builder().bookIsbn("123").customer("Fulano").customerEmail(email).build();
+        return MockMvcRequestBuilders
+                .post(LOAN_API)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dto));
+    }
+
+    private Loan createLoan(Book book) {
+        return Loan.builder()
+                .id(1L)
+                .customer(Customer.builder().id(1L).name("Fulano").email("customer@mail").build())
+                .book(book)
+                .loanDate(LocalDate.now())
+                .build();
+    }
+}
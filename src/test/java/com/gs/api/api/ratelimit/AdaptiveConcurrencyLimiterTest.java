@@ -0,0 +1,53 @@
+package com.gs.api.api.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    @DisplayName("Should reject work beyond the current limit")
+    public void rejectBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, TARGET, 0.5);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should halve the limit when latency is above target")
+    public void decreaseOnSlowRequests() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, TARGET, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(TARGET * 2);
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should grow the limit additively when latency is below target")
+    public void increaseOnFastRequests() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, TARGET, 0.5);
+
+        for ( int i = 0; i < 4; i++ ) {
+            limiter.tryAcquire();
+            limiter.release(TARGET / 2);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        for ( int i = 0; i < 10; i++ ) {
+            limiter.tryAcquire();
+            limiter.release(TARGET / 2);
+        }
+        assertThat(limiter.getLimit()).isBetween(5, 7);
+    }
+}
@@ -0,0 +1,92 @@
+package com.gs.api.api.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.api.api.ClientIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 2, () -> TimeUnit.SECONDS.toNanos(100));
+    AdaptiveConcurrencyLimiter concurrencyLimiter =
+            new AdaptiveConcurrencyLimiter(10, 1, 10, TimeUnit.SECONDS.toNanos(1), 0.9);
+    RateLimitFilter filter = new RateLimitFilter(rateLimiter, concurrencyLimiter,
+            new ClientIdentity("known-key"), new ObjectMapper(), new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Should limit unknown API keys by remote address")
+    public void limitUnknownKeysByAddress() throws Exception {
+        assertThat(perform(UUID.randomUUID().toString()).getStatus()).isEqualTo(200);
+        assertThat(perform(UUID.randomUUID().toString()).getStatus()).isEqualTo(200);
+
+        assertThat(perform(UUID.randomUUID().toString()).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Should give configured API keys their own bucket")
+    public void limitKnownKeysByKey() throws Exception {
+        perform(null);
+        perform(null);
+
+        assertThat(perform(null).getStatus()).isEqualTo(429);
+        assertThat(perform("known-key").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should hold the concurrency permit until an async request completes")
+    public void holdPermitWhileAsyncInFlight() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/loans");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertThat(concurrencyLimiter.getInFlight()).isEqualTo(1);
+        request.getAsyncContext().complete();
+        assertThat(concurrencyLimiter.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep parked long-polls out of the concurrency limit")
+    public void releaseParkedRequests() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0, 0.5);
+        RateLimitFilter filter = new RateLimitFilter(new TokenBucketRateLimiter(100, 100), limiter,
+                new ClientIdentity(), new ObjectMapper(), new SimpleMeterRegistry());
+        for ( int i = 0; i < 5; i++ ) {
+            MockHttpServletRequest poll = new MockHttpServletRequest("GET", "/api/events");
+            poll.setAsyncSupported(true);
+            filter.doFilter(poll, new MockHttpServletResponse(), (req, res) -> {
+                RateLimitFilter.park((HttpServletRequest) req);
+                req.startAsync();
+            });
+            if ( i % 2 == 0 ) {
+                poll.getAsyncContext().complete();
+            }
+        }
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse perform(String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        if ( apiKey != null ) {
+            request.addHeader(ClientIdentity.API_KEY, apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gs.api.api.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, clock::get);
+
+    @Test
+    @DisplayName("Should allow a burst and then ask the client to wait")
+    public void allowBurstThenThrottle() {
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isZero();
+
+        long wait = limiter.tryAcquire("a");
+
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    @DisplayName("Should refill tokens as time passes")
+    public void refillOverTime() {
+        for ( int i = 0; i < 3; i++ ) {
+            limiter.tryAcquire("a");
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep a separate bucket per client and evict idle ones")
+    public void separateBucketsPerClient() {
+        for ( int i = 0; i < 3; i++ ) {
+            limiter.tryAcquire("a");
+        }
+
+        assertThat(limiter.tryAcquire("b")).isZero();
+        assertThat(limiter.trackedClients()).isEqualTo(2);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.evictIdle()).isEqualTo(2);
+    }
+}
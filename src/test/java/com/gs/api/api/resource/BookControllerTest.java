@@ -1,15 +1,22 @@
 package com.gs.api.api.resource;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.gs.api.api.dto.BookDTO;
+import com.gs.api.config.AsyncQueryConfig;
 import com.gs.api.config.ModelMapperConfig;
 import com.gs.api.exception.BusinessException;
+import com.gs.api.exception.NotFoundException;
+import com.gs.api.exception.VersionConflictException;
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
 import com.gs.api.service.BookService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,17 +27,25 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -38,7 +53,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
-@Import(ModelMapperConfig.class)
+@Import({ModelMapperConfig.class, AsyncQueryConfig.class})
 public class BookControllerTest {
 
     static String BOOK_API = "/api/books";
@@ -186,7 +201,8 @@ public class BookControllerTest {
 
         mvc
                 .perform(request)
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("errors[0]").value("Book not found"));
     }
 
     @Test
@@ -197,12 +213,10 @@ public class BookControllerTest {
         BookDTO bookDTO = createNewBookDTO();
         String json = new ObjectMapper().writeValueAsString(bookDTO);
 
-        Book entity = createNewBook(id);
-        given(service.getById(id)).willReturn(Optional.of(entity));
         Book updatedBook = createNewBook(id);
         updatedBook.setTitle(bookDTO.getTitle());
         updatedBook.setAuthor(bookDTO.getAuthor());
-        given(service.save(Mockito.any())).willReturn(updatedBook);
+        given(service.update(Mockito.any())).willReturn(Optional.of(updatedBook));
 
         //when
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -220,6 +234,31 @@ public class BookControllerTest {
                 .andExpect(jsonPath("title").value(updatedBook.getTitle()));
     }
 
+    @Test
+    @DisplayName("Should return Conflict when updating a Book with a stale version")
+    public void returnConflictWhenUpdatingStaleBook() throws Exception {
+        //given
+        Long id = 1L;
+        BookDTO bookDTO = createNewBookDTO();
+        bookDTO.setVersion(3L);
+        String json = new ObjectMapper().writeValueAsString(bookDTO);
+        given(service.update(Mockito.any()))
+                .willThrow(new VersionConflictException("Book was modified by another request"));
+
+        //when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/").concat(id.toString()))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("errors[0]").value("Book was modified by another request"));
+        verify(service).update(argThat(book -> book.getId().equals(id) && book.getVersion().equals(3L)));
+    }
+
     @Test
     @DisplayName("Should return Not Found when try to update an inexisting Book")
     public void returnNotFoundWhenUpdatingNonExistingBook() throws Exception {
@@ -228,7 +267,7 @@ public class BookControllerTest {
         BookDTO bookDTO = createNewBookDTO();
         bookDTO.setId(id);
         String json = new ObjectMapper().writeValueAsString(bookDTO);
-        given(service.getById(id)).willReturn(Optional.empty());
+        given(service.update(Mockito.any())).willReturn(Optional.empty());
 
         //when
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -260,7 +299,7 @@ public class BookControllerTest {
 
         // then
         mvc
-                .perform(request)
+                .perform(asyncDispatch(mvc.perform(request).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(jsonPath("content[0].id").value(1))
@@ -270,13 +309,63 @@ public class BookControllerTest {
                 .andExpect(jsonPath("totalElements").value(1));
     }
 
+    @Test
+    @DisplayName("Should list Books as CBOR when requested")
+    public void shouldListBooksAsCbor() throws Exception {
+        //given
+        Book book = createNewBook(1L);
+        given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Collections.singletonList(book), PageRequest.of(0, 100), 1));
+
+        // when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=100"))
+                .accept("application/cbor");
+
+        // then
+        byte[] body = mvc
+                .perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        JsonNode page = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(page.get("content").get(0).get("isbn").asText()).isEqualTo("123");
+        assertThat(page.get("totalElements").asLong()).isEqualTo(1);
+        assertThat(page.has("pageable")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should list Books without totals when withTotal is false")
+    public void shouldListBooksWithoutTotals() throws Exception {
+        //given
+        Book book = createNewBook(1L);
+        given(service.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<>(Collections.singletonList(book), PageRequest.of(0, 1), true));
+
+        // when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=1&withTotal=false"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mvc
+                .perform(asyncDispatch(mvc.perform(request).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(true))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+        verify(service, never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
     @Test
     @DisplayName("List all Book's loans")
     public void listAllBookLoans() throws Exception {
         // given
         long id = 1L;
         Book book = createNewBook(id);
-        Loan loan = Loan.builder().id(1L).customer("Fulano").book(book).build();
+        Loan loan = Loan.builder().id(1L).customer(Customer.builder().name("Fulano").build()).book(book).build();
         given(service.getById(anyLong())).willReturn(Optional.of(book));
         given(service.getLoansByBook(any(Book.class), any(Pageable.class)))
                 .willReturn(
@@ -291,7 +380,7 @@ public class BookControllerTest {
 
         // then
         mvc
-                .perform(req)
+                .perform(asyncDispatch(mvc.perform(req).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(jsonPath("content[0].id").value(1))
@@ -316,13 +405,53 @@ public class BookControllerTest {
 
         // then
         mvc
-                .perform(req)
+                .perform(asyncDispatch(mvc.perform(req).andReturn()))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("errors", Matchers.hasSize(1)))
                 .andExpect(jsonPath("errors[0]").value("Book not found"));
     }
 
 
+    /**
+     * Run with {@code -Dbenchmark.error-paths=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.error-paths", matches = "true")
+    @DisplayName("Benchmark 404 and 400 responses")
+    public void benchmarkErrorPaths() throws Exception {
+        given(service.getById(Mockito.anyLong())).willReturn(Optional.empty());
+        MockHttpServletRequestBuilder notFound = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON);
+        MockHttpServletRequestBuilder invalid = MockMvcRequestBuilders
+                .post(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{}");
+
+        report("GET 404", throughput(() -> mvc.perform(notFound).andExpect(status().isNotFound())));
+        report("POST 400", throughput(() -> mvc.perform(invalid).andExpect(status().isBadRequest())));
+        report("new ResponseStatusException", throughput(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found")));
+        report("new NotFoundException", throughput(() -> new NotFoundException("Book not found")));
+    }
+
+    private long throughput(Callable<?> call) throws Exception {
+        for ( int i = 0; i < 5_000; i++ ) {
+            call.call();
+        }
+        int calls = 0;
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while ( System.nanoTime() < end ) {
+            call.call();
+            calls++;
+        }
+        return calls / 2;
+    }
+
+    private void report(String path, long perSecond) {
+        System.out.printf("%-28s %,10d /s%n", path, perSecond);
+    }
+
     private Book createNewBook(Long id) {
         return Book.builder().id(id).isbn("123").title("As aventuras").author("Fulano").build();
     }
@@ -0,0 +1,106 @@
+package com.gs.api.api.resource;
+
+import com.gs.api.config.ModelMapperConfig;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.service.CustomerService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = CustomerController.class)
+@AutoConfigureMockMvc
+@Import(ModelMapperConfig.class)
+public class CustomerControllerTest {
+
+    static final String CUSTOMER_API = "/api/customers";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    CustomerService service;
+
+    @Test
+    @DisplayName("List all Customer's loans")
+    public void listAllCustomerLoans() throws Exception {
+        // given
+        long id = 1L;
+        Customer customer = createCustomer(id);
+        Loan loan = Loan.builder()
+                .id(1L)
+                .customer(customer)
+                .book(Book.builder().id(1L).isbn("123").build())
+                .loanDate(LocalDate.now())
+                .build();
+        given(service.getById(anyLong())).willReturn(Optional.of(customer));
+        given(service.getLoansByCustomer(any(Customer.class), any(Pageable.class)))
+                .willReturn(new PageImpl<>(Collections.singletonList(loan), PageRequest.of(0, 10), 1));
+
+        // when
+        MockHttpServletRequestBuilder req = MockMvcRequestBuilders
+                .get(CUSTOMER_API.concat("/").concat(Long.toString(id)).concat("/loans"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mvc
+                .perform(req)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(1))
+                .andExpect(jsonPath("content[0].bookIsbn").value("123"))
+                .andExpect(jsonPath("content[0].customerId").value(1))
+                .andExpect(jsonPath("content[0].customer").value("Fulano"))
+                .andExpect(jsonPath("content[0].customerEmail").value("fulano@mail.com"))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Fails to list all customer's loans when customer doesnt exist")
+    public void failToListAllLoansWhenCustomerDoesntExist() throws Exception {
+        // given
+        given(service.getById(anyLong())).willReturn(Optional.empty());
+
+        // when
+        MockHttpServletRequestBuilder req = MockMvcRequestBuilders
+                .get(CUSTOMER_API.concat("/1/loans"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // then
+        mvc
+                .perform(req)
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("errors", Matchers.hasSize(1)))
+                .andExpect(jsonPath("errors[0]").value("Customer not found"));
+    }
+
+    private Customer createCustomer(Long id) {
+        return Customer.builder().id(id).name("Fulano").email("fulano@mail.com").build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.gs.api.api.resource;
+
+import com.gs.api.config.ModelMapperConfig;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.service.support.LoanEventLog;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = EventController.class)
+@AutoConfigureMockMvc
+@Import(ModelMapperConfig.class)
+public class EventControllerTest {
+
+    static final String EVENT_API = "/api/events";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LoanEventLog eventLog;
+
+    @Test
+    @DisplayName("Should return the events after the given offset")
+    public void pollEvents() throws Exception {
+        // given
+        LoanEvent event = LoanEvent.builder()
+                .id(8L)
+                .type(LoanEvent.Type.LOAN_CREATED)
+                .loanId(3L)
+                .bookIsbn("123")
+                .createdAt(Instant.now())
+                .build();
+        given(eventLog.poll(7L, 100)).willReturn(CompletableFuture.completedFuture(Collections.singletonList(event)));
+
+        // when
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(EVENT_API.concat("?after=7")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("events", Matchers.hasSize(1)))
+                .andExpect(jsonPath("events[0].type").value("LOAN_CREATED"))
+                .andExpect(jsonPath("events[0].loanId").value(3))
+                .andExpect(jsonPath("next").value(8));
+    }
+
+    @Test
+    @DisplayName("Should return an empty batch keeping the offset when nothing changes before the timeout")
+    public void pollTimesOut() throws Exception {
+        // given
+        given(eventLog.poll(anyLong(), anyInt())).willReturn(new CompletableFuture<>());
+
+        // when
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(EVENT_API.concat("?after=5&waitMillis=50")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for ( AsyncListener listener : asyncContext.getListeners() ) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        // then
+        mvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("events", Matchers.hasSize(0)))
+                .andExpect(jsonPath("next").value(5));
+    }
+}
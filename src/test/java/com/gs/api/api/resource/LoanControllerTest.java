@@ -4,9 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gs.api.api.dto.LoanDTO;
 import com.gs.api.api.dto.LoanFilterDTO;
 import com.gs.api.api.dto.ReturnedLoanDTO;
+import com.gs.api.config.AsyncQueryConfig;
 import com.gs.api.config.ModelMapperConfig;
 import com.gs.api.exception.BusinessException;
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
 import com.gs.api.service.BookService;
 import com.gs.api.service.LoanService;
@@ -37,6 +39,7 @@ import java.util.Collections;
 import java.util.Optional;
 
 import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -44,7 +47,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
 @AutoConfigureMockMvc
-@Import(ModelMapperConfig.class)
+@Import({ModelMapperConfig.class, AsyncQueryConfig.class})
 public class LoanControllerTest {
 
     static final String LOAN_API = "/api/loans";
@@ -84,8 +87,9 @@ public class LoanControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("id").value(loan.getId()))
                 .andExpect(jsonPath("bookIsbn").value(loan.getBook().getIsbn()))
-                .andExpect(jsonPath("customer").value(loan.getCustomer()))
-                .andExpect(jsonPath("customerEmail").value(loan.getCustomerEmail()));
+                .andExpect(jsonPath("customerId").value(loan.getCustomer().getId()))
+                .andExpect(jsonPath("customer").value(loan.getCustomer().getName()))
+                .andExpect(jsonPath("customerEmail").value(loan.getCustomer().getEmail()));
     }
 
     @Test
@@ -162,6 +166,29 @@ public class LoanControllerTest {
         verify(loanService, Mockito.times(1)).update(loan);
     }
 
+    @Test
+    @DisplayName("Should acknowledge a queued return without updating the loan")
+    public void queueLoanReturn() throws Exception {
+        // given
+        long id = 1L;
+        String json = new ObjectMapper().writeValueAsString(ReturnedLoanDTO.builder().returned(true).build());
+        given(loanService.queueReturn(id, true)).willReturn(true);
+
+        // when
+        MockHttpServletRequestBuilder req = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/").concat(Long.toString(id)))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // then
+        mvc
+                .perform(req)
+                .andExpect(status().isOk());
+        verify(loanService, never()).getById(anyLong());
+        verify(loanService, never()).update(any(Loan.class));
+    }
+
     @Test
     @DisplayName("Fails to update an inexisting Loan")
     public void failToUpdateLoan() throws Exception {
@@ -192,20 +219,20 @@ public class LoanControllerTest {
     public void shouldListBooksByFilter() throws Exception {
         //given
         Loan loan = createLoan(createBook());
-        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("123").customer("Fulano").build();
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("123").customerId(1L).build();
         BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
                 .willReturn(new PageImpl<>(Collections.singletonList(loan), PageRequest.of(0, 100), 1));
 
         // when
-        String queryString = String.format("?isbn=%s&customer=%s&page=0&size=100",
-                filter.getIsbn(), filter.getCustomer());
+        String queryString = String.format("?isbn=%s&customerId=%s&page=0&size=100",
+                filter.getIsbn(), filter.getCustomerId());
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(LOAN_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
         // then
         mvc
-                .perform(request)
+                .perform(asyncDispatch(mvc.perform(request).andReturn()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(jsonPath("content[0].id").value(1))
@@ -225,8 +252,7 @@ public class LoanControllerTest {
     private Loan createLoan(Book book) {
         return Loan.builder()
                 .id(1L)
-                .customer("Fulano")
-                .customerEmail("customer@mail")
+                .customer(Customer.builder().id(1L).name("Fulano").email("customer@mail").build())
                 .book(book).loanDate(LocalDate.now()).build();
     }
 }
@@ -0,0 +1,71 @@
+package com.gs.api.api.resource;
+
+import com.gs.api.config.ModelMapperConfig;
+import com.gs.api.model.report.OverdueBuckets;
+import com.gs.api.model.report.OverdueCount;
+import com.gs.api.model.report.OverdueReport;
+import com.gs.api.service.ReportService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ReportController.class)
+@AutoConfigureMockMvc
+@Import(ModelMapperConfig.class)
+public class ReportControllerTest {
+
+    static final String REPORT_API = "/api/reports";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReportService reportService;
+
+    @Test
+    @DisplayName("Should return the cached overdue report")
+    public void overdueReport() throws Exception {
+        // given
+        OverdueReport report = OverdueReport.builder()
+                .asOf(LocalDate.of(2000, 3, 1))
+                .generatedAt(Instant.now())
+                .byDaysLate(new OverdueBuckets(2, 1, 0))
+                .byBook(Collections.singletonList(new OverdueCount(1L, "123", 3)))
+                .byCustomer(Collections.singletonList(new OverdueCount(7L, "fulano@mail.com", 3)))
+                .build();
+        given(reportService.getOverdueReport()).willReturn(report);
+
+        // when / then
+        mvc
+                .perform(MockMvcRequestBuilders.get(REPORT_API.concat("/overdue")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("total").value(3))
+                .andExpect(jsonPath("byDaysLate.1-7").value(2))
+                .andExpect(jsonPath("byDaysLate.8-30").value(1))
+                .andExpect(jsonPath("byBook", Matchers.hasSize(1)))
+                .andExpect(jsonPath("byBook[0].label").value("123"))
+                .andExpect(jsonPath("byCustomer[0].id").value(7))
+                .andExpect(jsonPath("byCustomer[0].overdue").value(3));
+    }
+}
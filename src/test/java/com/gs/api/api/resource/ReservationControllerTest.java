@@ -0,0 +1,94 @@
+package com.gs.api.api.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.api.api.dto.ReservationDTO;
+import com.gs.api.config.ModelMapperConfig;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Reservation;
+import com.gs.api.service.BookService;
+import com.gs.api.service.ReservationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Optional;
+
+import static org.mockito.BDDMockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ReservationController.class)
+@AutoConfigureMockMvc
+@Import(ModelMapperConfig.class)
+public class ReservationControllerTest {
+
+    static final String RESERVATION_API = "/api/reservations";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReservationService reservationService;
+
+    @MockBean
+    BookService bookService;
+
+    @Test
+    @DisplayName("Should queue a Reservation for a loaned Book")
+    public void reserveLoanedBook() throws Exception {
+        // given
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Reservation waiting = Reservation.builder()
+                .id(9L)
+                .book(book)
+                .customer(Customer.builder().id(2L).name("Fulano").email("fulano@mail.com").build())
+                .status(Reservation.Status.WAITING)
+                .build();
+        given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        given(reservationService.reserve(any(Reservation.class))).willReturn(waiting);
+        given(reservationService.getPosition(waiting)).willReturn(2L);
+        ReservationDTO dto = ReservationDTO.builder().bookIsbn("123").customer("Fulano").customerEmail("fulano@mail.com").build();
+
+        // when
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(RESERVATION_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dto));
+
+        // then
+        mvc
+                .perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("id").value(9))
+                .andExpect(jsonPath("status").value("WAITING"))
+                .andExpect(jsonPath("position").value(2));
+    }
+
+    @Test
+    @DisplayName("Should return Not Found when cancelling an inexisting Reservation")
+    public void cancelInexistingReservation() throws Exception {
+        // given
+        given(reservationService.cancel(anyLong())).willReturn(Optional.empty());
+
+        // when / then
+        mvc
+                .perform(MockMvcRequestBuilders.delete(RESERVATION_API.concat("/1")))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("errors[0]").value("Reservation not found"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.gs.api.config;
+
+import com.gs.api.exception.BusinessException;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.service.LoanService;
+import com.gs.api.service.support.ActiveLoanIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "application.loans.active-index.enabled=true")
+@ActiveProfiles("test")
+class ActiveLoanIndexConcurrencyTest {
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    ActiveLoanIndex activeLoans;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Should refuse a second loan of a book whose first loan is committed but not yet in the index")
+    public void refuseSecondLoanDuringCommit() throws InterruptedException {
+        Book book = bookRepository.save(Book.builder().isbn("index-race").title("Race").author("Fulano").build());
+        // the scheduler builds the index; polling here too would run two rebuilds at once
+        for ( int wait = 0; !activeLoans.isReady() && wait < 100; wait++ ) {
+            Thread.sleep(100);
+        }
+        assertThat(activeLoans.isReady()).isTrue();
+        AtomicReference<Throwable> secondLoan = new AtomicReference<>();
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            loanService.save(loan(book, "first@race.com"));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // the book lock is released here, while the index still has the book free
+                    CompletableFuture.runAsync(() -> loanService.save(loan(book, "second@race.com")))
+                            .handle((result, error) -> secondLoan.compareAndSet(null, error))
+                            .join();
+                }
+            });
+            return null;
+        });
+
+        assertThat(secondLoan.get()).hasCauseInstanceOf(BusinessException.class)
+                .hasMessageContaining("Book already loaned");
+        assertThat(loanRepository.findAll())
+                .filteredOn(loan -> loan.getBook().getId().equals(book.getId()) && !loan.isReturned())
+                .hasSize(1);
+        assertThat(activeLoans.activeLoanOf(book.getId())).isPositive();
+    }
+
+    private static Loan loan(Book book, String email) {
+        return Loan.builder()
+                .book(book)
+                .customer(Customer.builder().name("Fulano").email(email).build())
+                .loanDate(LocalDate.now())
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.gs.api.config;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.CustomerRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.sharding.ShardedLoan;
+import com.gs.api.repository.sharding.ShardedLoanStore;
+import com.gs.api.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "application.loans.sharding.enabled=true",
+        "application.loans.sharding.shards[0].url=jdbc:h2:mem:loan-shard-0;DB_CLOSE_DELAY=-1",
+        "application.loans.sharding.shards[0].username=sa",
+        "application.loans.sharding.shards[1].url=jdbc:h2:mem:loan-shard-1;DB_CLOSE_DELAY=-1",
+        "application.loans.sharding.shards[1].username=sa"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoanShardingTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    ShardedLoanStore store;
+
+    @Test
+    @DisplayName("Should lend, list and return books through the loan shards")
+    public void loanThroughShards() throws Exception {
+        Book book = bookRepository.save(Book.builder().isbn("sharded-1").title("Sharded").author("Fulano").build());
+
+        mvc.perform(createLoan("sharded-1", "fulano@shard.com"))
+                .andExpect(status().isCreated());
+        mvc.perform(createLoan("sharded-1", "ciclano@shard.com"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(store.existsOpenLoan(book.getId())).isTrue();
+        assertThat(loanRepository.existsByBookIdAndReturnedIsFalse(book)).isFalse();
+        Long loanId = store.findByBookIsbnOrCustomerId("sharded-1", null,
+                PageRequest.of(0, 1)).getContent().get(0).getId();
+
+        perform(get("/api/loans").param("isbn", "sharded-1"))
+                .andExpect(jsonPath("$.content[0].id").value(loanId))
+                .andExpect(jsonPath("$.content[0].customerEmail").value("fulano@shard.com"));
+        perform(get("/api/books/" + book.getId() + "/loans"))
+                .andExpect(jsonPath("$.content[0].id").value(loanId));
+
+        mvc.perform(patch("/api/loans/" + loanId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"returned\":true}"))
+                .andExpect(status().isOk());
+
+        assertThat(store.existsOpenLoan(book.getId())).isFalse();
+        perform(get("/api/loans").param("isbn", "sharded-1").param("returned", "true"))
+                .andExpect(jsonPath("$.content[*].id", hasItem(loanId.intValue())));
+    }
+
+    @Test
+    @DisplayName("Should scan late loans on every shard")
+    public void scanLateLoansOnShards() {
+        ShardedLoan late = store.save(ShardedLoan.builder()
+                .bookId(Long.MAX_VALUE - 1)
+                .bookIsbn("sharded-late")
+                .customerId(Long.MAX_VALUE - 1)
+                .customerEmail("late@shard.com")
+                .loanDate(LocalDate.now().minusDays(1))
+                .build());
+
+        assertThat(loanService.getAllLateLoans()).extracting(Loan::getId).contains(late.getId());
+        assertThat(loanService.getAllCustomersWithLateLoans()).extracting("email").contains("late@shard.com");
+    }
+
+    @Test
+    @DisplayName("Should select the same late loans on the shards as in the loan table")
+    public void sameLateLoansAsLoanTable() {
+        LocalDate today = LocalDate.now();
+        Customer customer = customerRepository.save(Customer.builder().name("Fulano").email("parity@shard.com").build());
+        for ( int days = 0; days <= 6; days++ ) {
+            Book book = bookRepository.save(Book.builder().isbn("parity-" + days).title("Parity").author("Fulano").build());
+            boolean returned = days == 1;
+            loanRepository.save(Loan.builder().book(book).customer(customer).loanDate(today.minusDays(days)).returned(returned).build());
+            ShardedLoan sharded = store.save(ShardedLoan.builder()
+                    .bookId(book.getId())
+                    .bookIsbn(book.getIsbn())
+                    .customerId(customer.getId())
+                    .customerEmail(customer.getEmail())
+                    .loanDate(today.minusDays(days))
+                    .build());
+            if ( returned ) {
+                store.markReturned(sharded.getId());
+            }
+        }
+
+        List<String> fromTable = loanRepository.findNotReturnedLoansAfterDay(today, 3).stream()
+                .map(loan -> loan.getBook().getIsbn())
+                .filter(isbn -> isbn.startsWith("parity-"))
+                .collect(Collectors.toList());
+        List<String> fromShards = loanService.getAllLateLoans().stream()
+                .map(loan -> loan.getBook().getIsbn())
+                .filter(isbn -> isbn.startsWith("parity-"))
+                .collect(Collectors.toList());
+
+        assertThat(fromTable).containsExactlyInAnyOrder("parity-0", "parity-2");
+        assertThat(fromShards).containsExactlyInAnyOrderElementsOf(fromTable);
+    }
+
+    private MockHttpServletRequestBuilder createLoan(String isbn, String email) {
+        return post("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"bookIsbn\":\"" + isbn + "\",\"customer\":\"Fulano\",\"customerEmail\":\"" + email + "\"}");
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mvc.perform(request).andReturn();
+        return mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,128 @@
+package com.gs.api.config.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteRoutingDataSourceTest {
+
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+    ReplicaLagGuard lagGuard;
+
+    @BeforeEach
+    public void setup() {
+        DataSource primary = createNode("primary");
+        DataSource replica = createNode("replica");
+        lagGuard = new ReplicaLagGuard(Duration.ofMillis(200));
+        ReadWriteRoutingDataSource routing =
+                new ReadWriteRoutingDataSource(primary, Collections.singletonList(replica), lagGuard);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    @DisplayName("Read-only transactions go to the replica")
+    public void readOnlyGoesToReplica() {
+        String node = readOnly.execute(status -> currentNode());
+
+        assertThat(node).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Read-write transactions go to the primary")
+    public void readWriteGoesToPrimary() {
+        String node = readWrite.execute(status -> currentNode());
+
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Reads stay on the primary while the replica may lag behind a write")
+    public void readYourWrites() throws InterruptedException {
+        readWrite.execute(status -> jdbcTemplate.update("insert into marker(name) values ('write')"));
+
+        String rightAfterWrite = readOnly.execute(status -> currentNode());
+        Thread.sleep(250);
+        String afterTolerance = readOnly.execute(status -> currentNode());
+
+        assertThat(rightAfterWrite).isEqualTo("primary");
+        assertThat(afterTolerance).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("A write keeps only its own client off the replica")
+    public void writeOnlyAffectsItsClient() {
+        lagGuard.bind(Long.MIN_VALUE, null);
+        readWrite.execute(status -> jdbcTemplate.update("insert into marker(name) values ('write')"));
+        String writer = readOnly.execute(status -> currentNode());
+        lagGuard.unbind();
+
+        lagGuard.bind(Long.MIN_VALUE, null);
+        String otherClient = readOnly.execute(status -> currentNode());
+        lagGuard.unbind();
+
+        assertThat(writer).isEqualTo("primary");
+        assertThat(otherClient).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("The last write travels in a cookie and keeps the client on the primary on any node")
+    public void lastWriteCookie() throws Exception {
+        ReplicaLagFilter filter = new ReplicaLagFilter(lagGuard);
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/loans"), writeResponse, (request, response) ->
+                readWrite.execute(status -> jdbcTemplate.update("insert into marker(name) values ('write')")));
+        Cookie lastWrite = writeResponse.getCookie(ReplicaLagFilter.LAST_WRITE);
+
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/loans");
+        read.setCookies(lastWrite);
+        String[] node = new String[1];
+        filter.doFilter(read, new MockHttpServletResponse(), (request, response) ->
+                node[0] = readOnly.execute(status -> currentNode()));
+
+        assertThat(lastWrite).isNotNull();
+        assertThat(node[0]).isEqualTo("primary");
+        assertThat(lagGuard.isReplicaSafe()).isTrue();
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private DataSource createNode(String name) {
+        DataSource dataSource = DataSourceBuilder
+                .create()
+                .url("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .build();
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("drop table if exists node");
+        template.execute("drop table if exists marker");
+        template.execute("create table node(name varchar(20))");
+        template.execute("create table marker(name varchar(20))");
+        template.update("insert into node(name) values (?)", name);
+        return dataSource;
+    }
+}
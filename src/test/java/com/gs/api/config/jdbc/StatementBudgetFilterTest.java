@@ -0,0 +1,90 @@
+package com.gs.api.config.jdbc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementBudgetFilterTest {
+
+    static final String ENDPOINT = "GET /api/books/{id}/loans";
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    StatementStats statementStats = new StatementStats();
+    JdbcInstrumentationProperties properties = new JdbcInstrumentationProperties();
+    StatementBudgetFilter filter;
+
+    @BeforeEach
+    public void setup() {
+        properties.setRepeatedStatementThreshold(3);
+        properties.getBudget().setDefaultLimit(10);
+        properties.getBudget().getEndpoints().put(ENDPOINT, 4);
+        filter = new StatementBudgetFilter(statementStats, properties, registry);
+    }
+
+    @Test
+    @DisplayName("Should normalize literals and IN lists into one statement shape")
+    public void statementShape() {
+        assertThat(StatementStats.shapeOf("select * from loan  where id = 12 and isbn = 'it''s'"))
+                .isEqualTo("select * from loan where id = ? and isbn = ?");
+        assertThat(StatementStats.shapeOf("delete from loan where id in (?, ?, ?)"))
+                .isEqualTo(StatementStats.shapeOf("delete from loan where id in (?,?)"));
+        assertThat(StatementStats.shapeOf("select book0_.id from book book0_ where book0_.id=?"))
+                .isEqualTo("select book0_.id from book book0_ where book0_.id=?");
+    }
+
+    @Test
+    @DisplayName("Should record the statement count of each endpoint")
+    public void countPerEndpoint() throws Exception {
+        filter.doFilter(request(), new MockHttpServletResponse(), chain("select 1 from book", "select 1 from loan"));
+
+        assertThat(registry.summary("api.requests.statements", "endpoint", ENDPOINT).totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should only warn about repeated statements when the budget is not enforced")
+    public void warnOnly() throws Exception {
+        filter.doFilter(request(), new MockHttpServletResponse(),
+                chain("select * from customer where id=?", "select * from customer where id=?", "select * from customer where id=?"));
+
+        assertThat(registry.counter("api.requests.n-plus-one", "endpoint", ENDPOINT).count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail a request that repeats a statement shape or exceeds its budget when enforced")
+    public void enforce() {
+        properties.getBudget().setEnforce(true);
+
+        assertThatThrownBy(() -> filter.doFilter(request(), new MockHttpServletResponse(),
+                chain("select * from customer where id=1", "select * from customer where id=2", "select * from customer where id=3")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("3x select * from customer where id=?");
+        assertThatThrownBy(() -> filter.doFilter(request(), new MockHttpServletResponse(),
+                chain("select 1 from a", "select 1 from b", "select 1 from c", "select 1 from d", "select 1 from e")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("5 statements, budget 4");
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1/loans");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}/loans");
+        return request;
+    }
+
+    private FilterChain chain(String... statements) {
+        return (request, response) -> {
+            for ( String sql : statements ) {
+                statementStats.afterQuery(new QueryExecution(sql, Collections.emptyList(), false));
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.gs.api.config.jdbc;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.CustomerRepository;
+import com.gs.api.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The test profile enforces statement budgets, so any of these requests turning into N+1 fails here.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatementBudgetTest {
+
+    static final int LOANS = 6;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    Book book;
+    Customer customer;
+
+    @BeforeEach
+    public void setup() {
+        book = bookRepository.save(Book.builder().isbn("budget-" + System.nanoTime()).title("Budget").author("Fulano").build());
+        for ( int i = 0; i < LOANS; i++ ) {
+            customer = customerRepository.save(Customer.builder()
+                    .name("Customer " + i)
+                    .email("budget-" + i + "-" + book.getIsbn() + "@mail.com")
+                    .build());
+            loanRepository.save(Loan.builder()
+                    .book(book)
+                    .customer(customer)
+                    .loanDate(LocalDate.now())
+                    .returned(true)
+                    .build());
+        }
+    }
+
+    @Test
+    @DisplayName("Listing a book's loans stays within its statement budget")
+    public void bookLoans() throws Exception {
+        performAsync(get("/api/books/" + book.getId() + "/loans"));
+    }
+
+    @Test
+    @DisplayName("Searching loans stays within its statement budget")
+    public void searchLoans() throws Exception {
+        performAsync(get("/api/loans").param("isbn", book.getIsbn()));
+    }
+
+    @Test
+    @DisplayName("Listing a customer's loans stays within its statement budget")
+    public void customerLoans() throws Exception {
+        mvc.perform(get("/api/customers/" + customer.getId() + "/loans"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content[0].bookIsbn").value(book.getIsbn()));
+    }
+
+    private void performAsync(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mvc.perform(request).andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content.length()").value(LOANS));
+    }
+}
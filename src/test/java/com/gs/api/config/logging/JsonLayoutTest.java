@@ -0,0 +1,40 @@
+package com.gs.api.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonLayoutTest {
+
+    @Test
+    @DisplayName("Should render an event with its MDC as a single JSON line")
+    public void renderJsonLine() throws Exception {
+        LoggerContext context = new LoggerContext();
+        LoggingEvent event = new LoggingEvent("fqcn", context.getLogger("com.gs.api.access"), Level.INFO,
+                "GET {} \"quoted\"", new IllegalStateException("boom"), new Object[]{"/api/books"});
+        Map<String, String> mdc = new HashMap<>();
+        mdc.put("requestId", "abc-123");
+        mdc.put("latencyMs", "42");
+        event.setMDCPropertyMap(mdc);
+
+        String line = new JsonLayout().doLayout(event);
+        JsonNode json = new ObjectMapper().readTree(line);
+
+        assertThat(line.trim()).doesNotContain("\n");
+        assertThat(json.get("level").asText()).isEqualTo("INFO");
+        assertThat(json.get("logger").asText()).isEqualTo("com.gs.api.access");
+        assertThat(json.get("message").asText()).isEqualTo("GET /api/books \"quoted\"");
+        assertThat(json.get("requestId").asText()).isEqualTo("abc-123");
+        assertThat(json.get("latencyMs").asText()).isEqualTo("42");
+        assertThat(json.get("stack_trace").asText()).contains("IllegalStateException: boom");
+    }
+}
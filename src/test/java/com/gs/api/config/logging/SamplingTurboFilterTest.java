@@ -0,0 +1,52 @@
+package com.gs.api.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SamplingTurboFilterTest {
+
+    LoggerContext context = new LoggerContext();
+    SamplingTurboFilter filter = new SamplingTurboFilter();
+
+    @BeforeEach
+    public void setup() {
+        filter.setContext(context);
+        filter.setRules("com.gs.api.access=10, com.gs.api.api=2");
+        filter.start();
+    }
+
+    @Test
+    @DisplayName("Should keep one in N lines of a sampled logger and its children")
+    public void sampleOneInN() {
+        assertThat(passed("com.gs.api.access", Level.INFO, 100)).isEqualTo(10);
+        assertThat(passed("com.gs.api.api.resource.BookController", Level.INFO, 100)).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should let warnings, unsampled loggers and level checks through")
+    public void passEverythingElse() {
+        assertThat(passed("com.gs.api.access", Level.WARN, 100)).isEqualTo(100);
+        assertThat(passed("com.gs.api.service.BookPurgeService", Level.INFO, 100)).isEqualTo(100);
+
+        Logger logger = context.getLogger("com.gs.api.access");
+        assertThat(filter.decide(null, logger, Level.INFO, null, null, null)).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    private int passed(String loggerName, Level level, int events) {
+        Logger logger = context.getLogger(loggerName);
+        int passed = 0;
+        for ( int i = 0; i < events; i++ ) {
+            if ( filter.decide(null, logger, level, "event {}", new Object[]{i}, null) == FilterReply.NEUTRAL ) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,43 @@
+package com.gs.api.config.startup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "application.startup-report.enabled=true"
+})
+@ActiveProfiles("fast-start")
+class FastStartProfileTest {
+
+    @Autowired
+    ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    StartupTimingPostProcessor startupTiming;
+
+    @Test
+    @DisplayName("Should keep the hot path eager and defer everything else")
+    public void lazyExceptHotPath() {
+        assertThat(beanFactory.getBeanDefinition("entityManagerFactory").isLazyInit()).isFalse();
+        assertThat(beanFactory.getBeanDefinition("bookController").isLazyInit()).isFalse();
+        assertThat(beanFactory.getBeanDefinition("customerController").isLazyInit()).isTrue();
+        assertThat(beanFactory.containsSingleton("customerController")).isFalse();
+        assertThat(beanFactory.containsBeanDefinition("docker")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should report the slowest beans created at startup")
+    public void reportSlowBeans() {
+        assertThat(startupTiming.report())
+                .isNotEmpty()
+                .extracting(StartupTimingPostProcessor.BeanTiming::getBeanName)
+                .contains("entityManagerFactory");
+    }
+}
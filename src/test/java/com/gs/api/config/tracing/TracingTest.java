@@ -0,0 +1,103 @@
+package com.gs.api.config.tracing;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TracingTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    Tracer tracer;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanService loanService;
+
+    @Test
+    @DisplayName("Should break a request down into controller, service, repository and JDBC spans")
+    public void traceRequest() throws Exception {
+        bookRepository.save(Book.builder().isbn("trace-1").title("Traced").author("Fulano").build());
+
+        mvc.perform(post("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"bookIsbn\":\"trace-1\",\"customer\":\"Fulano\",\"customerEmail\":\"fulano@mail.com\"}"))
+                .andExpect(status().isCreated());
+
+        Span trace = trace("POST /api/loans");
+        List<Span> spans = flatten(trace);
+        assertThat(spans).extracting(Span::getName)
+                .contains("LoanController.post", "BookServiceImpl.getBookByIsbn", "LoanServiceImpl.save",
+                        "LoanRepository.existsByBookIdAndReturnedIsFalse", "insert");
+        assertThat(spans).extracting(Span::getLayer).contains("controller", "service", "repository", "jdbc");
+        assertThat(trace.getStatements()).isGreaterThan(0);
+        assertThat(spanNamed(trace, "LoanServiceImpl.save").getStatements()).isLessThan(trace.getStatements());
+    }
+
+    @Test
+    @DisplayName("Should keep work done on the query executor in the request's trace")
+    public void traceAsyncRequest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/loans")).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        Span trace = trace("GET /api/loans");
+        assertThat(flatten(trace)).extracting(Span::getName).contains("LoanController.get", "LoanServiceImpl.find");
+        assertThat(trace.getStatements()).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("Should not open traces for service and repository calls outside a request")
+    public void skipCallsWithoutTrace() {
+        loanService.getAllLateLoans();
+        bookRepository.count();
+
+        assertThat(tracer.slowest(Integer.MAX_VALUE)).extracting(Span::getName)
+                .doesNotContain("LoanServiceImpl.getAllLateLoans", "BookRepository.count");
+    }
+
+    private Span trace(String name) {
+        return tracer.slowest(Integer.MAX_VALUE)
+                .stream()
+                .filter(span -> span.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No trace " + name + " in " + tracer.slowest(Integer.MAX_VALUE)
+                        .stream().map(Span::getName).collect(Collectors.toList())));
+    }
+
+    private Span spanNamed(Span trace, String name) {
+        return flatten(trace).stream().filter(span -> span.getName().equals(name)).findFirst().orElseThrow(AssertionError::new);
+    }
+
+    private List<Span> flatten(Span span) {
+        List<Span> spans = new ArrayList<>();
+        spans.add(span);
+        span.getChildren().forEach(child -> spans.addAll(flatten(child)));
+        return spans;
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -144,6 +145,44 @@ public class BookRepositoryTest {
         assertThat(foundBook).isEmpty();
     }
 
+    @Test
+    @DisplayName("Should update a book only when its version matches")
+    public void updateWithVersion() {
+        // given
+        Book book = entityManager.persistFlushFind(createNewBook());
+        Long version = book.getVersion();
+        entityManager.clear();
+
+        // when
+        int updated = repository.updateTitleAndAuthor(book.getId(), "Novas aventuras", "Ciclano", version);
+        int stale = repository.updateTitleAndAuthor(book.getId(), "Outras aventuras", "Beltrano", version);
+        entityManager.clear();
+
+        // then
+        Book foundBook = entityManager.find(Book.class, book.getId());
+        assertThat(updated).isEqualTo(1);
+        assertThat(stale).isEqualTo(0);
+        assertThat(foundBook.getTitle()).isEqualTo("Novas aventuras");
+        assertThat(foundBook.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @DisplayName("Should not update a soft-deleted book")
+    public void skipUpdateOfDeletedBook() {
+        // given
+        Book book = entityManager.persistFlushFind(createNewBook());
+        repository.softDeleteById(book.getId(), Instant.now());
+        entityManager.clear();
+
+        // when
+        int updated = repository.updateTitleAndAuthor(book.getId(), "Novas aventuras", "Ciclano");
+        int versioned = repository.updateTitleAndAuthor(book.getId(), "Novas aventuras", "Ciclano", book.getVersion() + 1);
+
+        // then
+        assertThat(updated).isEqualTo(0);
+        assertThat(versioned).isEqualTo(0);
+    }
+
     public Book createNewBook() {
         return Book.builder().title("Aventuras").author("Fulano").isbn("123").build();
     }
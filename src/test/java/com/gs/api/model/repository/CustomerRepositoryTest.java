@@ -0,0 +1,38 @@
+package com.gs.api.model.repository;
+
+import com.gs.api.model.entity.Customer;
+import com.gs.api.repository.CustomerRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class CustomerRepositoryTest {
+
+    @Autowired
+    CustomerRepository repository;
+
+    @Test
+    @DisplayName("Should register a customer once and keep the transaction usable on a taken email")
+    public void registerIfAbsent() {
+        // when
+        boolean first = repository.registerIfAbsent("Fulano", "fulano@mail.com");
+        boolean second = repository.registerIfAbsent("Ciclano", "fulano@mail.com");
+        Customer other = repository.save(Customer.builder().name("Beltrano").email("beltrano@mail.com").build());
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(repository.findByEmail("fulano@mail.com")).get().extracting(Customer::getName).isEqualTo("Fulano");
+        assertThat(repository.findById(other.getId())).isPresent();
+        assertThat(repository.count()).isEqualTo(2);
+    }
+}
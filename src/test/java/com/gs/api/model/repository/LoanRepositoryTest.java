@@ -1,8 +1,13 @@
 package com.gs.api.model.repository;
 
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
+import com.gs.api.model.report.OpenLoan;
+import com.gs.api.model.report.OverdueBuckets;
+import com.gs.api.model.report.OverdueCount;
 import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.specification.LoanSpecifications;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,13 +17,17 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @ExtendWith(SpringExtension.class)
 @DataJpaTest
@@ -48,11 +57,9 @@ class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Find Loans by Isbn")
-    public void findLoansByIsbn() {
+    @DisplayName("Find Loans by Book id")
+    public void findLoansByBookId() {
         // given
-        String isbnFilter = "123";
-        String customerFilter = "";
         Book book = createBook();
         entityManager.persist(book);
         Loan loan = createLoan(book);
@@ -60,54 +67,97 @@ class LoanRepositoryTest {
 
         // when
         Page<Loan> foundLoans = repository
-                .findByBookIsbnOrCustumer(isbnFilter, customerFilter, PageRequest.of(0, 10));
+                .findAll(LoanSpecifications.bookIdEquals(book.getId()), PageRequest.of(0, 10));
 
         // then
         assertThat(foundLoans.getTotalElements()).isEqualTo(1);
         assertThat(foundLoans.getContent().get(0).getBook().getIsbn()).isEqualTo("123");
-        assertThat(foundLoans.getContent().get(0).getCustomer()).isEqualTo("Fulano");
+        assertThat(foundLoans.getContent().get(0).getCustomer().getName()).isEqualTo("Fulano");
     }
 
     @Test
     @DisplayName("Find Loans by Customer")
     public void findLoansByCustomer() {
         // given
-        String isbnFilter = "";
-        String customerFilter = "Fulano";
         Book book = createBook();
         entityManager.persist(book);
         Loan loan = createLoan(book);
         entityManager.persist(loan);
+        Long customerFilter = loan.getCustomer().getId();
 
         // when
         Page<Loan> foundLoans = repository
-                .findByBookIsbnOrCustumer(isbnFilter, customerFilter, PageRequest.of(0, 10));
+                .findAll(LoanSpecifications.customerIdEquals(customerFilter), PageRequest.of(0, 10));
 
         // then
         assertThat(foundLoans.getTotalElements()).isEqualTo(1);
         assertThat(foundLoans.getContent().get(0).getBook().getIsbn()).isEqualTo("123");
-        assertThat(foundLoans.getContent().get(0).getCustomer()).isEqualTo("Fulano");
+        assertThat(foundLoans.getContent().get(0).getCustomer().getName()).isEqualTo("Fulano");
     }
 
     @Test
-    @DisplayName("Find Loans by Customer")
+    @DisplayName("Cannot find any Loans by invalid Filters")
     public void cannotFindAnyLoansByInvalidFilters() {
         // given
-        String isbnFilter = "321";
-        String customerFilter = "Ciclano";
         Book book = createBook();
         entityManager.persist(book);
         Loan loan = createLoan(book);
         entityManager.persist(loan);
+        Specification<Loan> filter = LoanSpecifications.bookIdEquals(book.getId() + 1)
+                .or(LoanSpecifications.customerIdEquals(loan.getCustomer().getId() + 1));
 
         // when
-        Page<Loan> foundLoans = repository
-                .findByBookIsbnOrCustumer(isbnFilter, customerFilter, PageRequest.of(0, 10));
+        Page<Loan> foundLoans = repository.findAll(filter, PageRequest.of(0, 10));
 
         // then
         assertThat(foundLoans.getTotalElements()).isEqualTo(0);
     }
 
+    @Test
+    @DisplayName("Find Loans by Book, returned state and loan date range")
+    public void findLoansByCombinedFilters() {
+        // given
+        Book book = createBook();
+        entityManager.persist(book);
+        Loan inRange = createLoanToReturnAt(book, LocalDate.of(2000, 1, 5));
+        entityManager.persist(inRange);
+        entityManager.persist(createLoanToReturnAt(book, LocalDate.of(2000, 2, 5)));
+        Loan returned = createLoanToReturnAt(book, LocalDate.of(2000, 1, 6));
+        returned.returnBook();
+        entityManager.persist(returned);
+        Specification<Loan> filter = LoanSpecifications.bookIdEquals(book.getId())
+                .and(LoanSpecifications.loanDateFrom(LocalDate.of(2000, 1, 1)))
+                .and(LoanSpecifications.loanDateTo(LocalDate.of(2000, 1, 31)))
+                .and(LoanSpecifications.returnedEquals(false));
+
+        // when
+        Page<Loan> foundLoans = repository.findAll(filter, PageRequest.of(0, 10));
+
+        // then
+        assertThat(foundLoans.getContent()).containsExactly(inRange);
+    }
+
+    @Test
+    @DisplayName("Find a Slice of Loans without counting them")
+    public void findSliceOfLoans() {
+        // given
+        Book book = createBook();
+        entityManager.persist(book);
+        entityManager.persist(createLoan(book));
+        entityManager.persist(createLoan(book));
+        entityManager.persist(createLoan(book));
+
+        // when
+        Slice<Loan> first = repository.findSlice(LoanSpecifications.bookIdEquals(book.getId()), PageRequest.of(0, 2));
+        Slice<Loan> last = repository.findSlice(LoanSpecifications.bookIdEquals(book.getId()), PageRequest.of(1, 2));
+
+        // then
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.hasNext()).isFalse();
+    }
+
     @Test
     @DisplayName("Find Loans by Book")
     public void findLoansByBook() {
@@ -162,12 +212,150 @@ class LoanRepositoryTest {
         assertThat(foundLoans.get(0)).isEqualTo(loan2);
     }
 
+    @Test
+    @DisplayName("Find each Customer with not returned loans after date only once")
+    void findCustomersWithNotReturnedLoansAfterDate() {
+        // given
+        LocalDate verificationDate = LocalDate.of(2000, 1, 6);
+        Book book1 = createBook();
+        entityManager.persist(book1);
+        Book book2 = createAnotherBook();
+        entityManager.persist(book2);
+        Customer customer = persistCustomer();
+        entityManager.persist(Loan.builder().loanDate(LocalDate.of(2000, 1, 5)).book(book1).customer(customer).build());
+        entityManager.persist(Loan.builder().loanDate(LocalDate.of(2000, 1, 5)).book(book2).customer(customer).build());
+
+        // when
+        List<Customer> customers = repository.findCustomersWithNotReturnedLoansAfterDay(verificationDate, 3);
+
+        // then
+        assertThat(customers).containsExactly(customer);
+    }
+
+    @Test
+    @DisplayName("Find not returned loans after date within a loan id range")
+    void findNotReturnedLoansAfterDateInIdRange() {
+        // given
+        LocalDate verificationDate = LocalDate.of(2000, 1, 6);
+        Book book1 = createBook();
+        entityManager.persist(book1);
+        Loan loan1 = entityManager.persist(createLoanToReturnAt(book1, LocalDate.of(2000, 1, 5)));
+        Loan loan2 = entityManager.persist(createLoanToReturnAt(book1, LocalDate.of(2000, 1, 5)));
+
+        // when
+        List<Loan> first = repository.findNotReturnedLoansAfterDay(verificationDate, 3, loan1.getId(), loan2.getId());
+        List<Loan> second = repository.findNotReturnedLoansAfterDay(verificationDate, 3, loan2.getId(), loan2.getId() + 1);
+
+        // then
+        assertThat(first).containsExactly(loan1);
+        assertThat(second).containsExactly(loan2);
+        assertThat(repository.findMinId()).isEqualTo(loan1.getId());
+        assertThat(repository.findMaxId()).isEqualTo(loan2.getId());
+    }
+
+    @Test
+    @DisplayName("Return many Loans with a single update")
+    void updateReturnedByIds() {
+        // given
+        Book book = createBook();
+        entityManager.persist(book);
+        Loan loan1 = entityManager.persist(createLoan(book));
+        Loan loan2 = entityManager.persist(createLoan(book));
+        Loan kept = entityManager.persist(createLoan(book));
+        Loan returned = entityManager.persist(createLoan(book).returnBook());
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Long> changed = repository.lockIdsByIdInAndReturnedNot(
+                Arrays.asList(loan1.getId(), loan2.getId(), returned.getId()), true);
+        int updated = repository.updateReturnedByIdIn(Arrays.asList(loan1.getId(), loan2.getId(), returned.getId()), true);
+
+        // then
+        assertThat(changed).containsExactlyInAnyOrder(loan1.getId(), loan2.getId());
+        assertThat(updated).isEqualTo(2);
+        assertThat(repository.findByIdIn(Arrays.asList(loan1.getId(), loan2.getId(), kept.getId())))
+                .extracting(Loan::getId, Loan::isReturned)
+                .containsExactlyInAnyOrder(tuple(loan1.getId(), true), tuple(loan2.getId(), true), tuple(kept.getId(), false));
+    }
+
+    @Test
+    @DisplayName("Find Loans by Customer id")
+    void findLoansByCustomerId() {
+        // given
+        Book book = createBook();
+        entityManager.persist(book);
+        Loan loan = createLoan(book);
+        entityManager.persist(loan);
+        entityManager.persist(createLoan(book));
+
+        // when
+        Page<Loan> foundLoans = repository.findLoansByCustomer(loan.getCustomer(), PageRequest.of(0, 10));
+
+        // then
+        assertThat(foundLoans.getTotalElements()).isEqualTo(1);
+        assertThat(foundLoans.getContent().get(0)).isEqualTo(loan);
+    }
+
+    @Test
+    @DisplayName("Page through the open Loans with their Book ids in id order")
+    void findOpenLoansAfter() {
+        // given
+        Book book1 = entityManager.persist(createBook());
+        Book book2 = entityManager.persist(createAnotherBook());
+        Loan loan1 = entityManager.persist(createLoan(book1));
+        entityManager.persist(Loan.builder().loanDate(LocalDate.now()).returned(true).book(book1).customer(persistCustomer()).build());
+        Loan loan2 = entityManager.persist(createLoan(book2));
+
+        // when
+        List<OpenLoan> first = repository.findOpenLoansAfter(0, PageRequest.of(0, 1));
+        List<OpenLoan> rest = repository.findOpenLoansAfter(first.get(0).getId(), PageRequest.of(0, 10));
+
+        // then
+        assertThat(first).extracting(OpenLoan::getId, OpenLoan::getBookId).containsExactly(tuple(loan1.getId(), book1.getId()));
+        assertThat(rest).extracting(OpenLoan::getId, OpenLoan::getBookId).containsExactly(tuple(loan2.getId(), book2.getId()));
+    }
+
+    @Test
+    @DisplayName("Count overdue Loans grouped by Book, Customer and days late")
+    void countOverdueLoans() {
+        // given
+        LocalDate dueBefore = LocalDate.of(2000, 3, 1);
+        Book book1 = entityManager.persist(createBook());
+        Book book2 = entityManager.persist(createAnotherBook());
+        Customer customer = persistCustomer();
+        entityManager.persist(Loan.builder().loanDate(LocalDate.of(2000, 2, 27)).book(book1).customer(customer).build());
+        entityManager.persist(Loan.builder().loanDate(LocalDate.of(2000, 2, 10)).book(book1).customer(customer).build());
+        entityManager.persist(Loan.builder().loanDate(LocalDate.of(2000, 1, 1)).book(book2).customer(persistCustomer()).build());
+        entityManager.persist(Loan.builder().loanDate(LocalDate.of(2000, 1, 1)).book(book2).customer(customer).returned(true).build());
+        entityManager.persist(Loan.builder().loanDate(LocalDate.of(2000, 3, 1)).book(book2).customer(customer).build());
+
+        // when
+        List<OverdueCount> byBook = repository.countOverdueByBook(dueBefore, PageRequest.of(0, 10));
+        List<OverdueCount> byCustomer = repository.countOverdueByCustomer(dueBefore, PageRequest.of(0, 1));
+        OverdueBuckets buckets = repository.countOverdueBuckets(dueBefore, dueBefore.minusDays(7), dueBefore.minusDays(30));
+
+        // then
+        assertThat(byBook).extracting(OverdueCount::getLabel, OverdueCount::getOverdue)
+                .containsExactly(Assertions.tuple("123", 2L), Assertions.tuple("456", 1L));
+        assertThat(byCustomer).extracting(OverdueCount::getId, OverdueCount::getOverdue)
+                .containsExactly(Assertions.tuple(customer.getId(), 2L));
+        assertThat(buckets.getUpToWeek()).isEqualTo(1);
+        assertThat(buckets.getUpToMonth()).isEqualTo(1);
+        assertThat(buckets.getOverMonth()).isEqualTo(1);
+    }
+
     private Loan createLoanToReturnAt(Book book, LocalDate localDate) {
-        return Loan.builder().loanDate(localDate).returned(false).book(book).customer("Fulano").build();
+        return Loan.builder().loanDate(localDate).returned(false).book(book).customer(persistCustomer()).build();
     }
 
     private Loan createLoan(Book book) {
-        return Loan.builder().loanDate(LocalDate.now()).returned(false).book(book).customer("Fulano").build();
+        return Loan.builder().loanDate(LocalDate.now()).returned(false).book(book).customer(persistCustomer()).build();
+    }
+
+    private Customer persistCustomer() {
+        Customer customer = Customer.builder().name("Fulano").email("fulano" + System.nanoTime() + "@mail.com").build();
+        return entityManager.persist(customer);
     }
 
     private Book createBook() {
@@ -0,0 +1,135 @@
+package com.gs.api.model.repository;
+
+import com.gs.api.repository.sharding.ShardedLoan;
+import com.gs.api.repository.sharding.ShardedLoanStore;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedLoanStoreTest {
+
+    static final int SHARDS = 3;
+    static final LocalDate TODAY = LocalDate.of(2020, 1, 31);
+
+    List<DataSource> dataSources;
+    ShardedLoanStore store;
+
+    @BeforeEach
+    public void setup() {
+        String run = UUID.randomUUID().toString();
+        dataSources = IntStream.range(0, SHARDS)
+                .mapToObj(i -> (DataSource) DataSourceBuilder
+                        .create()
+                        .url("jdbc:h2:mem:shard-" + i + "-" + run + ";DB_CLOSE_DELAY=-1")
+                        .username("sa")
+                        .build())
+                .collect(Collectors.toList());
+        store = new ShardedLoanStore(dataSources);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.shutdown();
+        dataSources.forEach(dataSource -> ((HikariDataSource) dataSource).close());
+    }
+
+    @Test
+    @DisplayName("Should spread writes for different books evenly and route ids back to their shard")
+    public void routeByBook() {
+        List<ShardedLoan> saved = new ArrayList<>();
+        for ( long bookId = 1; bookId <= 30; bookId++ ) {
+            saved.add(store.save(loan(bookId, 1L, TODAY)));
+        }
+
+        for ( int shard = 0; shard < SHARDS; shard++ ) {
+            assertThat(rowsOn(shard)).isEqualTo(10);
+        }
+        for ( ShardedLoan loan : saved ) {
+            assertThat(Math.floorMod(loan.getId(), (long) SHARDS)).isEqualTo(store.shardOf(loan.getBookId()));
+            assertThat(store.findById(loan.getId())).get().extracting(ShardedLoan::getBookId).isEqualTo(loan.getBookId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer a book's open loan from its own shard")
+    public void openLoanPerBook() {
+        ShardedLoan loan = store.save(loan(7L, 1L, TODAY));
+
+        assertThat(store.existsOpenLoan(7L)).isTrue();
+        assertThat(store.existsOpenLoan(8L)).isFalse();
+
+        assertThat(store.markReturned(loan.getId())).isTrue();
+        assertThat(store.existsOpenLoan(7L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should merge-sort pages gathered from every shard")
+    public void scatterGatherPages() {
+        List<ShardedLoan> expected = new ArrayList<>();
+        for ( long bookId = 1; bookId <= 10; bookId++ ) {
+            expected.add(store.save(loan(bookId, 42L, TODAY.minusDays(bookId % 4))));
+            store.save(loan(bookId, 99L, TODAY));
+        }
+        expected.sort(Comparator.comparing(ShardedLoan::getLoanDate).reversed().thenComparing(ShardedLoan::getId));
+
+        List<Long> paged = new ArrayList<>();
+        Page<ShardedLoan> page;
+        int number = 0;
+        do {
+            page = store.findByBookIsbnOrCustomerId("none", 42L,
+                    PageRequest.of(number++, 4, Sort.by(Sort.Direction.DESC, "loanDate")));
+            page.forEach(loan -> paged.add(loan.getId()));
+            assertThat(page.getTotalElements()).isEqualTo(10);
+        } while ( page.hasNext() );
+
+        assertThat(paged).containsExactlyElementsOf(expected.stream().map(ShardedLoan::getId).collect(Collectors.toList()));
+        assertThat(number).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should scan not returned loans after the day on all shards, oldest first")
+    public void overdueScan() {
+        for ( long bookId = 1; bookId <= 12; bookId++ ) {
+            ShardedLoan loan = store.save(loan(bookId, bookId, TODAY.minusDays(bookId)));
+            if ( bookId % 3 == 0 ) {
+                store.markReturned(loan.getId());
+            }
+        }
+
+        List<ShardedLoan> overdue = store.findNotReturnedAfterDay(TODAY, 8);
+
+        assertThat(overdue).extracting(ShardedLoan::getBookId).containsExactly(7L, 5L, 4L, 2L, 1L);
+    }
+
+    private int rowsOn(int shard) {
+        return new JdbcTemplate(dataSources.get(shard)).queryForObject("select count(*) from loan_shard", Integer.class);
+    }
+
+    private ShardedLoan loan(Long bookId, Long customerId, LocalDate loanDate) {
+        return ShardedLoan.builder()
+                .bookId(bookId)
+                .bookIsbn("isbn-" + bookId)
+                .customerId(customerId)
+                .customerEmail("customer-" + customerId + "@mail.com")
+                .loanDate(loanDate)
+                .build();
+    }
+}
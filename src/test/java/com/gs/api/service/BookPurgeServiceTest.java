@@ -0,0 +1,83 @@
+package com.gs.api.service;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.service.support.CountCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({BookPurgeService.class, CountCache.class})
+@TestPropertySource(properties = "application.books.purge.batch-size=2")
+class BookPurgeServiceTest {
+
+    @Autowired
+    BookPurgeService purgeService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Soft-deleted Books disappear from queries right away")
+    void hideSoftDeletedBook() {
+        // given
+        Book book = entityManager.persistFlushFind(Book.builder().isbn("123").title("As aventuras").author("Fulano").build());
+
+        // when
+        bookRepository.softDeleteById(book.getId(), Instant.now());
+        entityManager.clear();
+
+        // then
+        assertThat(bookRepository.findById(book.getId())).isEmpty();
+        assertThat(bookRepository.existsByIsbn("123")).isFalse();
+        assertThat(bookRepository.findSoftDeletedIds(10)).containsExactly(book.getId());
+    }
+
+    @Test
+    @DisplayName("Purge a soft-deleted Book and its Loans in batches")
+    void purgeInBatches() {
+        // given
+        Book book = entityManager.persist(Book.builder().isbn("123").title("As aventuras").author("Fulano").build());
+        Book kept = entityManager.persist(Book.builder().isbn("456").title("As desventuras").author("Ciclano").build());
+        Customer customer = entityManager.persist(Customer.builder().name("Fulano").email("fulano@mail.com").build());
+        for ( int i = 0; i < 5; i++ ) {
+            entityManager.persist(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).returned(true).build());
+        }
+        entityManager.persist(Loan.builder().book(kept).customer(customer).loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        bookRepository.softDeleteById(book.getId(), Instant.now());
+        entityManager.clear();
+
+        // when
+        purgeService.purgeDeletedBooks();
+
+        // then
+        assertThat(loanRepository.count()).isEqualTo(1);
+        assertThat(bookRepository.findSoftDeletedIds(10)).isEmpty();
+        assertThat(bookRepository.count()).isEqualTo(1);
+    }
+}
@@ -1,11 +1,20 @@
 package com.gs.api.service;
 
 import com.gs.api.exception.BusinessException;
+import com.gs.api.exception.VersionConflictException;
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.Reservation;
 import com.gs.api.repository.BookRepository;
 import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.ReservationRepository;
 import com.gs.api.service.impl.BookServiceImpl;
+import com.gs.api.service.support.BookCache;
+import com.gs.api.service.support.CatalogSnapshot;
+import com.gs.api.service.support.CountCache;
+import com.gs.api.service.support.LoanEventLog;
+import com.gs.api.service.support.SingleFlight;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,9 +25,17 @@ import org.springframework.data.domain.*;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,9 +52,17 @@ public class BookServiceTest {
     @MockBean
     LoanRepository loanRepository;
 
+    @MockBean
+    ReservationRepository reservationRepository;
+
+    @MockBean
+    LoanEventLog eventLog;
+
     @BeforeEach
     public void setup() {
-        this.service = new BookServiceImpl(bookRepository, loanRepository);
+        this.service = new BookServiceImpl(bookRepository, loanRepository, reservationRepository, new CountCache(Duration.ofSeconds(30)), eventLog,
+                new SingleFlight(), new BookCache(bookRepository, null, eventLog, false, 0, Duration.ZERO),
+                new CatalogSnapshot(bookRepository, null, eventLog, false, "catalog.snapshot"), Optional.empty());
     }
 
     @Test
@@ -55,6 +80,7 @@ public class BookServiceTest {
         assertThat(savedBook.getIsbn()).isEqualTo("123");
         assertThat(savedBook.getTitle()).isEqualTo("As aventuras");
         assertThat(savedBook.getAuthor()).isEqualTo("Fulano");
+        verify(eventLog).bookCreated(savedBook);
     }
 
 
@@ -104,18 +130,108 @@ public class BookServiceTest {
                 .isEmpty();
     }
 
+    @Test
+    @DisplayName("Should share one lookup between concurrent requests for the same Book")
+    public void coalesceConcurrentGetById() throws Exception {
+        // given
+        int callers = 16;
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        Book book = createBook();
+        when(bookRepository.findById(1L)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await();
+            return Optional.of(book);
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+
+        // when
+        List<Future<Optional<Book>>> results = new ArrayList<>();
+        results.add(pool.submit(() -> service.getById(1L)));
+        queryStarted.await();
+        for ( int i = 1; i < callers; i++ ) {
+            results.add(pool.submit(() -> service.getById(1L)));
+        }
+        Thread.sleep(100);
+        releaseQuery.countDown();
+
+        // then
+        for ( Future<Optional<Book>> result : results ) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).containsSame(book);
+        }
+        verify(bookRepository, times(1)).findById(1L);
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should update a Book without reading it first")
+    public void updateBook() {
+        // given
+        Book changes = Book.builder().id(1L).title("Novas aventuras").author("Ciclano").version(2L).build();
+        Book updated = Book.builder().id(1L).isbn("123").title("Novas aventuras").author("Ciclano").version(3L).build();
+        when(bookRepository.updateTitleAndAuthor(1L, "Novas aventuras", "Ciclano", 2L)).thenReturn(1);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(updated));
+
+        // when
+        Optional<Book> book = service.update(changes);
+
+        // then
+        assertThat(book).contains(updated);
+        verify(bookRepository, never()).existsByIsbn(anyString());
+        verify(eventLog).bookUpdated(updated);
+    }
+
+    @Test
+    @DisplayName("Should fail to update a Book with a stale version")
+    public void failToUpdateStaleBook() {
+        // given
+        Book changes = Book.builder().id(1L).title("Novas aventuras").author("Ciclano").version(2L).build();
+        when(bookRepository.updateTitleAndAuthor(1L, "Novas aventuras", "Ciclano", 2L)).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+
+        // when
+        Throwable throwable = Assertions.catchThrowable(() -> service.update(changes));
+
+        // then
+        assertThat(throwable)
+                .isInstanceOf(VersionConflictException.class)
+                .hasMessage("Book was modified by another request");
+    }
+
     @Test
     @DisplayName("Should Delete a Book by ID")
     public void shouldDeleteBook() {
         // given
         Long id = 1L;
-        when(bookRepository.existsById(anyLong())).thenReturn(true);
+        when(bookRepository.lockById(id)).thenReturn(Optional.of(Book.builder().id(id).build()));
 
         // when
         service.deleteById(id);
 
         // then
-        verify(bookRepository, times(1)).deleteById(id);
+        verify(bookRepository, times(1)).softDeleteById(eq(id), any(Instant.class));
+        verify(bookRepository, never()).deleteById(id);
+        verify(reservationRepository).updateStatusByBookId(id, Reservation.Status.WAITING, Reservation.Status.CANCELLED);
+        verify(eventLog).bookDeleted(id);
+    }
+
+    @Test
+    @DisplayName("Cannot Delete a Book that is on loan")
+    public void shouldNotDeleteBookOnLoan() {
+        // given
+        Book book = Book.builder().id(1L).build();
+        when(bookRepository.lockById(1L)).thenReturn(Optional.of(book));
+        when(loanRepository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(true);
+
+        // when
+        Throwable throwable = Assertions.catchThrowable(() -> service.deleteById(1L));
+
+        // then
+        assertThat(throwable)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book is on loan");
+        verify(bookRepository, never()).softDeleteById(anyLong(), any(Instant.class));
+        verify(reservationRepository, never()).updateStatusByBookId(anyLong(), any(), any());
     }
 
     @Test
@@ -123,7 +239,7 @@ public class BookServiceTest {
     public void failToBindABookByIdThatDoesntExist() {
         // given
         Long id = 1L;
-        when(bookRepository.existsById(anyLong())).thenReturn(false);
+        when(bookRepository.lockById(anyLong())).thenReturn(Optional.empty());
 
         // when
         Throwable throwable = Assertions
@@ -133,7 +249,7 @@ public class BookServiceTest {
         assertThat(throwable)
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Book not found");
-        verify(bookRepository, never()).deleteById(id);
+        verify(bookRepository, never()).softDeleteById(eq(id), any(Instant.class));
     }
 
     @Test
@@ -143,9 +259,8 @@ public class BookServiceTest {
         Book book = createBook();
         PageRequest pageRequest = PageRequest.of(0, 10);
         List<Book> books = Collections.singletonList(book);
-        Page<Book> page = new PageImpl<>(books, pageRequest, 1);
-        when(bookRepository.findAll(any(Example.class), any(PageRequest.class)))
-                .thenReturn(page);
+        when(bookRepository.findSlice(any(Example.class), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(books, pageRequest, false));
 
         // when
         Page<Book> foundBooks = service.find(book, pageRequest);
@@ -155,6 +270,51 @@ public class BookServiceTest {
         assertThat(foundBooks.getContent()).isEqualTo(books);
         assertThat(foundBooks.getPageable().getPageNumber()).isEqualTo(0);
         assertThat(foundBooks.getPageable().getPageSize()).isEqualTo(10);
+        verify(bookRepository, never()).count(any(Example.class));
+    }
+
+    @Test
+    @DisplayName("Reuse the cached total of a full page until Books are written")
+    public void cacheTotalOfFullPages() {
+        // given
+        Book book = createBook();
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        when(bookRepository.findSlice(any(Example.class), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(book), pageRequest, true));
+        when(bookRepository.count(any(Example.class))).thenReturn(5L);
+
+        // when
+        service.find(book, pageRequest);
+        Page<Book> cached = service.find(createBook(), pageRequest);
+        when(bookRepository.existsByIsbn(anyString())).thenReturn(false);
+        service.save(createBook());
+        service.find(book, pageRequest);
+
+        // then
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+        verify(bookRepository, times(2)).count(any(Example.class));
+    }
+
+    @Test
+    @DisplayName("Recount filtered totals after a Book is updated")
+    public void recountTotalsAfterUpdate() {
+        // given
+        Book filter = Book.builder().title("As aventuras").build();
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        when(bookRepository.findSlice(any(Example.class), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(createBook()), pageRequest, true));
+        when(bookRepository.count(any(Example.class))).thenReturn(2L, 1L);
+        when(bookRepository.updateTitleAndAuthor(1L, "Novas aventuras", "Fulano")).thenReturn(1);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(createBook()));
+        service.find(filter, pageRequest);
+
+        // when
+        service.update(Book.builder().id(1L).title("Novas aventuras").author("Fulano").build());
+        Page<Book> recounted = service.find(filter, pageRequest);
+
+        // then
+        assertThat(recounted.getTotalElements()).isEqualTo(1);
+        verify(bookRepository, times(2)).count(any(Example.class));
     }
 
     @Test
@@ -162,7 +322,7 @@ public class BookServiceTest {
     public void failToGetABookByIsbn() {
         // given
         String isbn = "123";
-        when(bookRepository.existsByIsbn(anyString())).thenReturn(false);
+        when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.empty());
 
         // when
         Throwable throwable = catchThrowableOfType(() -> service.getBookByIsbn(isbn), BusinessException.class);
@@ -171,7 +331,7 @@ public class BookServiceTest {
         assertThat(throwable)
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("Book not found");
-        verify(bookRepository, never()).findByIsbn(isbn);
+        verify(bookRepository, never()).existsByIsbn(isbn);
     }
 
     @Test
@@ -179,17 +339,17 @@ public class BookServiceTest {
     public void getLoansByBook() {
         // given
         Book book = createBook();
-        Loan loan = Loan.builder().id(1L).book(book).customer("Fulano").build();
+        Loan loan = Loan.builder().id(1L).book(book).customer(Customer.builder().name("Fulano").build()).build();
         PageRequest pageRequest = PageRequest.of(0, 10);
-        when(loanRepository.findLoansByBook(any(Book.class), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(Collections.singletonList(loan), pageRequest, 1));
+        when(loanRepository.findSliceByBook(any(Book.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(loan), pageRequest, false));
 
         // when
         Page<Loan> foundLoans = service.getLoansByBook(book, pageRequest);
 
         // then
         assertThat(foundLoans.getTotalElements()).isEqualTo(1);
-        assertThat(foundLoans.getContent().get(0).getCustomer()).isEqualTo("Fulano");
+        assertThat(foundLoans.getContent().get(0).getCustomer().getName()).isEqualTo("Fulano");
         assertThat(foundLoans.getContent().get(0).getBook().getIsbn()).isEqualTo("123");
     }
 
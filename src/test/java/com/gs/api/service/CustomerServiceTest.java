@@ -0,0 +1,89 @@
+package com.gs.api.service;
+
+import com.gs.api.exception.BusinessException;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.repository.CustomerRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.service.impl.CustomerServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class CustomerServiceTest {
+
+    CustomerService service;
+
+    @Mock
+    CustomerRepository customerRepository;
+
+    @Mock
+    LoanRepository loanRepository;
+
+    @BeforeEach
+    public void setup() {
+        service = new CustomerServiceImpl(customerRepository, loanRepository, Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Register a Customer the first time its email is seen")
+    void registerNewCustomer() {
+        // given
+        Customer registered = Customer.builder().id(1L).name("Fulano").email("fulano@mail.com").build();
+        when(customerRepository.findByEmail("fulano@mail.com")).thenReturn(Optional.empty(), Optional.of(registered));
+        when(customerRepository.registerIfAbsent("Fulano", "fulano@mail.com")).thenReturn(true);
+
+        // when
+        Customer customer = service.resolve(createCustomer());
+
+        // then
+        assertThat(customer.getId()).isEqualTo(1L);
+        verify(customerRepository, times(1)).registerIfAbsent("Fulano", "fulano@mail.com");
+    }
+
+    @Test
+    @DisplayName("Use the Customer registered by a concurrent request that won the unique email")
+    void resolveAfterLosingRegistrationRace() {
+        // given
+        Customer winner = Customer.builder().id(7L).name("Fulano").email("fulano@mail.com").build();
+        when(customerRepository.findByEmail("fulano@mail.com")).thenReturn(Optional.empty(), Optional.of(winner));
+        when(customerRepository.registerIfAbsent("Fulano", "fulano@mail.com")).thenReturn(false);
+
+        // when
+        Customer customer = service.resolve(createCustomer());
+
+        // then
+        assertThat(customer).isSameAs(winner);
+    }
+
+    @Test
+    @DisplayName("Give up registering when the winning registration never becomes visible")
+    void giveUpRegistering() {
+        // given
+        when(customerRepository.findByEmail("fulano@mail.com")).thenReturn(Optional.empty());
+        when(customerRepository.registerIfAbsent("Fulano", "fulano@mail.com")).thenReturn(false);
+
+        // when
+        Throwable throwable = catchThrowable(() -> service.resolve(createCustomer()));
+
+        // then
+        assertThat(throwable).isInstanceOf(BusinessException.class);
+        verify(customerRepository, times(3)).registerIfAbsent("Fulano", "fulano@mail.com");
+        verify(customerRepository, never()).save(any(Customer.class));
+    }
+
+    private Customer createCustomer() {
+        return Customer.builder().name("Fulano").email("fulano@mail.com").build();
+    }
+}
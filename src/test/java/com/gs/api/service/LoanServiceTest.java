@@ -3,24 +3,46 @@ package com.gs.api.service;
 import com.gs.api.api.dto.LoanFilterDTO;
 import com.gs.api.exception.BusinessException;
 import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
 import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.Reservation;
+import com.gs.api.model.report.OpenLoan;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.CustomerRepository;
+import com.gs.api.repository.LoanEventRepository;
 import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.ReservationRepository;
+import com.gs.api.service.event.ReservationFulfilledEvent;
+import com.gs.api.service.impl.CustomerServiceImpl;
 import com.gs.api.service.impl.LoanServiceImpl;
+import com.gs.api.service.support.ActiveLoanIndex;
+import com.gs.api.service.support.CountCache;
+import com.gs.api.service.support.LoanEventLog;
+import com.gs.api.service.support.LoanReturnWriteBehind;
+import com.gs.api.service.support.PartitionedScan;
+import com.gs.api.service.support.SingleFlight;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,9 +60,26 @@ class LoanServiceTest {
     @Mock
     LoanRepository repository;
 
+    @Mock
+    CustomerRepository customerRepository;
+
+    @Mock
+    BookRepository bookRepository;
+
+    @Mock
+    LoanEventLog eventLog;
+
+    @Mock
+    ReservationRepository reservationRepository;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     @BeforeEach
     public void setup() {
-        service = new LoanServiceImpl(repository);
+        service = new LoanServiceImpl(repository, customerService(), bookRepository, new CountCache(Duration.ofSeconds(30)), eventLog,
+                reservationRepository, eventPublisher, new SingleFlight(), new PartitionedScan((TransactionTemplate) null, false, 1, 1), new LoanReturnWriteBehind(null),
+                new ActiveLoanIndex(repository, null, eventLog, false), Optional.empty());
     }
 
     @Test
@@ -48,7 +87,10 @@ class LoanServiceTest {
     void saveTest() {
         // given
         Book book = createBook();
+        when(bookRepository.lockById(book.getId())).thenReturn(Optional.of(book));
         Loan loan = createLoan(book);
+        when(customerRepository.findByEmail("fulano@mail.com")).thenReturn(Optional.empty(), Optional.of(createCustomer()));
+        when(customerRepository.registerIfAbsent("Fulano", "fulano@mail.com")).thenReturn(true);
         when(repository.existsByBookIdAndReturnedIsFalse(any(Book.class))).thenReturn(false);
         when(repository.save(any(Loan.class))).thenReturn(createLoanWithId(book, 1L));
 
@@ -58,6 +100,26 @@ class LoanServiceTest {
         // then
         assertThat(savedLoan.getId()).isNotNull();
         assertThat(savedLoan.isReturned()).isFalse();
+        verify(eventLog).loanCreated(savedLoan);
+    }
+
+    @Test
+    @DisplayName("Reuse the registered Customer when saving a Loan")
+    void saveWithExistingCustomer() {
+        // given
+        Loan loan = createLoan(createBook());
+        when(bookRepository.lockById(1L)).thenReturn(Optional.of(loan.getBook()));
+        Customer registered = createCustomer();
+        when(repository.existsByBookIdAndReturnedIsFalse(any(Book.class))).thenReturn(false);
+        when(customerRepository.findByEmail("fulano@mail.com")).thenReturn(Optional.of(registered));
+        when(repository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        Loan savedLoan = service.save(loan);
+
+        // then
+        assertThat(savedLoan.getCustomer()).isSameAs(registered);
+        verify(customerRepository, never()).save(any(Customer.class));
     }
 
     @Test
@@ -65,6 +127,7 @@ class LoanServiceTest {
     void failToCreateLoanWithAlreadyLoanedBook() {
         // given
         Book book = createBook();
+        when(bookRepository.lockById(book.getId())).thenReturn(Optional.of(book));
         Loan loan = createLoan(book);
         when(repository.existsByBookIdAndReturnedIsFalse(any(Book.class))).thenReturn(true);
 
@@ -76,6 +139,29 @@ class LoanServiceTest {
         verify(repository, never()).save(loan);
     }
 
+    @Test
+    @DisplayName("Answers whether a book is loaned from the active loan index once it is built")
+    void failToCreateLoanFromActiveLoanIndex() {
+        // given
+        LoanEventRepository eventRepository = mock(LoanEventRepository.class);
+        ActiveLoanIndex activeLoans = new ActiveLoanIndex(repository, eventRepository, eventLog, true);
+        service = new LoanServiceImpl(repository, customerService(), bookRepository, new CountCache(Duration.ofSeconds(30)), eventLog,
+                reservationRepository, eventPublisher, new SingleFlight(), new PartitionedScan((TransactionTemplate) null, false, 1, 1), new LoanReturnWriteBehind(null),
+                activeLoans, Optional.empty());
+        when(repository.findOpenLoansAfter(anyLong(), any(Pageable.class))).thenReturn(Collections.singletonList(new OpenLoan(5L, 1L)));
+        activeLoans.poll();
+        Loan loan = createLoan(createBook());
+        when(bookRepository.lockById(1L)).thenReturn(Optional.of(loan.getBook()));
+
+        // when
+        BusinessException throwable = catchThrowableOfType(() -> service.save(loan), BusinessException.class);
+
+        // then
+        assertThat(throwable).hasMessage("Book already loaned");
+        verify(repository, never()).existsByBookIdAndReturnedIsFalse(any(Book.class));
+        verify(repository, never()).save(loan);
+    }
+
     @Test
     @DisplayName("Should find a Loan by Id")
     void getLoanInfoById() {
@@ -121,18 +207,64 @@ class LoanServiceTest {
         // then
         assertThat(loan.isReturned()).isTrue();
         verify(repository, times(1)).save(loan);
+        verify(eventLog).loanReturned(any());
+    }
+
+    @Test
+    @DisplayName("Hand a returned Book to the first waiting Reservation")
+    void handOffReturnedBook() {
+        // given
+        Book book = createBook();
+        when(bookRepository.lockById(book.getId())).thenReturn(Optional.of(book));
+        Loan loan = createLoanWithId(book, 1L);
+        Customer waiting = Customer.builder().id(2L).name("Ciclano").email("ciclano@mail.com").build();
+        Reservation reservation = Reservation.builder().id(5L).book(book).customer(waiting)
+                .status(Reservation.Status.WAITING).build();
+        when(repository.save(loan)).thenReturn(loan);
+        when(repository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(false);
+        when(reservationRepository.findFirstByBookAndStatusOrderByIdAsc(book, Reservation.Status.WAITING))
+                .thenReturn(Optional.of(reservation));
+        when(repository.save(argThat(l -> l != loan))).thenAnswer(i -> i.getArgument(0));
+
+        // when
+        service.update(loan);
+
+        // then
+        assertThat(reservation.getStatus()).isEqualTo(Reservation.Status.FULFILLED);
+        assertThat(reservation.getLoan().getCustomer()).isEqualTo(waiting);
+        assertThat(reservation.getLoan().isReturned()).isFalse();
+        verify(bookRepository).lockById(book.getId());
+        verify(eventPublisher).publishEvent(any(ReservationFulfilledEvent.class));
+    }
+
+    @Test
+    @DisplayName("Keep the queue when the returned Book was already lent again")
+    void noHandOffWhenBookIsLoaned() {
+        // given
+        Book book = createBook();
+        Loan loan = createLoanWithId(book, 1L);
+        when(repository.save(loan)).thenReturn(loan);
+        when(repository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(true);
+
+        // when
+        service.update(loan);
+
+        // then
+        verify(reservationRepository, never()).findFirstByBookAndStatusOrderByIdAsc(any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     @DisplayName("Find Loans by Filter")
     void findLoansByFilter() {
         // given
-        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("123").customer("Fulano").build();
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("123").customerId(1L).build();
         Pageable pageable = PageRequest.of(0, 10);
 
         List<Loan> loans = Collections.singletonList(createLoanWithId(createBook(), 1L));
-        when(repository.findByBookIsbnOrCustumer(anyString(), anyString(), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(loans, pageable, loans.size()));
+        when(bookRepository.findByIsbn("123")).thenReturn(Optional.of(createBook()));
+        when(repository.findSlice(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(loans, pageable, false));
 
         // when
         Page<Loan> returnedLoans = service.find(filter, pageable);
@@ -140,6 +272,28 @@ class LoanServiceTest {
         // then
         assertThat(returnedLoans.getTotalElements()).isEqualTo(1);
         assertThat(returnedLoans.getContent()).isEqualTo(loans);
+        verify(bookRepository, times(1)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Find no Loans when all filters must match and the Isbn is unknown")
+    void findNoLoansWhenIsbnIsUnknown() {
+        // given
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .isbn("321")
+                .customerId(1L)
+                .match(LoanFilterDTO.Match.ALL)
+                .build();
+        Pageable pageable = PageRequest.of(0, 10);
+        when(bookRepository.findByIsbn("321")).thenReturn(Optional.empty());
+        when(repository.findSlice(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Collections.emptyList(), pageable, false));
+
+        // when
+        Page<Loan> returnedLoans = service.find(filter, pageable);
+
+        // then
+        assertThat(returnedLoans.getContent()).isEmpty();
     }
 
     @Test
@@ -159,12 +313,139 @@ class LoanServiceTest {
                 .findNotReturnedLoansAfterDay(any(LocalDate.class), anyInt());
     }
 
+    @Test
+    @DisplayName("Get all Customers with Late Loans")
+    void getAllCustomersWithLateLoans() {
+        // given
+        when(repository.findCustomersWithNotReturnedLoansAfterDay(any(LocalDate.class), anyInt()))
+                .thenReturn(Collections.singletonList(createCustomer()));
+
+        // when
+        List<Customer> customers = service.getAllCustomersWithLateLoans();
+
+        // then
+        assertThat(customers).extracting(Customer::getEmail).containsExactly("fulano@mail.com");
+    }
+
+    @Test
+    @DisplayName("Apply queued returns with one update per flag and publish the changed loans")
+    void applyReturns() {
+        // given
+        Book book = createBook();
+        when(bookRepository.lockById(book.getId())).thenReturn(Optional.of(book));
+        Loan loan = createLoanWithId(book, 1L);
+        Loan reopened = createLoanWithId(Book.builder().id(2L).build(), 2L).returnBook();
+        when(bookRepository.lockById(2L)).thenReturn(Optional.of(reopened.getBook()));
+        Map<Long, Boolean> returns = new LinkedHashMap<>();
+        returns.put(1L, true);
+        returns.put(2L, false);
+        returns.put(3L, true);
+        when(repository.lockIdsByIdInAndReturnedNot(Arrays.asList(1L, 3L), true)).thenReturn(Collections.singletonList(1L));
+        when(repository.findByIdIn(Collections.singletonList(2L))).thenReturn(Collections.singletonList(reopened));
+        when(repository.lockIdsByIdInAndReturnedNot(Collections.singletonList(2L), false)).thenReturn(Collections.singletonList(2L));
+        when(repository.findByIdIn(Collections.singletonList(1L))).thenReturn(Collections.singletonList(loan));
+        when(repository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(true);
+
+        // when
+        service.applyReturns(returns);
+
+        // then
+        verify(repository).updateReturnedByIdIn(Collections.singletonList(1L), true);
+        verify(repository).updateReturnedByIdIn(Collections.singletonList(2L), false);
+        verify(eventLog, times(2)).loanReturned(any(Loan.class));
+        verify(eventLog).loanReturned(loan);
+        verify(eventLog).loanReturned(reopened);
+        assertThat(reopened.isReturned()).isFalse();
+        verify(repository, never()).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Fail to create a Loan for a deleted Book")
+    void failToCreateLoanForDeletedBook() {
+        // given
+        Loan loan = createLoan(createBook());
+        when(bookRepository.lockById(1L)).thenReturn(Optional.empty());
+
+        // when
+        BusinessException throwable = catchThrowableOfType(() -> service.save(loan), BusinessException.class);
+
+        // then
+        assertThat(throwable).hasMessage("Book not found");
+        verify(repository, never()).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Not reopen a queued loan whose Book is on loan again")
+    void skipReopenOfLoanedBook() {
+        // given
+        Book book = createBook();
+        Loan first = createLoanWithId(book, 1L).returnBook();
+        Loan second = createLoanWithId(book, 2L).returnBook();
+        when(repository.findByIdIn(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(first, second));
+        when(bookRepository.lockById(1L)).thenReturn(Optional.of(book));
+        when(repository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(true);
+        Map<Long, Boolean> returns = new LinkedHashMap<>();
+        returns.put(1L, false);
+        returns.put(2L, false);
+
+        // when
+        service.applyReturns(returns);
+
+        // then
+        verify(repository, never()).lockIdsByIdInAndReturnedNot(anyList(), anyBoolean());
+        verify(repository, never()).updateReturnedByIdIn(anyList(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Publish nothing for queued returns of loans that are already returned")
+    void skipUnchangedReturns() {
+        // given
+        when(repository.lockIdsByIdInAndReturnedNot(Collections.singletonList(1L), true)).thenReturn(Collections.emptyList());
+
+        // when
+        service.applyReturns(Collections.singletonMap(1L, true));
+
+        // then
+        verify(repository, never()).updateReturnedByIdIn(anyList(), anyBoolean());
+        verify(eventLog, never()).loanReturned(any(Loan.class));
+        verify(reservationRepository, never()).findFirstByBookAndStatusOrderByIdAsc(any(Book.class), any());
+    }
+
+    @Test
+    @DisplayName("Get each Customer with Late Loans once when scanning loan id partitions")
+    void getAllCustomersWithLateLoansPartitioned() {
+        // given
+        service = new LoanServiceImpl(repository, customerService(), bookRepository, new CountCache(Duration.ofSeconds(30)), eventLog,
+                reservationRepository, eventPublisher, new SingleFlight(), new PartitionedScan((TransactionTemplate) null, true, 2, 2), new LoanReturnWriteBehind(null),
+                new ActiveLoanIndex(repository, null, eventLog, false), Optional.empty());
+        when(repository.findMinId()).thenReturn(1L);
+        when(repository.findMaxId()).thenReturn(10L);
+        when(repository.findCustomersWithNotReturnedLoansAfterDay(any(LocalDate.class), anyInt(), anyLong(), anyLong()))
+                .thenReturn(Collections.singletonList(createCustomer()));
+
+        // when
+        List<Customer> customers = service.getAllCustomersWithLateLoans();
+
+        // then
+        assertThat(customers).extracting(Customer::getEmail).containsExactly("fulano@mail.com");
+        verify(repository).findCustomersWithNotReturnedLoansAfterDay(any(LocalDate.class), anyInt(), eq(1L), eq(6L));
+        verify(repository).findCustomersWithNotReturnedLoansAfterDay(any(LocalDate.class), anyInt(), eq(6L), eq(11L));
+    }
+
+    private CustomerService customerService() {
+        return new CustomerServiceImpl(customerRepository, repository, Optional.empty());
+    }
+
     private Loan createLoanWithId(Book book, Long id) {
-        return Loan.builder().id(id).loanDate(LOAN_DATE).book(book).customer("Fulano").returned(false).build();
+        return Loan.builder().id(id).loanDate(LOAN_DATE).book(book).customer(createCustomer()).returned(false).build();
     }
 
     private Loan createLoan(Book book) {
-        return Loan.builder().book(book).customer("Fulano").loanDate(LOAN_DATE).returned(false).build();
+        return Loan.builder().book(book).customer(Customer.builder().name("Fulano").email("fulano@mail.com").build()).loanDate(LOAN_DATE).returned(false).build();
+    }
+
+    private Customer createCustomer() {
+        return Customer.builder().id(1L).name("Fulano").email("fulano@mail.com").build();
     }
 
     private Book createBook() {
@@ -0,0 +1,60 @@
+package com.gs.api.service;
+
+import com.gs.api.model.report.OverdueBuckets;
+import com.gs.api.model.report.OverdueReport;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.service.impl.ReportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ReportServiceTest {
+
+    ReportService service;
+
+    @Mock
+    LoanRepository repository;
+
+    @BeforeEach
+    public void setup() {
+        Clock clock = Clock.fixed(Instant.parse("2000-03-04T10:00:00Z"), ZoneOffset.UTC);
+        service = new ReportServiceImpl(repository, 3, 50, clock);
+        when(repository.countOverdueBuckets(any(LocalDate.class), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(new OverdueBuckets(1, 0, 0));
+        when(repository.countOverdueByBook(any(LocalDate.class), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(repository.countOverdueByCustomer(any(LocalDate.class), any(Pageable.class))).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("Should aggregate once and serve the cached report until it is refreshed")
+    void serveCachedReport() {
+        // when
+        OverdueReport first = service.getOverdueReport();
+        OverdueReport second = service.getOverdueReport();
+        service.refreshOverdueReport();
+        OverdueReport refreshed = service.getOverdueReport();
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(refreshed).isNotSameAs(first);
+        assertThat(first.getAsOf()).isEqualTo(LocalDate.of(2000, 3, 4));
+        verify(repository, times(2)).countOverdueBuckets(
+                LocalDate.of(2000, 3, 1), LocalDate.of(2000, 2, 23), LocalDate.of(2000, 1, 31));
+    }
+}
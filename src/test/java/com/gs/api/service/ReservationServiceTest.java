@@ -0,0 +1,159 @@
+package com.gs.api.service;
+
+import com.gs.api.exception.BusinessException;
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Customer;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.Reservation;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanRepository;
+import com.gs.api.repository.ReservationRepository;
+import com.gs.api.service.impl.ReservationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ReservationServiceTest {
+
+    ReservationService service;
+
+    @Mock
+    ReservationRepository reservationRepository;
+
+    @Mock
+    LoanRepository loanRepository;
+
+    @Mock
+    BookRepository bookRepository;
+
+    @Mock
+    CustomerService customerService;
+
+    @Mock
+    LoanService loanService;
+
+    @BeforeEach
+    public void setup() {
+        service = new ReservationServiceImpl(
+                reservationRepository, loanRepository, bookRepository, customerService, loanService, Optional.empty());
+        when(customerService.resolve(any(Customer.class))).thenReturn(createCustomer());
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Lend a free Book right away")
+    void lendFreeBook() {
+        // given
+        Book book = createBook();
+        when(bookRepository.lockById(book.getId())).thenReturn(Optional.of(book));
+        Loan loan = Loan.builder().id(3L).book(book).customer(createCustomer()).build();
+        when(loanRepository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(false);
+        when(reservationRepository.existsByBookAndStatus(book, Reservation.Status.WAITING)).thenReturn(false);
+        when(loanService.save(any(Loan.class))).thenReturn(loan);
+
+        // when
+        Reservation reservation = service.reserve(createReservation(book));
+
+        // then
+        assertThat(reservation.getStatus()).isEqualTo(Reservation.Status.FULFILLED);
+        assertThat(reservation.getLoan()).isEqualTo(loan);
+        verify(bookRepository).lockById(book.getId());
+    }
+
+    @Test
+    @DisplayName("Queue the Customer when the Book is loaned")
+    void queueWhenLoaned() {
+        // given
+        Book book = createBook();
+        when(bookRepository.lockById(book.getId())).thenReturn(Optional.of(book));
+        when(loanRepository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(true);
+
+        // when
+        Reservation reservation = service.reserve(createReservation(book));
+
+        // then
+        assertThat(reservation.getStatus()).isEqualTo(Reservation.Status.WAITING);
+        assertThat(reservation.getCustomer().getId()).isEqualTo(1L);
+        verify(loanService, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Cannot queue the same Customer twice for a Book")
+    void cannotQueueTwice() {
+        // given
+        Book book = createBook();
+        when(bookRepository.lockById(book.getId())).thenReturn(Optional.of(book));
+        when(loanRepository.existsByBookIdAndReturnedIsFalse(book)).thenReturn(true);
+        when(reservationRepository.existsByBookAndCustomerAndStatus(eq(book), any(Customer.class), eq(Reservation.Status.WAITING)))
+                .thenReturn(true);
+
+        // when
+        Throwable throwable = catchThrowable(() -> service.reserve(createReservation(book)));
+
+        // then
+        assertThat(throwable)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Customer already waiting for this book");
+    }
+
+    @Test
+    @DisplayName("Cannot reserve a deleted Book")
+    void cannotReserveDeletedBook() {
+        // given
+        when(bookRepository.lockById(1L)).thenReturn(Optional.empty());
+
+        // when
+        Throwable throwable = catchThrowable(() -> service.reserve(createReservation(createBook())));
+
+        // then
+        assertThat(throwable)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book not found");
+        verify(reservationRepository, never()).save(any(Reservation.class));
+        verify(loanService, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Cannot cancel a Reservation that was already fulfilled")
+    void cannotCancelFulfilled() {
+        // given
+        when(reservationRepository.updateStatus(1L, Reservation.Status.WAITING, Reservation.Status.CANCELLED))
+                .thenReturn(0);
+        when(reservationRepository.existsById(1L)).thenReturn(true);
+
+        // when
+        Throwable throwable = catchThrowable(() -> service.cancel(1L));
+
+        // then
+        assertThat(throwable)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Reservation is no longer waiting");
+    }
+
+    private Reservation createReservation(Book book) {
+        return Reservation.builder()
+                .book(book)
+                .customer(Customer.builder().name("Fulano").email("fulano@mail.com").build())
+                .build();
+    }
+
+    private Customer createCustomer() {
+        return Customer.builder().id(1L).name("Fulano").email("fulano@mail.com").build();
+    }
+
+    private Book createBook() {
+        return Book.builder().id(1L).isbn("123").author("Fulano").title("As aventuras").build();
+    }
+}
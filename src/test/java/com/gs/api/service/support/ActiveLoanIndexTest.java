@@ -0,0 +1,207 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.Loan;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.model.report.OpenLoan;
+import com.gs.api.repository.LoanEventRepository;
+import com.gs.api.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActiveLoanIndexTest {
+
+    LoanRepository loanRepository;
+    LoanEventRepository eventRepository;
+    LoanEventLog eventLog;
+    ActiveLoanIndex index;
+
+    @BeforeEach
+    public void setup() {
+        loanRepository = mock(LoanRepository.class);
+        eventRepository = mock(LoanEventRepository.class);
+        eventLog = mock(LoanEventLog.class);
+        index = new ActiveLoanIndex(loanRepository, eventRepository, eventLog, true);
+
+        when(eventLog.settledOffset()).thenReturn(10L);
+        when(loanRepository.findOpenLoansAfter(anyLong(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(new OpenLoan(3, 1), new OpenLoan(4, 2)));
+        when(eventLog.read(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should build the index from the open loans on the first poll")
+    public void buildOnFirstPoll() {
+        assertThat(index.isReady()).isFalse();
+
+        index.poll();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.activeLoanOf(1)).isEqualTo(3);
+        assertThat(index.activeLoanOf(2)).isEqualTo(4);
+        assertThat(index.activeLoanOf(5)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should apply loans and returns of other nodes from the event feed")
+    public void applyEvents() {
+        index.poll();
+        when(eventLog.read(eq(10L), anyInt())).thenReturn(Arrays.asList(
+                event(11L, LoanEvent.Type.LOAN_RETURNED, 3L, 1L),
+                event(12L, LoanEvent.Type.LOAN_CREATED, 5L, 6L),
+                event(13L, LoanEvent.Type.LOAN_RETURNED, 9L, 2L)));
+
+        index.poll();
+
+        assertThat(index.activeLoanOf(1)).isZero();
+        assertThat(index.activeLoanOf(6)).isEqualTo(5);
+        // a stale return of another loan does not free the book
+        assertThat(index.activeLoanOf(2)).isEqualTo(4);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should show a change to its own transaction only until it commits")
+    public void applyOnCommit() {
+        index.poll();
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.returned(loan(3L, 1L), 20);
+        index.loaned(loan(7L, 8L), 21);
+
+        assertThat(index.activeLoanOf(1)).isZero();
+        assertThat(index.activeLoanOf(8)).isEqualTo(7);
+        assertThat(index.size()).isEqualTo(2);
+
+        complete(true);
+
+        assertThat(index.activeLoanOf(1)).isZero();
+        assertThat(index.activeLoanOf(8)).isEqualTo(7);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should drop the changes of a rolled back transaction")
+    public void discardOnRollback() {
+        index.poll();
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.loaned(loan(7L, 8L), 20);
+        complete(false);
+
+        assertThat(index.activeLoanOf(8)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep this node's commits made while the index is rebuilt")
+    public void keepCommitsDuringRebuild() {
+        when(loanRepository.findOpenLoansAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            // commits after the page was read
+            index.returned(loan(3L, 1L), 11);
+            index.loaned(loan(7L, 8L), 12);
+            return Arrays.asList(new OpenLoan(3, 1), new OpenLoan(4, 2));
+        });
+
+        index.poll();
+
+        assertThat(index.activeLoanOf(1)).isZero();
+        assertThat(index.activeLoanOf(8)).isEqualTo(7);
+        assertThat(index.activeLoanOf(2)).isEqualTo(4);
+        verify(eventLog).read(eq(10L), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should leave a book undecided while another transaction commits its change")
+    public void unknownWhileCommitting() {
+        index.poll();
+        TransactionSynchronizationManager.initSynchronization();
+        index.loaned(loan(7L, 8L), 20);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.beforeCommit(false));
+
+        assertThat(index.activeLoanOf(8)).isEqualTo(7);
+        assertThat(CompletableFuture.supplyAsync(() -> index.activeLoanOf(8)).join()).isEqualTo(ActiveLoanIndex.UNKNOWN);
+        assertThat(CompletableFuture.supplyAsync(() -> index.activeLoanOf(2)).join()).isEqualTo(4);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(index.activeLoanOf(8)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should ignore feed events older than the last change applied to the book")
+    public void ignoreStaleEvents() {
+        index.poll();
+        index.returned(loan(3L, 1L), 19);
+        index.loaned(loan(7L, 1L), 20);
+        when(eventLog.read(eq(10L), anyInt())).thenReturn(Arrays.asList(
+                event(15L, LoanEvent.Type.LOAN_CREATED, 3L, 1L),
+                event(19L, LoanEvent.Type.LOAN_RETURNED, 3L, 1L),
+                event(20L, LoanEvent.Type.LOAN_CREATED, 7L, 1L)));
+
+        index.poll();
+
+        assertThat(index.activeLoanOf(1)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should apply a reopened loan from the event feed")
+    public void applyReopenEvents() {
+        index.poll();
+        when(eventLog.read(eq(10L), anyInt())).thenReturn(Arrays.asList(
+                event(11L, LoanEvent.Type.LOAN_RETURNED, 3L, 1L),
+                LoanEvent.builder().id(12L).type(LoanEvent.Type.LOAN_RETURNED).loanId(3L).bookId(1L).returned(false).build()));
+
+        index.poll();
+
+        assertThat(index.activeLoanOf(1)).isEqualTo(3);
+    }
+
+    private void complete(boolean committed) {
+        for ( TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations() ) {
+            if ( committed ) {
+                synchronization.beforeCommit(false);
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(committed
+                    ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static Loan loan(Long id, Long bookId) {
+        return Loan.builder().id(id).book(Book.builder().id(bookId).build()).build();
+    }
+
+    private static LoanEvent event(Long id, LoanEvent.Type type, Long loanId, Long bookId) {
+        return LoanEvent.builder().id(id).type(type).loanId(loanId).bookId(bookId)
+                .returned(type == LoanEvent.Type.LOAN_RETURNED).build();
+    }
+}
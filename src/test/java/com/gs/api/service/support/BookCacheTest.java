@@ -0,0 +1,110 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookCacheTest {
+
+    BookRepository bookRepository;
+    LoanEventRepository eventRepository;
+    LoanEventLog eventLog;
+    CountCacheTest.MutableClock clock;
+    BookCache cache;
+    AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setup() {
+        bookRepository = mock(BookRepository.class);
+        eventRepository = mock(LoanEventRepository.class);
+        eventLog = mock(LoanEventLog.class);
+        clock = new CountCacheTest.MutableClock();
+        cache = new BookCache(bookRepository, eventRepository, eventLog, true, 100, Duration.ofSeconds(5), clock);
+
+        when(eventRepository.findLastId()).thenReturn(10L);
+        when(eventLog.read(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+        cache.pollInvalidations();
+    }
+
+    @Test
+    @DisplayName("Should serve repeated lookups by id and isbn from the cache")
+    public void cacheLookups() {
+        cache.get(1L, () -> load(1L));
+        Optional<Book> byId = cache.get(1L, () -> load(1L));
+        Optional<Book> byIsbn = cache.getByIsbn("isbn-1", () -> load(1L));
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(byId).isPresent();
+        assertThat(byIsbn).isEqualTo(byId);
+    }
+
+    @Test
+    @DisplayName("Should evict a book when another node's update shows up in the event feed")
+    public void evictOnRemoteUpdate() {
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+        when(eventLog.read(10L, 500)).thenReturn(Collections.singletonList(
+                LoanEvent.builder().id(11L).type(LoanEvent.Type.BOOK_UPDATED).bookId(1L).build()));
+
+        cache.pollInvalidations();
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+
+        assertThat(loads.get()).isEqualTo(3);
+        verify(eventLog).read(10L, 500);
+    }
+
+    @Test
+    @DisplayName("Should catch a missed invalidation by comparing versions once an entry is old")
+    public void revalidateByVersion() {
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+        when(bookRepository.findVersionById(1L)).thenReturn(Optional.of(1L));
+        when(bookRepository.findVersionById(2L)).thenReturn(Optional.of(2L));
+
+        clock.now = clock.now.plusSeconds(1);
+        cache.get(1L, () -> load(1L));
+        verify(bookRepository, never()).findVersionById(1L);
+
+        clock.now = clock.now.plusSeconds(5);
+        cache.get(1L, () -> load(1L));
+        cache.get(2L, () -> load(2L));
+
+        assertThat(loads.get()).isEqualTo(3);
+        verify(bookRepository).findVersionById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache before the feed position is known")
+    public void skipBeforeFirstPoll() {
+        BookCache cold = new BookCache(bookRepository, eventRepository, eventLog, true, 100, Duration.ofSeconds(5), clock);
+
+        cold.get(1L, () -> load(1L));
+        cold.get(1L, () -> load(1L));
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cold.size()).isZero();
+    }
+
+    private Optional<Book> load(Long id) {
+        loads.incrementAndGet();
+        return Optional.of(Book.builder().id(id).isbn("isbn-" + id).version(1L).build());
+    }
+}
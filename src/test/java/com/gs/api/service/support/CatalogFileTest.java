@@ -0,0 +1,70 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should find books by id and isbn in the mapped file")
+    public void lookups() {
+        List<Book> books = new ArrayList<>();
+        for ( long id = 200; id > 0; id -= 2 ) {
+            books.add(book(id, "isbn-" + id));
+        }
+        books.add(book(7L, "978-ção"));
+        books.add(book(9L, null));
+
+        CatalogFile catalog = CatalogFile.write(dir.resolve("catalog"), 42L, books);
+
+        assertThat(catalog.offset()).isEqualTo(42L);
+        assertThat(catalog.size()).isEqualTo(102);
+        assertThat(catalog.book(catalog.indexOf(100L)))
+                .extracting(Book::getId, Book::getIsbn, Book::getTitle, Book::getAuthor, Book::getVersion)
+                .containsExactly(100L, "isbn-100", "Title 100", "Author 100", 3L);
+        assertThat(catalog.id(catalog.indexOfIsbn("isbn-58"))).isEqualTo(58L);
+        assertThat(catalog.id(catalog.indexOfIsbn("978-ção"))).isEqualTo(7L);
+        assertThat(catalog.book(catalog.indexOf(9L)).getIsbn()).isNull();
+        assertThat(catalog.indexOf(101L)).isEqualTo(-1);
+        assertThat(catalog.indexOfIsbn("isbn-5")).isEqualTo(-1);
+        assertThat(catalog.indexOfIsbn("978-ção!")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should reject a damaged file and replace the snapshot atomically")
+    public void crashSafety() throws IOException {
+        Path file = dir.resolve("catalog");
+        CatalogFile.write(file, 1L, Arrays.asList(book(1L, "a"), book(2L, "b")));
+        try ( RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw") ) {
+            raw.seek(raw.length() - 1);
+            raw.write('x');
+        }
+
+        assertThat(CatalogFile.open(file)).isEmpty();
+
+        CatalogFile.write(file, 2L, Arrays.asList(book(1L, "a"), book(3L, "c")));
+
+        assertThat(CatalogFile.open(file)).get().extracting(CatalogFile::offset).isEqualTo(2L);
+        assertThat(Files.exists(dir.resolve("catalog.tmp"))).isFalse();
+        assertThat(CatalogFile.open(dir.resolve("missing"))).isEmpty();
+    }
+
+    private Book book(Long id, String isbn) {
+        return Book.builder().id(id).isbn(isbn).title("Title " + id).author("Author " + id).version(3L).build();
+    }
+}
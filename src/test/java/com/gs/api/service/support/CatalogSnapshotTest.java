@@ -0,0 +1,139 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.repository.BookRepository;
+import com.gs.api.repository.LoanEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    BookRepository bookRepository;
+    LoanEventRepository eventRepository;
+    LoanEventLog eventLog;
+    CatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void setup() {
+        bookRepository = mock(BookRepository.class);
+        eventRepository = mock(LoanEventRepository.class);
+        eventLog = mock(LoanEventLog.class);
+        when(eventLog.settledOffset()).thenReturn(10L);
+        when(eventLog.read(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+        when(bookRepository.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(book(1L, "Original"), book(2L, "Other"))));
+        snapshot = create();
+    }
+
+    @Test
+    @DisplayName("Should serve books by id and isbn once the first refresh built the snapshot")
+    public void serveAfterFirstRefresh() {
+        assertThat(snapshot.get(1L)).isEmpty();
+
+        snapshot.refresh();
+
+        assertThat(snapshot.get(1L)).get().extracting(Book::getTitle).isEqualTo("Original");
+        assertThat(snapshot.getByIsbn("isbn-2")).get().extracting(Book::getId).isEqualTo(2L);
+        assertThat(snapshot.get(3L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should apply updates and deletes from the event feed")
+    public void refreshIncrementally() {
+        snapshot.refresh();
+        when(eventLog.read(10L, 1000)).thenReturn(Arrays.asList(
+                LoanEvent.builder().id(11L).type(LoanEvent.Type.BOOK_UPDATED).bookId(1L).build(),
+                LoanEvent.builder().id(12L).type(LoanEvent.Type.BOOK_DELETED).bookId(2L).build(),
+                LoanEvent.builder().id(13L).type(LoanEvent.Type.LOAN_CREATED).bookId(1L).build()));
+        when(bookRepository.findAllById(any())).thenReturn(Collections.singletonList(book(1L, "Changed")));
+
+        snapshot.refresh();
+
+        assertThat(snapshot.get(1L)).get().extracting(Book::getTitle).isEqualTo("Changed");
+        assertThat(snapshot.get(2L)).isEmpty();
+        assertThat(snapshot.getByIsbn("isbn-2")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should bypass a book written on this node until a refresh picked up the write")
+    public void bypassLocalWrites() {
+        snapshot.refresh();
+
+        snapshot.invalidateAfterCommit(1L);
+
+        assertThat(snapshot.get(1L)).isEmpty();
+        assertThat(snapshot.getByIsbn("isbn-1")).isEmpty();
+        assertThat(snapshot.get(2L)).isPresent();
+
+        when(eventLog.read(10L, 1000)).thenReturn(Collections.singletonList(
+                LoanEvent.builder().id(11L).type(LoanEvent.Type.BOOK_UPDATED).bookId(1L).build()));
+        when(bookRepository.findAllById(any())).thenReturn(Collections.singletonList(book(1L, "Changed")));
+        snapshot.refresh();
+
+        assertThat(snapshot.get(1L)).get().extracting(Book::getTitle).isEqualTo("Changed");
+    }
+
+    @Test
+    @DisplayName("Should resume from the file on restart and rebuild when the feed was purged past it")
+    public void resumeFromFile() {
+        snapshot.refresh();
+
+        CatalogSnapshot restarted = create();
+        when(eventRepository.findFirstId()).thenReturn(5L);
+        restarted.refresh();
+
+        verify(bookRepository).findAll(any(Pageable.class));
+        verify(eventLog).read(10L, 1000);
+        assertThat(restarted.get(1L)).isPresent();
+
+        CatalogSnapshot stale = create();
+        when(eventRepository.findFirstId()).thenReturn(20L);
+        when(eventLog.settledOffset()).thenReturn(30L);
+        stale.refresh();
+
+        verify(bookRepository, times(2)).findAll(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should apply events still settling when the snapshot was rebuilt")
+    public void rereadSettlingEventsAfterRebuild() {
+        when(eventLog.settledOffset()).thenReturn(8L);
+        snapshot.refresh();
+        when(eventLog.read(8L, 1000)).thenReturn(Collections.singletonList(
+                LoanEvent.builder().id(9L).type(LoanEvent.Type.BOOK_DELETED).bookId(2L).build()));
+
+        snapshot.refresh();
+
+        assertThat(snapshot.get(2L)).isEmpty();
+        assertThat(snapshot.get(1L)).isPresent();
+    }
+
+    private CatalogSnapshot create() {
+        return new CatalogSnapshot(bookRepository, eventRepository, eventLog, true, dir.resolve("catalog").toString());
+    }
+
+    private Book book(Long id, String title) {
+        return Book.builder().id(id).isbn("isbn-" + id).title(title).author("Fulano").version(1L).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.gs.api.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountCacheTest {
+
+    AtomicInteger counts = new AtomicInteger();
+
+    @Test
+    @DisplayName("Should count once per filter until the region is invalidated")
+    public void cacheUntilInvalidated() {
+        CountCache cache = new CountCache(Duration.ofMinutes(1));
+
+        cache.get(CountCache.BOOKS, "a", this::count);
+        cache.get(CountCache.BOOKS, "a", this::count);
+        cache.get(CountCache.BOOKS, "b", this::count);
+        cache.invalidate(CountCache.LOANS);
+        cache.get(CountCache.BOOKS, "a", this::count);
+        cache.invalidate(CountCache.BOOKS);
+        cache.get(CountCache.BOOKS, "a", this::count);
+
+        assertThat(counts.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should count again once the cached total expires")
+    public void expireAfterTtl() {
+        MutableClock clock = new MutableClock();
+        CountCache cache = new CountCache(Duration.ofSeconds(30), clock);
+        cache.get(CountCache.BOOKS, "a", this::count);
+
+        clock.now = clock.now.plusSeconds(31);
+        cache.get(CountCache.BOOKS, "a", this::count);
+        cache.get(CountCache.BOOKS, "a", this::count);
+
+        assertThat(counts.get()).isEqualTo(2);
+    }
+
+    static class MutableClock extends Clock {
+
+        Instant now = Instant.EPOCH;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private long count() {
+        return counts.incrementAndGet();
+    }
+}
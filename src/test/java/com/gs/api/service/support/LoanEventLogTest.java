@@ -0,0 +1,84 @@
+package com.gs.api.service.support;
+
+import com.gs.api.model.entity.Book;
+import com.gs.api.model.entity.LoanEvent;
+import com.gs.api.repository.LoanEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoanEventLogTest {
+
+    LoanEventRepository repository;
+    CountCacheTest.MutableClock clock;
+    LoanEventLog eventLog;
+
+    @BeforeEach
+    public void setup() {
+        repository = mock(LoanEventRepository.class);
+        clock = new CountCacheTest.MutableClock();
+        eventLog = new LoanEventLog(repository, Duration.ofSeconds(2), Duration.ofDays(7), clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        eventLog.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should stop in front of an offset gap until it settles")
+    public void stopAtRecentGap() {
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+                .thenReturn(Arrays.asList(event(1L), event(2L), event(4L)));
+
+        List<LoanEvent> beforeSettle = eventLog.read(0, 10);
+        clock.now = clock.now.plusSeconds(3);
+        List<LoanEvent> afterSettle = eventLog.read(0, 10);
+
+        assertThat(beforeSettle).extracting(LoanEvent::getId).containsExactly(1L, 2L);
+        assertThat(afterSettle).extracting(LoanEvent::getId).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    @DisplayName("Should wake a parked reader once an event is appended")
+    public void wakeParkedReader() throws Exception {
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(1L), any())).thenReturn(Collections.emptyList());
+
+        CompletableFuture<List<LoanEvent>> poll = eventLog.poll(1, 10);
+        assertThat(poll).isNotDone();
+
+        when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(Collections.singletonList(event(2L)));
+        eventLog.bookCreated(Book.builder().id(1L).isbn("123").build());
+
+        List<LoanEvent> events = poll.get(5, TimeUnit.SECONDS);
+        assertThat(events).extracting(LoanEvent::getId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should resume consumers from the last event older than the settle window")
+    public void settledOffset() {
+        when(repository.findLastIdCreatedBefore(clock.instant().minusSeconds(2))).thenReturn(7L);
+
+        assertThat(eventLog.settledOffset()).isEqualTo(7L);
+    }
+
+    private LoanEvent event(Long id) {
+        return LoanEvent.builder().id(id).type(LoanEvent.Type.BOOK_CREATED).createdAt(clock.instant()).build();
+    }
+}
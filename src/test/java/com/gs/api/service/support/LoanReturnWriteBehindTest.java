@@ -0,0 +1,133 @@
+package com.gs.api.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+
+class LoanReturnWriteBehindTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should coalesce returns per loan and write only the latest state")
+    public void coalescePerLoan() {
+        LoanReturnWriteBehind writeBehind = open(1024);
+        List<Map<Long, Boolean>> writes = new ArrayList<>();
+
+        writeBehind.enqueue(1L, true);
+        writeBehind.enqueue(1L, false);
+        writeBehind.enqueue(1L, true);
+        writeBehind.enqueue(2L, true);
+        int flushed = writeBehind.flush(writes::add);
+
+        assertThat(flushed).isEqualTo(2);
+        assertThat(writes).hasSize(1);
+        assertThat(writes.get(0)).containsOnly(entry(1L, true), entry(2L, true));
+        assertThat(writeBehind.pending()).isZero();
+        writeBehind.close();
+    }
+
+    @Test
+    @DisplayName("Should replay acknowledged returns that were not flushed before a crash")
+    public void replayAfterCrash() {
+        LoanReturnWriteBehind crashed = open(1024);
+        crashed.enqueue(1L, true);
+        crashed.enqueue(2L, true);
+        crashed.close();
+
+        LoanReturnWriteBehind restarted = open(1024);
+        Map<Long, Boolean> written = new HashMap<>();
+        restarted.flush(written::putAll);
+
+        assertThat(written).containsOnly(entry(1L, true), entry(2L, true));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Should not replay returns that were already flushed")
+    public void doNotReplayFlushed() {
+        LoanReturnWriteBehind first = open(1024);
+        first.enqueue(1L, true);
+        first.flush(returns -> { });
+        first.enqueue(2L, true);
+        first.flush(returns -> { });
+        first.close();
+
+        LoanReturnWriteBehind restarted = open(1024);
+
+        assertThat(restarted.pending()).isZero();
+        assertThat(restarted.flush(returns -> { throw new AssertionError("nothing to write"); })).isZero();
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Should keep a newer state queued while the flush is writing")
+    public void keepStateQueuedDuringFlush() {
+        LoanReturnWriteBehind writeBehind = open(1024);
+        writeBehind.enqueue(1L, true);
+
+        writeBehind.flush(returns -> writeBehind.enqueue(1L, false));
+        writeBehind.close();
+
+        LoanReturnWriteBehind restarted = open(1024);
+        Map<Long, Boolean> written = new HashMap<>();
+        restarted.flush(written::putAll);
+
+        assertThat(writeBehind.pending()).isEqualTo(1);
+        assertThat(written).containsOnly(entry(1L, false));
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Should keep returns queued when writing them fails")
+    public void keepQueuedOnFailure() {
+        LoanReturnWriteBehind writeBehind = open(1024);
+        writeBehind.enqueue(1L, true);
+
+        Throwable failure = catchThrowable(() -> writeBehind.flush(returns -> { throw new IllegalStateException("db down"); }));
+        Map<Long, Boolean> written = new HashMap<>();
+        writeBehind.flush(written::putAll);
+
+        assertThat(failure).isInstanceOf(IllegalStateException.class);
+        assertThat(written).containsOnly(entry(1L, true));
+        writeBehind.close();
+    }
+
+    @Test
+    @DisplayName("Should refuse returns once the journal is full until it is flushed")
+    public void refuseWhenFull() {
+        LoanReturnWriteBehind writeBehind = open(ReturnJournal.HEADER + 2 * ReturnJournal.RECORD);
+
+        assertThat(writeBehind.enqueue(1L, true)).isTrue();
+        assertThat(writeBehind.enqueue(2L, true)).isTrue();
+        assertThat(writeBehind.enqueue(3L, true)).isFalse();
+
+        writeBehind.flush(returns -> { });
+        assertThat(writeBehind.enqueue(3L, true)).isTrue();
+        writeBehind.close();
+    }
+
+    @Test
+    @DisplayName("Should not queue anything when disabled")
+    public void disabled() {
+        LoanReturnWriteBehind writeBehind = new LoanReturnWriteBehind(null);
+
+        assertThat(writeBehind.isEnabled()).isFalse();
+        assertThat(writeBehind.enqueue(1L, true)).isFalse();
+    }
+
+    private LoanReturnWriteBehind open(int capacity) {
+        return new LoanReturnWriteBehind(new ReturnJournal(dir.resolve("returns.journal"), capacity, true));
+    }
+}
@@ -0,0 +1,60 @@
+package com.gs.api.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongLongMapTest {
+
+    @Test
+    @DisplayName("Should put, overwrite and remove mappings, answering 0 for absent keys")
+    public void putGetRemove() {
+        LongLongMap map = new LongLongMap(0);
+
+        assertThat(map.put(7, 70)).isZero();
+        assertThat(map.put(7, 71)).isEqualTo(70);
+
+        assertThat(map.get(7)).isEqualTo(71);
+        assertThat(map.get(8)).isZero();
+        assertThat(map.remove(7, 70)).isZero();
+        assertThat(map.remove(7, 71)).isEqualTo(71);
+        assertThat(map.get(7)).isZero();
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject keys that collide with the free slot marker")
+    public void rejectZeroKey() {
+        assertThatThrownBy(() -> new LongLongMap(0).put(0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should agree with a HashMap through growth and removals")
+    public void matchHashMap() {
+        LongLongMap map = new LongLongMap(0);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for ( int i = 0; i < 100_000; i++ ) {
+            long key = 1 + random.nextInt(5_000);
+            if ( random.nextInt(3) == 0 ) {
+                Long removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed == null ? 0 : removed);
+            } else {
+                Long previous = expected.put(key, (long) i + 1);
+                assertThat(map.put(key, i + 1)).isEqualTo(previous == null ? 0 : previous);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for ( long key = 1; key <= 5_000; key++ ) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, 0L));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.gs.api.service.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionedScanTest {
+
+    PartitionedScan scan;
+
+    @AfterEach
+    public void tearDown() {
+        if ( scan != null ) {
+            scan.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should cover the id range exactly once and merge chunks in id order")
+    public void coverRangeInOrder() {
+        scan = new PartitionedScan((TransactionTemplate) null, true, 7, 3);
+
+        List<Long> ids = scan.scan(1, 100, (from, to) -> LongStream.range(from, to).boxed().collect(Collectors.toList()));
+
+        assertThat(ids).containsExactlyElementsOf(LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Should never run more chunks at once than the configured parallelism")
+    public void boundedParallelism() {
+        scan = new PartitionedScan((TransactionTemplate) null, true, 12, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        List<Long> chunks = scan.scan(0, 1_199, (from, to) -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return Collections.singletonList(to - from);
+        });
+
+        assertThat(chunks).hasSize(12).allMatch(size -> size == 100);
+        assertThat(peak.get()).isBetween(1, 2);
+    }
+
+    @Test
+    @DisplayName("Should not query an empty range")
+    public void emptyRange() {
+        scan = new PartitionedScan((TransactionTemplate) null, true, 4, 2);
+
+        List<Object> rows = scan.scan(10, 9, (from, to) -> {
+            throw new AssertionError("queried " + from + ".." + to);
+        });
+
+        assertThat(rows).isEmpty();
+    }
+
+    /**
+     * Run with {@code -Dbenchmark.overdue-scan.loans=10000000}; needs a heap of a few GB.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.overdue-scan.loans", matches = "\\d+")
+    @DisplayName("Benchmark the overdue scan across cores")
+    public void benchmarkOverdueScan() {
+        long loans = Long.getLong("benchmark.overdue-scan.loans");
+        int cores = Runtime.getRuntime().availableProcessors();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:overdue-benchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(cores);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table loan(id bigint primary key, loan_date date, returned boolean)");
+        jdbc.update("insert into loan select x, dateadd('DAY', -mod(x, 60), current_date), mod(x, 5) > 0 " +
+                "from system_range(1, ?)", loans);
+
+        try {
+            long expected = -1;
+            for ( int parallelism = 1; parallelism <= cores; parallelism *= 2 ) {
+                scan = new PartitionedScan((TransactionTemplate) null, true, parallelism * 4, parallelism);
+                long start = System.nanoTime();
+                long late = scan.scan(1, loans, (from, to) -> Collections.singletonList(jdbc.queryForObject(
+                        "select count(*) from loan where id >= ? and id < ? and returned = false " +
+                                "and loan_date < dateadd('DAY', -3, current_date)", Long.class, from, to)))
+                        .stream().mapToLong(Long::longValue).sum();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                scan.shutdown();
+
+                System.out.printf("parallelism %2d: %,d late of %,d loans in %,d ms%n", parallelism, late, loans, millis);
+                if ( expected >= 0 ) {
+                    assertThat(late).isEqualTo(expected);
+                }
+                expected = late;
+            }
+        } finally {
+            jdbc.execute("drop table loan");
+            dataSource.close();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.gs.api.service.support;
+
+import com.gs.api.config.datasource.ReplicaLagGuard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    static final int CALLERS = 64;
+    static final int CONNECTIONS = 4;
+    static final long QUERY_MILLIS = 20;
+
+    SingleFlight singleFlight = new SingleFlight();
+    ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+    Semaphore connections = new Semaphore(CONNECTIONS);
+    AtomicInteger queries = new AtomicInteger();
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should collapse a burst of identical reads into one query")
+    public void collapseBurst() throws Exception {
+        List<Future<String>> calls = new ArrayList<>();
+        for ( int i = 0; i < CALLERS; i++ ) {
+            calls.add(pool.submit(() -> singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> {
+                queries.incrementAndGet();
+                awaitWaiting(CALLERS - 1);
+                return "book";
+            })));
+        }
+
+        for ( Future<String> call : calls ) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isEqualTo("book");
+        }
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    /**
+     * Run with {@code -Dbenchmark.single-flight=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.single-flight", matches = "true")
+    @DisplayName("Benchmark the p99 of a burst of identical reads with and without coalescing")
+    public void benchmarkBurst() throws Exception {
+        Supplier<String> uncoalesced = this::query;
+        Supplier<String> coalesced = () -> singleFlight.execute(SingleFlight.BOOKS, "id=1", this::query);
+        burst(uncoalesced);
+        burst(coalesced);
+        queries.set(0);
+
+        long uncoalescedP99 = burst(uncoalesced);
+        int uncoalescedQueries = queries.getAndSet(0);
+        long coalescedP99 = burst(coalesced);
+        int coalescedQueries = queries.get();
+
+        assertThat(uncoalescedQueries).isEqualTo(CALLERS);
+        assertThat(coalescedQueries).isLessThanOrEqualTo(CALLERS / 8);
+        assertThat(coalescedP99).isLessThan(uncoalescedP99 / 2);
+    }
+
+    @Test
+    @DisplayName("Should hand the leader's exception to every waiting caller")
+    public void shareFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = pool.submit(() -> singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        started.await();
+        Future<Object> follower = pool.submit(() -> singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> {
+            queries.incrementAndGet();
+            return "own";
+        }));
+        awaitWaiting(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(queries.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not share a read started before a write with callers arriving after it")
+    public void doNotShareAcrossWrites() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> before = pool.submit(() -> singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> {
+            started.countDown();
+            await(release);
+            return "before";
+        }));
+        started.await();
+
+        singleFlight.invalidate(SingleFlight.LOANS);
+        Future<String> afterOtherWrite = pool.submit(() -> singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> "joined"));
+        awaitWaiting(1);
+        singleFlight.invalidate(SingleFlight.BOOKS);
+        String afterWrite = singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> "after");
+        release.countDown();
+
+        assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(afterOtherWrite.get(5, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(afterWrite).isEqualTo("after");
+    }
+
+    @Test
+    @DisplayName("Should not hand a replica read to a caller pinned to the primary")
+    public void doNotShareAcrossRouting() throws Exception {
+        ReplicaLagGuard lagGuard = new ReplicaLagGuard(Duration.ofSeconds(1));
+        singleFlight = new SingleFlight(Optional.of(lagGuard));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> replica = pool.submit(() -> singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> {
+            started.countDown();
+            await(release);
+            return "replica";
+        }));
+        started.await();
+
+        lagGuard.markWrite();
+        try {
+            assertThat(singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> "primary")).isEqualTo("primary");
+        } finally {
+            lagGuard.unbind();
+        }
+        release.countDown();
+
+        assertThat(replica.get(5, TimeUnit.SECONDS)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should free an interrupted caller while the leader is still running")
+    public void interruptWaitingCaller() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = pool.submit(() -> singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> {
+            started.countDown();
+            await(release);
+            return "book";
+        }));
+        started.await();
+        CountDownLatch freed = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Future<?> follower = pool.submit(() -> {
+            try {
+                singleFlight.execute(SingleFlight.BOOKS, "id=1", () -> "own");
+            } catch ( IllegalStateException e ) {
+                failure.set(e);
+            } finally {
+                freed.countDown();
+            }
+        });
+        awaitWaiting(1);
+
+        follower.cancel(true);
+
+        assertThat(freed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(failure.get()).hasMessageContaining("Interrupted");
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("book");
+    }
+
+    /**
+     * Fires {@link #CALLERS} concurrent reads at once and returns their 99th percentile latency in millis.
+     */
+    private long burst(Supplier<String> read) throws InterruptedException, ExecutionException {
+        CyclicBarrier start = new CyclicBarrier(CALLERS);
+        List<Future<Long>> calls = new ArrayList<>();
+        for ( int i = 0; i < CALLERS; i++ ) {
+            calls.add(pool.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                read.get();
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            }));
+        }
+        List<Long> latencies = new ArrayList<>();
+        for ( Future<Long> call : calls ) {
+            latencies.add(call.get());
+        }
+        Collections.sort(latencies);
+        return latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+    }
+
+    /**
+     * Stands in for a repository call on a pool of {@link #CONNECTIONS} connections.
+     */
+    private String query() {
+        try {
+            connections.acquire();
+            try {
+                queries.incrementAndGet();
+                Thread.sleep(QUERY_MILLIS);
+                return "book";
+            } finally {
+                connections.release();
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Blocks until {@code callers} callers wait for the in-flight read of {@code id=1}.
+     */
+    private void awaitWaiting(int callers) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ( singleFlight.waiting(SingleFlight.BOOKS, "id=1") < callers ) {
+            if ( System.nanoTime() > deadline ) {
+                throw new AssertionError("Only " + singleFlight.waiting(SingleFlight.BOOKS, "id=1") + " callers joined");
+            }
+            Thread.yield();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}